@@ -5,6 +5,13 @@ import java.io.IOException;
 import java.util.Properties;
 
 /**
+ * Lee las propiedades de config.properties.
+ * <p>
+ * El archivo se lee una sola vez, la primera vez que se pide una propiedad, y
+ * sus valores se guardan en memoria. Para aplicar cambios hechos en el archivo
+ * con la aplicación en marcha se puede llamar a {@link #recargar()}.
+ * </p>
+ * 
  * @author Esteban Martín González
  * @version 1.0
  * @since 2025
@@ -14,6 +21,9 @@ public class ConfigLoader {
 	// Nombre del archivo de configuración que contiene las propiedades
 	private static final String CONFIG_FILE = "config.properties";
 
+	// Propiedades leídas del archivo (null hasta la primera consulta)
+	private static volatile Properties propiedades;
+
 	/**
 	 * Método para obtener el valor de una propiedad dada su clave (key).
 	 * 
@@ -22,6 +32,35 @@ public class ConfigLoader {
 	 */
 	public static String getProperty(String key) {
 
+		Properties props = propiedades;
+
+		if (props == null) {
+			synchronized (ConfigLoader.class) {
+				props = propiedades;
+				if (props == null) {
+					propiedades = props = cargar();
+				}
+			}
+		}
+
+		return props.getProperty(key);
+
+	}
+
+	/**
+	 * Vuelve a leer el archivo de configuración en la próxima consulta.
+	 */
+	public static void recargar() {
+		propiedades = null;
+	}
+
+	/**
+	 * Lee el archivo de configuración.
+	 * 
+	 * @return Propiedades del archivo, o vacías si no se pudo leer
+	 */
+	private static Properties cargar() {
+
 		Properties props = new Properties();
 
 		// Intentamos cargar el archivo de configuración
@@ -30,19 +69,80 @@ public class ConfigLoader {
 			// Cargar las propiedades desde el archivo
 			props.load(fis);
 
-			// Retornar el valor asociado a la clave solicitada
-			return props.getProperty(key);
-
 		} catch (IOException e) {
 			
-			// Capturar errores de lectura y mostrar mensaje de error
+			// Capturar errores de lectura y mostrar mensaje de error (las propiedades quedan vacías)
 			System.err.println("Error al cargar config.properties: " + e.getMessage());
-
-			// Retornar null si hay error
-			return null;
 			
 		}
 
+		return props;
+
+	}
+
+	/**
+	 * Obtiene el valor de una propiedad o un valor por defecto si no está definida.
+	 * 
+	 * @param key     La clave de la propiedad que se desea obtener
+	 * @param defecto Valor a devolver si la propiedad no existe o está vacía
+	 * @return El valor de la propiedad o el valor por defecto
+	 */
+	public static String getProperty(String key, String defecto) {
+
+		String valor = getProperty(key);
+
+		return (valor == null || valor.isBlank()) ? defecto : valor.trim();
+
+	}
+
+	/**
+	 * Obtiene una propiedad numérica entera o un valor por defecto si no está
+	 * definida o no es un número válido.
+	 * 
+	 * @param key     La clave de la propiedad que se desea obtener
+	 * @param defecto Valor a devolver si la propiedad no existe o no es numérica
+	 * @return El valor entero de la propiedad o el valor por defecto
+	 */
+	public static int getIntProperty(String key, int defecto) {
+
+		String valor = getProperty(key);
+
+		if (valor == null || valor.isBlank()) {
+			return defecto;
+		}
+
+		try {
+			return Integer.parseInt(valor.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("Valor no numérico para " + key + ": " + valor);
+			return defecto;
+		}
+
+	}
+
+	/**
+	 * Obtiene una propiedad numérica decimal o un valor por defecto si no está
+	 * definida o no es un número válido.
+	 * 
+	 * @param key     La clave de la propiedad que se desea obtener
+	 * @param defecto Valor a devolver si la propiedad no existe o no es numérica
+	 * @return El valor decimal de la propiedad o el valor por defecto
+	 */
+	public static double getDoubleProperty(String key, double defecto) {
+
+		String valor = getProperty(key);
+
+		if (valor == null || valor.isBlank()) {
+			return defecto;
+		}
+
+		try {
+			return Double.parseDouble(valor.trim());
+		} catch (NumberFormatException e) {
+			System.err.println("Valor no numérico para " + key + ": " + valor);
+			return defecto;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package controller;
 
 import dao.ClienteDAO;
 import dao.ProductoDAO;
+import service.RellenoDescripciones;
 import view.InterfazConsola;
 import view.Utilidades;
 
@@ -27,6 +28,10 @@ public class MainApp {
 		
 		ClienteDAO cDao = new ClienteDAO();
 
+		// Describir con IA en segundo plano los productos sin descripción (si está activado)
+		RellenoDescripciones.arrancarSiActiva(dao::contarProductosSinDescripcion, dao::obtenerProductosSinDescripcion,
+				dao::guardarDescripcion);
+
 		int opcion; // Variable para almacenar la opción del menú seleccionada por el usuario
 
 		// Bucle principal que se ejecuta hasta que el usuario elija salir (opción 0)
@@ -48,8 +53,9 @@ public class MainApp {
 			case 5 -> vista.eliminarProducto(dao);                     // Eliminar producto
 			case 6 -> vista.buscarPorNombre(dao);                      // Buscar productos por nombre
 			case 7 -> vista.descripcionIa(dao);                        // Generar descripción de producto con IA
-			case 8 -> vista.categoriaIa();                             // Sugerir categoría con IA
+			case 8 -> vista.categoriaIa(dao);                          // Sugerir categoría con IA
 			case 9 -> vista.ejecutarMenuClientes(cDao);                // Abre el menú de clientes
+			case 10 -> vista.descripcionesIaCatalogo(dao);             // Describir con IA todo el catálogo
 			case 0 -> System.out.println("Saliendo del programa...");  // Salir de la aplicación
 			default -> System.out.println("Opción inválida");          // Opción no reconocida
 
@@ -1,6 +1,9 @@
 package controller;
 
 import javax.swing.SwingUtilities;
+import dao.ProductoDAO;
+import service.RellenoDescripciones;
+import util.MetricasArranque;
 import view.InterfazGrafica;
 
 /**
@@ -22,6 +25,14 @@ public class MainAppGrafico {
      * @param args Argumentos de línea de comandos (no se utilizan).
      */
     public static void main(String[] args) {
+        // Los tiempos de arranque (primer pintado, primeras filas) se miden desde aquí
+        MetricasArranque.iniciar();
+
+        // Describir con IA en segundo plano los productos sin descripción (si está activado)
+        ProductoDAO dao = new ProductoDAO();
+        RellenoDescripciones.arrancarSiActiva(dao::contarProductosSinDescripcion, dao::obtenerProductosSinDescripcion,
+                dao::guardarDescripcion);
+
         // Usamos invokeLater para asegurar que la creación y
         // actualización de la interfaz gráfica se realice en el hilo
         // de despacho de eventos de Swing (Event Dispatch Thread),
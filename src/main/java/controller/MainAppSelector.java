@@ -6,6 +6,7 @@ import view.Utilidades;
 
 import dao.ClienteDAO;
 import dao.ProductoDAO;
+import service.RellenoDescripciones;
 
 import java.util.concurrent.CountDownLatch;
 
@@ -32,6 +33,12 @@ public class MainAppSelector {
     public static void main(String[] args) {
         int opcion;
 
+        // Describir con IA en segundo plano los productos sin descripción (si está activado),
+        // con cualquiera de las dos interfaces
+        ProductoDAO dao = new ProductoDAO();
+        RellenoDescripciones.arrancarSiActiva(dao::contarProductosSinDescripcion, dao::obtenerProductosSinDescripcion,
+                dao::guardarDescripcion);
+
         do {
             // Mostrar menú inicial para seleccionar la interfaz a usar
             System.out.println("""
@@ -81,8 +88,9 @@ public class MainAppSelector {
                 case 5 -> vista.eliminarProducto(dao);
                 case 6 -> vista.buscarPorNombre(dao);
                 case 7 -> vista.descripcionIa(dao);
-                case 8 -> vista.categoriaIa();
+                case 8 -> vista.categoriaIa(dao);
                 case 9 -> vista.ejecutarMenuClientes(cDao);  // Submenú para clientes
+                case 10 -> vista.descripcionesIaCatalogo(dao);
                 case 0 -> System.out.println("Saliendo de la consola...");
                 default -> System.out.println("Opción inválida");
             }
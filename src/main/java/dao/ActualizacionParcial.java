@@ -0,0 +1,208 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Construye y ejecuta sentencias UPDATE que solo modifican las columnas que han
+ * cambiado en cada fila.
+ * <p>
+ * Se define una vez por tabla con las columnas que se pueden actualizar y cómo
+ * se asigna cada una a la sentencia. Las columnas de cada UPDATE se escriben
+ * siempre en el orden de definición, de modo que las filas con los mismos
+ * cambios comparten el texto de la sentencia (y su caché en el servidor).
+ * </p>
+ * <p>
+ * También se pueden declarar columnas derivadas de otras (ver
+ * {@link #anular(String, String...)}), que se vacían cuando cambia alguna de
+ * las columnas de las que dependen.
+ * </p>
+ * <p>
+ * Como {@link MapeadorFilas}, es inmutable y se puede guardar en una constante.
+ * </p>
+ *
+ * @param <T> Tipo de entidad que se actualiza
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+final class ActualizacionParcial<T> {
+
+    private final String tabla;
+    private final ToIntFunction<T> obtenerId;
+
+    // Columnas actualizables en orden de definición
+    private final Map<String, Asignador<T>> columnas;
+
+    // Columnas que se ponen a NULL cuando cambia alguna de sus columnas de origen
+    private final Map<String, List<String>> anuladas;
+
+    private ActualizacionParcial(String tabla, ToIntFunction<T> obtenerId, Map<String, Asignador<T>> columnas,
+                                 Map<String, List<String>> anuladas) {
+        this.tabla = tabla;
+        this.obtenerId = obtenerId;
+        this.columnas = columnas;
+        this.anuladas = anuladas;
+    }
+
+    /**
+     * Crea una actualización sin columnas para una tabla.
+     *
+     * @param <T>       Tipo de entidad
+     * @param tabla     Nombre de la tabla
+     * @param obtenerId Función que devuelve el ID (columna id) de la entidad
+     * @return Actualización a la que se le añaden las columnas
+     */
+    static <T> ActualizacionParcial<T> para(String tabla, ToIntFunction<T> obtenerId) {
+        return new ActualizacionParcial<>(tabla, obtenerId, Map.of(), Map.of());
+    }
+
+    /**
+     * Añade una columna actualizable.
+     *
+     * @param nombre   Nombre de la columna
+     * @param asignador Asigna el valor de la entidad al parámetro de la sentencia
+     * @return Nueva actualización con la columna añadida
+     */
+    ActualizacionParcial<T> columna(String nombre, Asignador<T> asignador) {
+        Map<String, Asignador<T>> nuevas = new LinkedHashMap<>(columnas);
+        nuevas.put(nombre, asignador);
+        return new ActualizacionParcial<>(tabla, obtenerId, nuevas, anuladas);
+    }
+
+    /**
+     * Declara una columna calculada a partir de otras, que deja de ser válida
+     * cuando alguna de ellas cambia: la misma sentencia que guarda el cambio la
+     * pone a NULL.
+     *
+     * @param columna Columna que se vacía
+     * @param origen  Columnas actualizables de las que depende
+     * @return Nueva actualización con la columna derivada añadida
+     */
+    ActualizacionParcial<T> anular(String columna, String... origen) {
+        Map<String, List<String>> nuevas = new LinkedHashMap<>(anuladas);
+        nuevas.put(columna, List.of(origen));
+        return new ActualizacionParcial<>(tabla, obtenerId, columnas, nuevas);
+    }
+
+    /**
+     * Guarda los cambios de varias filas.
+     * <p>
+     * Una sola fila se actualiza con una sentencia en modo autocommit. Varias
+     * filas se agrupan por columnas cambiadas y cada grupo se envía como un lote
+     * JDBC, todo dentro de una única transacción: si una fila no existe o una
+     * sentencia falla no se guarda ninguna.
+     * </p>
+     *
+     * @param conexion Conexión en modo autocommit
+     * @param filas    Cambios de cada fila (las filas sin columnas se ignoran)
+     * @return true si se actualizaron todas las filas, false si alguna no existe
+     * @throws SQLException             Si falla alguna sentencia (la transacción se deshace)
+     * @throws IllegalArgumentException Si alguna columna no es actualizable
+     */
+    boolean ejecutar(Connection conexion, List<CambiosFila<T>> filas) throws SQLException {
+
+        // Agrupar las filas por la lista de columnas que cambian
+        Map<List<String>, List<T>> grupos = new LinkedHashMap<>();
+        int total = 0;
+        for (CambiosFila<T> fila : filas) {
+            List<String> cambiadas = ordenar(fila);
+            if (!cambiadas.isEmpty()) {
+                grupos.computeIfAbsent(cambiadas, k -> new ArrayList<>()).add(fila.entidad());
+                total++;
+            }
+        }
+
+        if (total == 0) {
+            return true;
+        }
+
+        if (total == 1) {
+            Map.Entry<List<String>, List<T>> grupo = grupos.entrySet().iterator().next();
+            try (PreparedStatement stmt = conexion.prepareStatement(sentencia(grupo.getKey()))) {
+                asignar(stmt, grupo.getKey(), grupo.getValue().get(0));
+                return stmt.executeUpdate() > 0;
+            }
+        }
+
+        conexion.setAutoCommit(false);
+
+        try {
+            for (Map.Entry<List<String>, List<T>> grupo : grupos.entrySet()) {
+                try (PreparedStatement stmt = conexion.prepareStatement(sentencia(grupo.getKey()))) {
+                    for (T entidad : grupo.getValue()) {
+                        asignar(stmt, grupo.getKey(), entidad);
+                        stmt.addBatch();
+                    }
+                    // 0 filas: la entidad ya no existe (el driver devuelve filas encontradas, no cambiadas)
+                    for (int actualizadas : stmt.executeBatch()) {
+                        if (actualizadas == 0) {
+                            conexion.rollback();
+                            return false;
+                        }
+                    }
+                }
+            }
+            conexion.commit();
+            return true;
+
+        } catch (SQLException e) {
+            conexion.rollback();
+            throw e;
+        }
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Columnas cambiadas de una fila en el orden de definición.
+     */
+    private List<String> ordenar(CambiosFila<T> fila) {
+        for (String columna : fila.columnas()) {
+            if (!columnas.containsKey(columna)) {
+                throw new IllegalArgumentException("Columna no actualizable: " + columna);
+            }
+        }
+        List<String> ordenadas = new ArrayList<>();
+        for (String columna : columnas.keySet()) {
+            if (fila.columnas().contains(columna)) {
+                ordenadas.add(columna);
+            }
+        }
+        return ordenadas;
+    }
+
+    private String sentencia(List<String> cambiadas) {
+        StringBuilder asignaciones = new StringBuilder(String.join(" = ?, ", cambiadas)).append(" = ?");
+        anuladas.forEach((columna, origen) -> {
+            if (origen.stream().anyMatch(cambiadas::contains)) {
+                asignaciones.append(", ").append(columna).append(" = NULL");
+            }
+        });
+        return "UPDATE " + tabla + " SET " + asignaciones + " WHERE id = ?";
+    }
+
+    private void asignar(PreparedStatement stmt, List<String> cambiadas, T entidad) throws SQLException {
+        int indice = 1;
+        for (String columna : cambiadas) {
+            columnas.get(columna).asignar(stmt, indice++, entidad);
+        }
+        stmt.setInt(indice, obtenerId.applyAsInt(entidad));
+    }
+
+    /**
+     * Asigna el valor de una columna de la entidad a un parámetro de la sentencia.
+     */
+    @FunctionalInterface
+    interface Asignador<T> {
+        void asignar(PreparedStatement stmt, int indice, T entidad) throws SQLException;
+    }
+
+}
@@ -0,0 +1,176 @@
+package dao;
+
+import java.util.LinkedHashMap;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché en memoria de entidades por ID, acotada por tamaño y por tiempo de vida.
+ * <p>
+ * Se usa como caché de lectura delante de los DAO: las consultas por ID se
+ * sirven desde memoria si la entidad está cacheada y no ha caducado, y las
+ * escrituras invalidan la entrada correspondiente. Cuando se supera el tamaño
+ * máximo se descarta la entrada usada hace más tiempo.
+ * </p>
+ * <p>
+ * Las entidades son mutables, así que la caché guarda y devuelve copias: lo que
+ * el llamador modifique no afecta a la versión cacheada.
+ * </p>
+ *
+ * @param <V> Tipo de entidad cacheada
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class CacheEntidades<V> {
+
+    private final int tamanoMaximo;
+    private final long ttlMs;
+    private final UnaryOperator<V> copiar;
+
+    // Entradas en orden de acceso (la primera es la menos usada)
+    private final LinkedHashMap<Integer, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Se incrementa en cada invalidación para no cachear lecturas que se solapan con una escritura
+    private long version;
+
+    private long aciertos;
+    private long fallos;
+
+    /**
+     * Crea una caché de entidades.
+     *
+     * @param tamanoMaximo Número máximo de entidades cacheadas (0 desactiva la caché)
+     * @param ttlMs        Tiempo de vida de cada entrada en milisegundos
+     * @param copiar       Función que crea una copia independiente de una entidad
+     */
+    public CacheEntidades(int tamanoMaximo, long ttlMs, UnaryOperator<V> copiar) {
+        this.tamanoMaximo = tamanoMaximo;
+        this.ttlMs = ttlMs;
+        this.copiar = copiar;
+    }
+
+    /**
+     * Obtiene la entidad con el ID dado desde la caché o, si no está o ha
+     * caducado, desde la función de carga, guardando el resultado.
+     *
+     * @param id      Identificador de la entidad
+     * @param cargar  Función que lee la entidad de la base de datos (puede devolver null)
+     * @return Copia de la entidad o null si no existe
+     */
+    public V obtener(int id, IntFunction<V> cargar) {
+
+        long versionLectura;
+
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(id);
+            if (entrada != null && System.currentTimeMillis() < entrada.caduca) {
+                aciertos++;
+                return copiar.apply(entrada.valor);
+            }
+            if (entrada != null) {
+                entradas.remove(id);
+            }
+            fallos++;
+            versionLectura = version;
+        }
+
+        // La lectura en la base de datos se hace fuera del bloqueo
+        V valor = cargar.apply(id);
+
+        if (valor != null && tamanoMaximo > 0) {
+            synchronized (this) {
+                // Si hubo una escritura mientras se leía, el valor puede estar desfasado
+                if (versionLectura == version) {
+                    entradas.put(id, new Entrada<>(copiar.apply(valor), System.currentTimeMillis() + ttlMs));
+                    recortar();
+                }
+            }
+        }
+
+        return valor;
+    }
+
+    /**
+     * Elimina de la caché la entidad con el ID dado. Debe llamarse tras cualquier
+     * escritura sobre ella.
+     *
+     * @param id Identificador de la entidad modificada o eliminada
+     */
+    public synchronized void invalidar(int id) {
+        version++;
+        entradas.remove(id);
+    }
+
+    /**
+     * Vacía la caché por completo.
+     */
+    public synchronized void limpiar() {
+        version++;
+        entradas.clear();
+    }
+
+    /**
+     * Número de entidades cacheadas actualmente.
+     *
+     * @return Tamaño actual de la caché
+     */
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+
+    /**
+     * Número de consultas servidas desde la caché.
+     *
+     * @return Aciertos acumulados
+     */
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    /**
+     * Número de consultas que tuvieron que ir a la base de datos.
+     *
+     * @return Fallos acumulados
+     */
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    /**
+     * Proporción de consultas servidas desde la caché.
+     *
+     * @return Tasa de aciertos entre 0 y 1
+     */
+    public synchronized double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CacheEntidades[tamaño=%d, aciertos=%d, fallos=%d, tasa=%.1f%%]",
+                entradas.size(), aciertos, fallos, getTasaAciertos() * 100);
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Descarta las entradas menos usadas hasta respetar el tamaño máximo.
+     */
+    private void recortar() {
+        var it = entradas.entrySet().iterator();
+        while (entradas.size() > tamanoMaximo && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Entidad cacheada junto con su instante de caducidad.
+     */
+    private record Entrada<V>(V valor, long caduca) {
+    }
+
+}
@@ -0,0 +1,219 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché LRU de sentencias preparadas asociada a una conexión física del pool.
+ * <p>
+ * La clave es el texto SQL (más el modo de claves generadas). Al preparar una
+ * sentencia ya cacheada se reutiliza la existente en lugar de volver a enviarla
+ * al servidor; al cerrarla desde el DAO vuelve a la caché en vez de cerrarse.
+ * Si se supera el tamaño máximo se cierra la sentencia usada hace más tiempo.
+ * </p>
+ * <p>
+ * Los contadores de aciertos y fallos son globales (todas las conexiones) y
+ * permiten comprobar que las consultas frecuentes se mantienen preparadas.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class CacheSentencias {
+
+    // Contadores globales de uso de la caché
+    private static final AtomicLong aciertos = new AtomicLong();
+    private static final AtomicLong fallos = new AtomicLong();
+
+    private final Connection conexion;
+    private final int tamanoMaximo;
+
+    // Sentencias libres en orden de acceso (la primera es la menos usada)
+    private final LinkedHashMap<String, PreparedStatement> libres = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Crea una caché para la conexión dada.
+     *
+     * @param conexion     Conexión física real
+     * @param tamanoMaximo Número máximo de sentencias cacheadas (0 desactiva la caché)
+     */
+    CacheSentencias(Connection conexion, int tamanoMaximo) {
+        this.conexion = conexion;
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    /**
+     * Devuelve una sentencia preparada para el SQL dado, reutilizando una cacheada
+     * si existe.
+     *
+     * @param sql            Texto SQL
+     * @param clavesGeneradas Modo de claves generadas ({@link Statement#NO_GENERATED_KEYS}
+     *                       o {@link Statement#RETURN_GENERATED_KEYS})
+     * @return Sentencia envuelta; al cerrarla vuelve a la caché
+     * @throws SQLException Si no se puede preparar la sentencia
+     */
+    PreparedStatement preparar(String sql, int clavesGeneradas) throws SQLException {
+
+        if (tamanoMaximo <= 0) {
+            fallos.incrementAndGet();
+            return conexion.prepareStatement(sql, clavesGeneradas);
+        }
+
+        String clave = clavesGeneradas + ":" + sql;
+        PreparedStatement real;
+
+        // Se saca de la caché mientras está en uso para no compartirla
+        synchronized (libres) {
+            real = libres.remove(clave);
+        }
+
+        if (real != null && !real.isClosed()) {
+            aciertos.incrementAndGet();
+        } else {
+            fallos.incrementAndGet();
+            real = conexion.prepareStatement(sql, clavesGeneradas);
+        }
+
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new SentenciaCacheada(clave, real));
+    }
+
+    /**
+     * Cierra todas las sentencias cacheadas.
+     */
+    void vaciar() {
+        synchronized (libres) {
+            for (PreparedStatement stmt : libres.values()) {
+                cerrarSilencioso(stmt);
+            }
+            libres.clear();
+        }
+    }
+
+    /**
+     * Número total de sentencias reutilizadas desde la caché.
+     *
+     * @return Aciertos acumulados
+     */
+    public static long getAciertos() {
+        return aciertos.get();
+    }
+
+    /**
+     * Número total de sentencias que hubo que preparar de nuevo.
+     *
+     * @return Fallos acumulados
+     */
+    public static long getFallos() {
+        return fallos.get();
+    }
+
+    /**
+     * Proporción de aciertos sobre el total de sentencias pedidas.
+     *
+     * @return Tasa de aciertos entre 0 y 1
+     */
+    public static double getTasaAciertos() {
+        long a = aciertos.get(), total = a + fallos.get();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Devuelve una sentencia a la caché, cerrando la menos usada si se supera el máximo.
+     */
+    private void devolver(String clave, PreparedStatement real) {
+        try {
+            if (real.isClosed()) {
+                return;
+            }
+            real.clearParameters();
+            real.clearBatch();
+        } catch (SQLException e) {
+            cerrarSilencioso(real);
+            return;
+        }
+
+        synchronized (libres) {
+            // Si ya hay otra igual libre (se usaron dos a la vez), sobra esta
+            if (libres.putIfAbsent(clave, real) != null) {
+                cerrarSilencioso(real);
+                return;
+            }
+            Iterator<Map.Entry<String, PreparedStatement>> it = libres.entrySet().iterator();
+            while (libres.size() > tamanoMaximo && it.hasNext()) {
+                cerrarSilencioso(it.next().getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private static void cerrarSilencioso(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            // Se ignora: la sentencia se descarta igualmente
+        }
+    }
+
+    /**
+     * Manejador del proxy de una sentencia cacheada: {@code close()} la devuelve a
+     * la caché y el resto de métodos se delegan en la sentencia real.
+     */
+    private final class SentenciaCacheada implements InvocationHandler {
+
+        private final String clave;
+        private final PreparedStatement real;
+        private boolean cerrada;
+
+        SentenciaCacheada(String clave, PreparedStatement real) {
+            this.clave = clave;
+            this.real = real;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close" -> {
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver(clave, real);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return cerrada || real.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    if (cerrada) {
+                        throw new SQLException("La sentencia ya fue cerrada");
+                    }
+                }
+            }
+            try {
+                return metodo.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package dao;
+
+import java.util.Set;
+
+/**
+ * Cambios pendientes de guardar en una fila: la entidad con sus valores nuevos
+ * y las columnas de la tabla que han cambiado.
+ * <p>
+ * Se usa para actualizar solo esas columnas en lugar de la fila completa (ver
+ * {@link ProductoDAO#actualizarCampos(java.util.List)} y
+ * {@link ClienteDAO#actualizarCampos(java.util.List)}).
+ * </p>
+ *
+ * @param <T>      Tipo de la entidad
+ * @param entidad  Entidad con los valores a guardar
+ * @param columnas Nombres de las columnas de la tabla que se deben actualizar
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public record CambiosFila<T>(T entidad, Set<String> columnas) {
+
+    /**
+     * Crea los cambios de una fila con una copia inmutable de las columnas.
+     *
+     * @param entidad  Entidad con los valores a guardar
+     * @param columnas Nombres de las columnas que se deben actualizar
+     */
+    public CambiosFila {
+        columnas = Set.copyOf(columnas);
+    }
+
+}
@@ -1,12 +1,17 @@
 package dao;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import config.ConfigLoader;
 import model.ClienteOtaku;
 
 /**
@@ -21,51 +26,206 @@ import model.ClienteOtaku;
 public class ClienteDAO extends DatabaseConnection {
 
     /**
-     * Agrega un nuevo cliente a la base de datos.
+     * Correspondencia entre las columnas de la tabla clientes y los campos de ClienteOtaku.
+     */
+    static final MapeadorFilas<ClienteOtaku> MAPEADOR = MapeadorFilas.para(ClienteOtaku::new)
+            .entero("id", ClienteOtaku::setId)
+            .texto("nombre", ClienteOtaku::setNombre)
+            .texto("email", ClienteOtaku::setEmail)
+            .entero("telefono", ClienteOtaku::setTelefono)
+            .fecha("fecha_registro", ClienteOtaku::setFechaRegistro);
+
+    // Proyección con solo ID y nombre, para selectores y listas de nombres
+    private static final MapeadorFilas<ClienteOtaku> RESUMEN = MAPEADOR.proyeccion("id", "nombre");
+
+    // Proyección con solo ID y email, para filtrar por email en memoria
+    private static final MapeadorFilas<ClienteOtaku> EMAILS = MAPEADOR.proyeccion("id", "email");
+
+    // Inicio de las consultas de clientes con todas sus columnas
+    private static final String SELECT = "SELECT " + MAPEADOR.getColumnas() + " FROM clientes";
+
+    // Columnas que se pueden actualizar por separado con actualizarCampos
+    private static final ActualizacionParcial<ClienteOtaku> EDITABLES =
+            ActualizacionParcial.para("clientes", ClienteOtaku::getId)
+            .columna("nombre", (stmt, i, c) -> stmt.setString(i, c.getNombre()))
+            .columna("email", (stmt, i, c) -> stmt.setString(i, c.getEmail()))
+            .columna("telefono", (stmt, i, c) -> stmt.setInt(i, c.getTelefono()));
+
+    /**
+     * Caché de lectura de clientes por ID compartida por todas las instancias del DAO
+     * (propiedades cacheTamano y cacheTtlMs de config.properties).
+     */
+    private static final CacheEntidades<ClienteOtaku> CACHE = new CacheEntidades<>(
+            ConfigLoader.getIntProperty("cacheTamano", 1000),
+            ConfigLoader.getIntProperty("cacheTtlMs", 60_000),
+            ClienteOtaku::new);
+
+    /**
+     * Agrega un nuevo cliente a la base de datos y le asigna el ID generado.
+     * 
+     * @param cliente Objeto ClienteOtaku que contiene los datos a insertar.
+     * @return true si se insertó el cliente, false en caso contrario.
+     */
+    public boolean agregarCliente(ClienteOtaku cliente) {
+        return registrarCliente(cliente) == ResultadoEscritura.OK;
+    }
+
+    /**
+     * Inserta un nuevo cliente con una única sentencia y le asigna el ID generado
+     * y la fecha de registro.
+     * <p>
+     * No comprueba antes si el email existe: si está repetido la restricción
+     * UNIQUE de la tabla rechaza la inserción y se devuelve
+     * {@link ResultadoEscritura#EMAIL_DUPLICADO}.
+     * </p>
      * 
      * @param cliente Objeto ClienteOtaku que contiene los datos a insertar.
+     * @return Resultado de la inserción.
      */
-    public void agregarCliente(ClienteOtaku cliente) {
+    public ResultadoEscritura registrarCliente(ClienteOtaku cliente) {
 
         String query = "INSERT INTO clientes (nombre, email, telefono) VALUES (?, ?, ?)";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
             // Asignar valores a los parámetros del PreparedStatement
-            stmt.setString(1, cliente.getNombre());
-            stmt.setString(2, cliente.getEmail());
-            stmt.setInt(3, cliente.getTelefono());
+            asignarParametros(stmt, cliente);
+
+            // Ejecutar la inserción y comprobar si se añadió la fila
+            if (stmt.executeUpdate() == 0) {
+                return ResultadoEscritura.ERROR;
+            }
+
+            // Guardar en el objeto el ID autoincremental asignado por la base de datos
+            try (ResultSet claves = stmt.getGeneratedKeys()) {
+                if (claves.next()) {
+                    cliente.setId(claves.getInt(1));
+                }
+            }
 
-            // Ejecutar la inserción y obtener número de filas afectadas
-            int affected = stmt.executeUpdate();
+            // La fecha de registro la pone la base de datos (CURRENT_DATE); se refleja en
+            // el objeto para poder mostrarlo sin volver a leerlo
+            if (cliente.getFechaRegistro() == null) {
+                cliente.setFechaRegistro(LocalDate.now());
+            }
 
-            System.out.println(affected > 0 ? "Se ha añadido el cliente" : "NO se ha realizado");
+            return ResultadoEscritura.OK;
 
         } catch (SQLException e) {
+            if (esClaveDuplicada(e)) {
+                return ResultadoEscritura.EMAIL_DUPLICADO;
+            }
             System.out.println("Error al añadir cliente: " + e.getMessage());
+            return ResultadoEscritura.ERROR;
         }
     }
 
     /**
-     * Obtiene un cliente por su ID.
+     * Agrega varios clientes en lote y asigna a cada uno el ID generado.
+     * <p>
+     * Los clientes se envían en bloques de {@link #TAMANO_LOTE} filas dentro de
+     * una única transacción: si falla algún bloque (por ejemplo, un email repetido)
+     * no se inserta ninguno.
+     * </p>
      * 
+     * @param clientes Lista de clientes a insertar.
+     * @return Número de clientes insertados (0 si hubo error).
+     */
+    public int agregarClientes(List<ClienteOtaku> clientes) {
+
+        String query = "INSERT INTO clientes (nombre, email, telefono) VALUES (?, ?, ?)";
+
+        if (clientes.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conexion = obtenerConexion()) {
+
+            conexion.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conexion.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (int inicio = 0; inicio < clientes.size(); inicio += TAMANO_LOTE) {
+
+                    List<ClienteOtaku> bloque = clientes.subList(inicio,
+                            Math.min(inicio + TAMANO_LOTE, clientes.size()));
+
+                    for (ClienteOtaku cliente : bloque) {
+                        asignarParametros(stmt, cliente);
+                        stmt.addBatch();
+                    }
+
+                    stmt.executeBatch();
+
+                    // Las claves generadas llegan en el mismo orden que las filas del bloque
+                    try (ResultSet claves = stmt.getGeneratedKeys()) {
+                        for (ClienteOtaku cliente : bloque) {
+                            if (claves.next()) {
+                                cliente.setId(claves.getInt(1));
+                            }
+                        }
+                    }
+                }
+
+                conexion.commit();
+                return clientes.size();
+
+            } catch (SQLException e) {
+                conexion.rollback();
+                // Ningún cliente quedó insertado: se eliminan los IDs asignados
+                clientes.forEach(c -> c.setId(0));
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al añadir clientes en lote: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Obtiene un cliente por su ID.
+     * <p>
+     * Se sirve desde la caché de clientes si está disponible; si no, se consulta la
+     * base de datos y se guarda el resultado.
+     * </p>
+     *
      * @param id Identificador único del cliente.
      * @return ClienteOtaku encontrado o null si no existe.
      */
     public ClienteOtaku obtenerClientePorId(int id) {
+        return CACHE.obtener(id, this::leerClientePorId);
+    }
+
+    /**
+     * Obtiene las estadísticas de la caché de clientes (aciertos, fallos y tamaño).
+     *
+     * @return Caché de clientes compartida
+     */
+    public static CacheEntidades<ClienteOtaku> getCache() {
+        return CACHE;
+    }
 
-        String query = "SELECT * FROM clientes WHERE id = ?";
+    /**
+     * Lee un cliente por su ID directamente de la base de datos.
+     * 
+     * @param id Identificador único del cliente.
+     * @return ClienteOtaku encontrado o null si no existe.
+     */
+    private ClienteOtaku leerClientePorId(int id) {
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        String query = SELECT + " WHERE id = ?";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
 
                 // Si hay resultado, construir y devolver el objeto ClienteOtaku
-                if (rs.next()) {
-                    return construirCliente(rs);
-                }
+                return MAPEADOR.leerPrimera(rs);
             }
 
         } catch (SQLException e) {
@@ -85,60 +245,279 @@ public class ClienteDAO extends DatabaseConnection {
 
         List<ClienteOtaku> clientes = new ArrayList<>();
 
-        String query = "SELECT * FROM clientes";
+        String query = SELECT;
 
-        try (Statement stmt = conexion.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
 
             // Recorrer los resultados y agregar a la lista
+            clientes = MAPEADOR.leerTodas(rs);
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener clientes: " + e.getMessage());
+        }
+
+        return clientes;
+    }
+
+    /**
+     * Obtiene solo el ID y el nombre de todos los clientes, ordenados por nombre.
+     * <p>
+     * Pensado para selectores y listas de nombres: el resto de campos queda con su
+     * valor por defecto y no se transfieren desde el servidor.
+     * </p>
+     * 
+     * @return Lista de clientes con ID y nombre.
+     */
+    public List<ClienteOtaku> obtenerNombresClientes() {
+
+        List<ClienteOtaku> clientes = new ArrayList<>();
+
+        String query = "SELECT " + RESUMEN.getColumnas() + " FROM clientes ORDER BY nombre";
+
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            clientes = RESUMEN.leerTodas(rs);
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener nombres de clientes: " + e.getMessage());
+        }
+
+        return clientes;
+    }
+
+    /**
+     * Obtiene el ID y el email de los clientes con ID mayor que el dado, ordenados
+     * por ID.
+     * <p>
+     * Con {@code despuesDeId = 0} devuelve todos; con el mayor ID ya conocido
+     * devuelve solo los clientes añadidos después, para actualizar una copia en
+     * memoria sin volver a leerla entera.
+     * </p>
+     *
+     * @param despuesDeId ID a partir del cual (sin incluirlo) se leen los clientes.
+     * @return Lista de clientes con ID y email.
+     */
+    public List<ClienteOtaku> obtenerEmailsClientesDesde(int despuesDeId) {
+
+        List<ClienteOtaku> clientes = new ArrayList<>();
+
+        String query = "SELECT " + EMAILS.getColumnas() + " FROM clientes WHERE id > ? ORDER BY id";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+
+            stmt.setInt(1, despuesDeId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                clientes = EMAILS.leerTodas(rs);
+
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener emails de clientes: " + e.getMessage());
+        }
+
+        return clientes;
+
+    }
+
+    /**
+     * Obtiene los IDs de todos los clientes en orden ascendente.
+     * <p>
+     * Sirve para mostrar la tabla completa sin cargarla: con los IDs se sabe
+     * cuántas filas hay y con qué ID empieza cada página, y los datos se piden
+     * después por páginas con {@link #obtenerClientesPagina(int, int)}.
+     * </p>
+     *
+     * @return IDs de los clientes (vacío si hubo error).
+     */
+    public int[] obtenerIdsClientes() {
+
+        String query = "SELECT id FROM clientes ORDER BY id";
+
+        int[] ids = new int[1024];
+        int total = 0;
+
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
             while (rs.next()) {
-                clientes.add(construirCliente(rs));
+                if (total == ids.length) {
+                    ids = Arrays.copyOf(ids, total * 2);
+                }
+                ids[total++] = rs.getInt(1);
             }
 
         } catch (SQLException e) {
-            System.out.println("Error al obtener clientes: " + e.getMessage());
+            System.out.println("Error al obtener IDs de clientes: " + e.getMessage());
+            return new int[0];
+        }
+
+        return Arrays.copyOf(ids, total);
+    }
+
+    /**
+     * Obtiene una página de los clientes ordenados por ID (paginación por clave).
+     * <p>
+     * Para recorrer la tabla se pide la primera página con {@code despuesDeId = 0}
+     * y cada página siguiente con el ID del último cliente de la anterior. El coste
+     * de cada página no depende de su posición, a diferencia de OFFSET.
+     * </p>
+     *
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página.
+     * @param limite      Número máximo de clientes de la página.
+     * @return Lista de clientes de la página, vacía si no hay más, o null si
+     *         hubo un error (así se distingue una página vacía de una que no se
+     *         pudo leer).
+     */
+    public List<ClienteOtaku> obtenerClientesPagina(int despuesDeId, int limite) {
+
+        List<ClienteOtaku> clientes = new ArrayList<>();
+
+        String query = SELECT + " WHERE id > ? ORDER BY id LIMIT ?";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+
+            stmt.setInt(1, despuesDeId);
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                clientes = MAPEADOR.leerTodas(rs);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener página de clientes: " + e.getMessage());
+            return null;
         }
 
         return clientes;
     }
 
+    /**
+     * Recorre todos los clientes ordenados por ID pasando cada uno a la acción dada,
+     * sin cargar la tabla completa en memoria.
+     * <p>
+     * El ResultSet se lee en modo streaming (solo avance y fila a fila), por lo que
+     * el consumo de memoria es constante aunque la tabla tenga cientos de miles de
+     * filas. La conexión queda ocupada durante todo el recorrido, así que la acción
+     * no debe hacer trabajo lento.
+     * </p>
+     *
+     * @param accion Acción a ejecutar con cada cliente.
+     * @return Número de clientes recorridos, o -1 si hubo un error.
+     */
+    public int recorrerClientes(Consumer<ClienteOtaku> accion) {
+
+        String query = SELECT + " ORDER BY id";
+
+        int total;
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Con MySQL, Integer.MIN_VALUE activa la lectura fila a fila desde el servidor
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                total = MAPEADOR.recorrer(rs, accion);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al recorrer clientes: " + e.getMessage());
+            return -1;
+        }
+
+        return total;
+    }
+
     /**
      * Actualiza un cliente existente en la base de datos.
-     * Si el email cambió, también actualiza el email.
      * 
      * @param cliente Objeto ClienteOtaku con datos actualizados.
      * @return true si la actualización fue exitosa, false en caso contrario.
      */
     public boolean actualizarCliente(ClienteOtaku cliente) {
+        return modificarCliente(cliente) == ResultadoEscritura.OK;
+    }
 
-        StringBuilder query = new StringBuilder("UPDATE clientes SET nombre = ?, telefono = ?");
-        boolean actualizarEmail = false;
-
-        String emailActual = obtenerEmailActual(cliente.getId());
-
-        if (!cliente.getEmail().equals(emailActual)) {
-            query.append(", email = ?");
-            actualizarEmail = true;
-        }
+    /**
+     * Actualiza nombre, email y teléfono de un cliente con una única sentencia.
+     * <p>
+     * Asignar a un cliente su mismo email no viola la restricción UNIQUE, así que
+     * no hace falta leer antes el email actual. Si el email pertenece a otro
+     * cliente se devuelve {@link ResultadoEscritura#EMAIL_DUPLICADO}, y si no
+     * existe el ID, {@link ResultadoEscritura#NO_ENCONTRADO}.
+     * </p>
+     * 
+     * @param cliente Objeto ClienteOtaku con datos actualizados.
+     * @return Resultado de la actualización.
+     */
+    public ResultadoEscritura modificarCliente(ClienteOtaku cliente) {
 
-        query.append(" WHERE id = ?");
+        String query = "UPDATE clientes SET nombre = ?, telefono = ?, email = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query.toString())) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             stmt.setString(1, cliente.getNombre());
             stmt.setInt(2, cliente.getTelefono());
+            stmt.setString(3, cliente.getEmail());
+            stmt.setInt(4, cliente.getId());
+
+            // El driver cuenta las filas encontradas, aunque no cambie ningún valor
+            return stmt.executeUpdate() > 0 ? ResultadoEscritura.OK : ResultadoEscritura.NO_ENCONTRADO;
 
-            if (actualizarEmail) {
-                stmt.setString(3, cliente.getEmail());
-                stmt.setInt(4, cliente.getId());
-            } else {
-                stmt.setInt(3, cliente.getId());
+        } catch (SQLException e) {
+            if (esClaveDuplicada(e)) {
+                return ResultadoEscritura.EMAIL_DUPLICADO;
             }
+            System.out.println("Error al actualizar cliente: " + e.getMessage());
+            return ResultadoEscritura.ERROR;
+        } finally {
+            // La versión cacheada del cliente deja de ser válida
+            CACHE.invalidar(cliente.getId());
+        }
+    }
 
-            return stmt.executeUpdate() > 0;
+    /**
+     * Actualiza solo las columnas que han cambiado en uno o varios clientes.
+     * <p>
+     * Cada cliente se actualiza con un UPDATE que asigna únicamente sus columnas
+     * cambiadas. Si hay varios, se envían como lotes dentro de una única
+     * transacción: o se guardan todos o ninguno.
+     * </p>
+     * 
+     * @param cambios Clientes con sus valores nuevos y las columnas cambiadas
+     *                (nombre, email y/o telefono).
+     * @return OK si se actualizaron todos; EMAIL_DUPLICADO si algún email pertenece
+     *         a otro cliente; NO_ENCONTRADO si algún cliente ya no existe; ERROR en
+     *         otro caso.
+     */
+    public ResultadoEscritura actualizarCampos(List<CambiosFila<ClienteOtaku>> cambios) {
+
+        try (Connection conexion = obtenerConexion()) {
+
+            return EDITABLES.ejecutar(conexion, cambios) ? ResultadoEscritura.OK : ResultadoEscritura.NO_ENCONTRADO;
 
         } catch (SQLException e) {
-            System.out.println("Error al actualizar cliente: " + e.getMessage());
-            return false;
+            if (esClaveDuplicada(e)) {
+                return ResultadoEscritura.EMAIL_DUPLICADO;
+            }
+            System.out.println("Error al actualizar clientes: " + e.getMessage());
+            return ResultadoEscritura.ERROR;
+        } finally {
+            // Las versiones cacheadas de los clientes dejan de ser válidas
+            cambios.forEach(c -> CACHE.invalidar(c.entidad().getId()));
         }
     }
 
@@ -152,7 +531,8 @@ public class ClienteDAO extends DatabaseConnection {
 
         String query = "DELETE FROM clientes WHERE id = ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             stmt.setInt(1, id);
 
@@ -162,6 +542,9 @@ public class ClienteDAO extends DatabaseConnection {
         } catch (SQLException e) {
             System.out.println("Error al eliminar cliente: " + e.getMessage());
             return false;
+        } finally {
+            // La versión cacheada del cliente deja de ser válida
+            CACHE.invalidar(id);
         }
     }
 
@@ -175,9 +558,10 @@ public class ClienteDAO extends DatabaseConnection {
 
         List<ClienteOtaku> cliente = new ArrayList<>();
 
-        String query = "SELECT * FROM clientes WHERE email LIKE ?";
+        String query = SELECT + " WHERE email LIKE ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             // Usar comodines para búsqueda parcial
             stmt.setString(1, "%" + email + "%");
@@ -185,9 +569,7 @@ public class ClienteDAO extends DatabaseConnection {
             try (ResultSet rs = stmt.executeQuery()) {
 
                 // Añadir cada cliente encontrado a la lista
-                while (rs.next()) {
-                    cliente.add(construirCliente(rs));
-                }
+                cliente = MAPEADOR.leerTodas(rs);
             }
 
         } catch (SQLException e) {
@@ -200,23 +582,17 @@ public class ClienteDAO extends DatabaseConnection {
     // ---------------- MÉTODOS AUXILIARES ----------------
 
     /**
-     * Construye un objeto ClienteOtaku a partir de un ResultSet.
+     * Asigna los datos de un cliente a los parámetros de un INSERT.
      * 
-     * @param rs ResultSet con los datos del cliente.
-     * @return Objeto ClienteOtaku construido.
-     * @throws SQLException En caso de error al acceder al ResultSet.
+     * @param stmt    Sentencia INSERT con los parámetros nombre, email y teléfono.
+     * @param cliente Cliente con los datos a insertar.
+     * @throws SQLException En caso de error al asignar los parámetros.
      */
-    private ClienteOtaku construirCliente(ResultSet rs) throws SQLException {
-
-        ClienteOtaku c = new ClienteOtaku();
+    private void asignarParametros(PreparedStatement stmt, ClienteOtaku cliente) throws SQLException {
 
-        c.setId(rs.getInt("id"));
-        c.setNombre(rs.getString("nombre"));
-        c.setEmail(rs.getString("email"));
-        c.setTelefono(rs.getInt("telefono"));
-        c.setFechaRegistro(rs.getDate("fecha_registro").toLocalDate());
-
-        return c;
+        stmt.setString(1, cliente.getNombre());
+        stmt.setString(2, cliente.getEmail());
+        stmt.setInt(3, cliente.getTelefono());
     }
 
     /**
@@ -229,7 +605,8 @@ public class ClienteDAO extends DatabaseConnection {
 
         String query = "SELECT 1 FROM clientes WHERE email = ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             stmt.setString(1, email);
 
@@ -245,33 +622,4 @@ public class ClienteDAO extends DatabaseConnection {
         }
     }
 
-    /**
-     * Obtiene el email actual de un cliente dado su ID.
-     * 
-     * @param clienteId ID del cliente.
-     * @return Email actual del cliente o null si no se encuentra o hay error.
-     */
-    private String obtenerEmailActual(int clienteId) {
-
-        String email = null;
-
-        String query = "SELECT email FROM clientes WHERE id = ?";
-
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
-
-            stmt.setInt(1, clienteId);
-
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                email = rs.getString("email");
-            }
-
-        } catch (SQLException e) {
-            System.out.println("Error al obtener email actual: " + e.getMessage());
-        }
-
-        return email;
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package dao;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import model.ClienteOtaku;
+import util.EjecutorAsincrono;
+
+/**
+ * Versión asíncrona de {@link ClienteDAO}.
+ * <p>
+ * Cada método lanza la operación equivalente del DAO en un hilo virtual del
+ * {@link EjecutorAsincrono} compartido y devuelve inmediatamente un
+ * {@link CompletableFuture} con su resultado.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class ClienteDAOAsincrono {
+
+    private final ClienteDAO dao;
+
+    private final EjecutorAsincrono ejecutor = EjecutorAsincrono.getInstancia();
+
+    /**
+     * Crea la fachada asíncrona sobre un DAO nuevo.
+     */
+    public ClienteDAOAsincrono() {
+        this(new ClienteDAO());
+    }
+
+    /**
+     * Crea la fachada asíncrona sobre un DAO existente.
+     *
+     * @param dao DAO que realiza las operaciones
+     */
+    public ClienteDAOAsincrono(ClienteDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * @param cliente Cliente a insertar
+     * @return Futuro con el resultado de la inserción
+     * @see ClienteDAO#registrarCliente(ClienteOtaku)
+     */
+    public CompletableFuture<ResultadoEscritura> registrarCliente(ClienteOtaku cliente) {
+        return ejecutor.ejecutar(() -> dao.registrarCliente(cliente));
+    }
+
+    /**
+     * @param clientes Clientes a insertar
+     * @return Futuro con el número de clientes insertados
+     * @see ClienteDAO#agregarClientes(List)
+     */
+    public CompletableFuture<Integer> agregarClientes(List<ClienteOtaku> clientes) {
+        return ejecutor.ejecutar(() -> dao.agregarClientes(clientes));
+    }
+
+    /**
+     * @param id Identificador del cliente
+     * @return Futuro con el cliente o null si no existe
+     * @see ClienteDAO#obtenerClientePorId(int)
+     */
+    public CompletableFuture<ClienteOtaku> obtenerClientePorId(int id) {
+        return ejecutor.ejecutar(() -> dao.obtenerClientePorId(id));
+    }
+
+    /**
+     * @return Futuro con la lista de todos los clientes
+     * @see ClienteDAO#obtenerTodosLosClientes()
+     */
+    public CompletableFuture<List<ClienteOtaku>> obtenerTodosLosClientes() {
+        return ejecutor.ejecutar(dao::obtenerTodosLosClientes);
+    }
+
+    /**
+     * @param despuesDeId Último ID de la página anterior (0 para la primera)
+     * @param limite      Número máximo de clientes
+     * @return Futuro con la página de clientes
+     * @see ClienteDAO#obtenerClientesPagina(int, int)
+     */
+    public CompletableFuture<List<ClienteOtaku>> obtenerClientesPagina(int despuesDeId, int limite) {
+        return ejecutor.ejecutar(() -> dao.obtenerClientesPagina(despuesDeId, limite));
+    }
+
+    /**
+     * La acción se ejecuta en el hilo virtual, no en el del llamador.
+     *
+     * @param accion Acción que se aplica a cada cliente
+     * @return Futuro con el número de clientes recorridos (-1 si hubo un error)
+     * @see ClienteDAO#recorrerClientes(Consumer)
+     */
+    public CompletableFuture<Integer> recorrerClientes(Consumer<ClienteOtaku> accion) {
+        return ejecutor.ejecutar(() -> dao.recorrerClientes(accion));
+    }
+
+    /**
+     * @param cliente Cliente con los datos actualizados
+     * @return Futuro con el resultado de la actualización
+     * @see ClienteDAO#modificarCliente(ClienteOtaku)
+     */
+    public CompletableFuture<ResultadoEscritura> modificarCliente(ClienteOtaku cliente) {
+        return ejecutor.ejecutar(() -> dao.modificarCliente(cliente));
+    }
+
+    /**
+     * @param id Identificador del cliente
+     * @return Futuro con true si se eliminó el cliente
+     * @see ClienteDAO#eliminarCliente(int)
+     */
+    public CompletableFuture<Boolean> eliminarCliente(int id) {
+        return ejecutor.ejecutar(() -> dao.eliminarCliente(id));
+    }
+
+    /**
+     * @param email Texto a buscar en el email
+     * @return Futuro con los clientes encontrados
+     * @see ClienteDAO#buscarPorEmail(String)
+     */
+    public CompletableFuture<List<ClienteOtaku>> buscarPorEmail(String email) {
+        return ejecutor.ejecutar(() -> dao.buscarPorEmail(email));
+    }
+
+    /**
+     * @param email Email a comprobar
+     * @return Futuro con true si el email ya está registrado
+     * @see ClienteDAO#verificarEmail(String)
+     */
+    public CompletableFuture<Boolean> verificarEmail(String email) {
+        return ejecutor.ejecutar(() -> dao.verificarEmail(email));
+    }
+
+}
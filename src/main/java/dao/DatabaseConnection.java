@@ -1,46 +1,56 @@
 package dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 import config.ConfigLoader;
 
 /**
+ * Clase base de los DAO que da acceso a las conexiones del pool compartido.
+ * <p>
+ * Cada operación debe pedir su propia conexión con {@link #obtenerConexion()}
+ * y cerrarla al terminar (con try-with-resources) para devolverla al pool.
+ * </p>
+ *
  * @author Esteban Martín González
- * @version 1.0
+ * @version 1.1
  * @since 2025
  */
 public class DatabaseConnection {
 
     /**
-     * Objeto Connection protegido para que las clases hijas puedan usarlo.
+     * Número de filas que se envían al servidor en cada bloque de las inserciones
+     * en lote (propiedad loteInsercion de config.properties, por defecto 1000).
      */
-    protected Connection conexion;
+    protected static final int TAMANO_LOTE = Math.max(1, ConfigLoader.getIntProperty("loteInsercion", 1000));
 
     /**
-     * Constructor que establece la conexión con la base de datos.
+     * Obtiene una conexión del pool compartido para una operación.
      * <p>
-     * Carga el driver JDBC de MySQL y obtiene la conexión a la base de datos
-     * utilizando las propiedades definidas en el archivo de configuración.
+     * El pool se crea la primera vez que se necesita, cargando el driver JDBC de
+     * MySQL y los datos de conexión definidos en el archivo de configuración.
      * </p>
+     *
+     * @return Conexión prestada; al cerrarla vuelve al pool
+     * @throws SQLException Si no se puede obtener una conexión
      */
-    public DatabaseConnection() {
-        try {
-            // Cargar el driver JDBC de MySQL (asegura que esté disponible)
-            Class.forName("com.mysql.cj.jdbc.Driver");
-
-            // Obtener la conexión a la base de datos usando datos de config.properties
-            conexion = DriverManager.getConnection(
-                    ConfigLoader.getProperty("dbUrl"),      // URL de la base de datos
-                    ConfigLoader.getProperty("dbUser"),     // Usuario
-                    ConfigLoader.getProperty("dbPassword")  // Contraseña
-            );
+    protected Connection obtenerConexion() throws SQLException {
+        return PoolConexiones.getInstancia().obtener();
+    }
 
-        } catch (ClassNotFoundException | SQLException ex) {
-            // Capturar y mostrar errores al cargar el driver o conectar con la BD
-            System.out.println("Error al conectar: " + ex);
+    /**
+     * Indica si una excepción se debe a una clave duplicada (violación de una
+     * restricción PRIMARY KEY o UNIQUE, error 1062 de MySQL).
+     *
+     * @param e Excepción lanzada por el driver
+     * @return true si la causa es un valor duplicado
+     */
+    protected static boolean esClaveDuplicada(SQLException e) {
+        // En los lotes el error puede llegar como causa de una BatchUpdateException
+        if (e.getErrorCode() != 1062 && e.getCause() instanceof SQLException causa) {
+            return causa.getErrorCode() == 1062;
         }
+        return e.getErrorCode() == 1062;
     }
 
-}
\ No newline at end of file
+}
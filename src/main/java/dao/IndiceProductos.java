@@ -0,0 +1,319 @@
+package dao;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+import model.ProductoOtaku;
+
+/**
+ * Índice invertido de trigramas en memoria sobre el nombre de los productos.
+ * <p>
+ * Permite buscar productos por nombre sin consultar la base de datos: admite
+ * búsquedas por subcadena y búsquedas aproximadas que toleran tildes,
+ * mayúsculas y errores de escritura (por ejemplo "chainsa man"), devolviendo
+ * los resultados ordenados por relevancia.
+ * </p>
+ * <p>
+ * El índice empieza frío y se carga en segundo plano la primera vez que se
+ * pide (ver {@link #asegurarCarga(ToIntFunction)}). Mientras no está listo el DAO
+ * debe seguir buscando con SQL. Las altas, modificaciones y bajas hechas por
+ * el DAO se aplican al índice para mantenerlo sincronizado, y cada
+ * {@code indiceRecargaMs} se reconstruye para recoger cambios hechos desde
+ * fuera de la aplicación.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class IndiceProductos {
+
+    // Proporción mínima de trigramas de la búsqueda que deben aparecer en el nombre
+    private static final double UMBRAL_APROXIMADO = 0.6;
+
+    // Expresiones usadas al normalizar (compiladas una sola vez)
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final long recargaMs;
+
+    // Estado del índice: listo para buscar y/o con una carga en curso
+    private boolean listo;
+    private boolean cargando;
+    private long cargadoEn;
+
+    // Datos del índice (solo se accede con el bloqueo del objeto)
+    private Map<Integer, ProductoOtaku> productos = new HashMap<>();
+    private Map<Integer, String> nombres = new HashMap<>();
+    private Map<String, Set<Integer>> trigramas = new HashMap<>();
+
+    // Cambios hechos mientras se cargaba, para aplicarlos sobre la carga terminada
+    private final List<Consumer<IndiceProductos>> pendientes = new ArrayList<>();
+
+    /**
+     * Crea un índice vacío.
+     *
+     * @param recargaMs Cada cuánto se reconstruye el índice desde la base de datos
+     */
+    IndiceProductos(long recargaMs) {
+        this.recargaMs = recargaMs;
+    }
+
+    /**
+     * Indica si el índice está cargado y puede responder búsquedas.
+     *
+     * @return true si el índice está listo
+     */
+    public synchronized boolean estaListo() {
+        return listo;
+    }
+
+    /**
+     * Número de productos indexados.
+     *
+     * @return Tamaño del índice
+     */
+    public synchronized int getTamano() {
+        return productos.size();
+    }
+
+    /**
+     * Lanza la carga del índice en un hilo en segundo plano si está frío o si ha
+     * pasado el tiempo de recarga. Mientras se recarga se siguen respondiendo
+     * búsquedas con los datos anteriores.
+     *
+     * @param cargador Función que pasa todos los productos de la base de datos a la
+     *                 acción recibida y devuelve cuántos recorrió (negativo si falló)
+     */
+    void asegurarCarga(ToIntFunction<Consumer<ProductoOtaku>> cargador) {
+
+        synchronized (this) {
+            boolean caducado = System.currentTimeMillis() - cargadoEn > recargaMs;
+            if (cargando || (listo && !caducado)) {
+                return;
+            }
+            // Durante una recarga se sigue sirviendo el índice anterior
+            cargando = true;
+            pendientes.clear();
+        }
+
+        Thread hilo = new Thread(() -> cargar(cargador), "indice-productos");
+        hilo.setDaemon(true);
+        hilo.setPriority(Thread.MIN_PRIORITY);
+        hilo.start();
+    }
+
+    /**
+     * Añade o reemplaza un producto en el índice.
+     *
+     * @param producto Producto insertado o modificado
+     */
+    synchronized void guardar(ProductoOtaku producto) {
+        ProductoOtaku copia = new ProductoOtaku(producto);
+        if (cargando) {
+            pendientes.add(indice -> indice.indexar(copia));
+        }
+        if (listo) {
+            indexar(copia);
+        }
+    }
+
+    /**
+     * Elimina un producto del índice.
+     *
+     * @param id Identificador del producto eliminado
+     */
+    synchronized void eliminar(int id) {
+        if (cargando) {
+            pendientes.add(indice -> indice.desindexar(id));
+        }
+        if (listo) {
+            desindexar(id);
+        }
+    }
+
+    /**
+     * Busca productos cuyo nombre contenga el texto o se le parezca.
+     * <p>
+     * Primero aparecen las coincidencias exactas de subcadena (las de nombre más
+     * parecido a la búsqueda primero) y después las aproximadas, ordenadas por
+     * la proporción de trigramas de la búsqueda presentes en el nombre.
+     * </p>
+     *
+     * @param texto Texto a buscar
+     * @return Copias de los productos encontrados ordenados por relevancia
+     */
+    public synchronized List<ProductoOtaku> buscar(String texto) {
+
+        String consulta = normalizar(texto);
+        Map<Integer, Double> puntuaciones = new HashMap<>();
+
+        if (consulta.isEmpty()) {
+            // Igual que LIKE '%%': todos los productos
+            productos.keySet().forEach(id -> puntuaciones.put(id, 0.0));
+        } else if (consulta.length() < 3) {
+            // Demasiado corta para tener trigramas interiores: recorrido por subcadena
+            nombres.forEach((id, nombre) -> {
+                if (nombre.contains(consulta)) {
+                    puntuaciones.put(id, 2.0 + (double) consulta.length() / nombre.length());
+                }
+            });
+        } else {
+            List<String> trigramasConsulta = new ArrayList<>(trigramas(consulta));
+
+            // Trigramas de la búsqueda de menos a más frecuentes en el índice
+            trigramasConsulta.sort(Comparator.comparingInt(t -> trigramas.getOrDefault(t, Set.of()).size()));
+
+            // Un producto que comparta el mínimo de trigramas exigido tiene que aparecer
+            // en alguno de los más raros; y uno que contenga la búsqueda como subcadena,
+            // en el trigrama interior más raro. Solo se evalúan esos candidatos.
+            int minimo = (int) Math.ceil(UMBRAL_APROXIMADO * trigramasConsulta.size());
+            Set<Integer> candidatos = new HashSet<>();
+            for (String trigrama : trigramasConsulta.subList(0, trigramasConsulta.size() - minimo + 1)) {
+                candidatos.addAll(trigramas.getOrDefault(trigrama, Set.of()));
+            }
+            Optional<String> interior = trigramasConsulta.stream().filter(t -> !t.contains(" ")).findFirst();
+            if (interior.isPresent()) {
+                candidatos.addAll(trigramas.getOrDefault(interior.get(), Set.of()));
+            } else {
+                // Solo palabras de una o dos letras (por ejemplo "x y"): sus trigramas llevan
+                // espacios y no acotan las subcadenas dentro de otras palabras, así que se recorre todo
+                nombres.forEach((id, nombre) -> {
+                    if (nombre.contains(consulta)) {
+                        candidatos.add(id);
+                    }
+                });
+            }
+
+            // Contar cuántos trigramas de la búsqueda comparte cada candidato
+            Map<Integer, int[]> comunes = new HashMap<>();
+            for (int id : candidatos) {
+                int[] contador = comunes.computeIfAbsent(id, k -> new int[1]);
+                for (String trigrama : trigramasConsulta) {
+                    if (trigramas.getOrDefault(trigrama, Set.of()).contains(id)) {
+                        contador[0]++;
+                    }
+                }
+            }
+
+            comunes.forEach((id, contador) -> {
+                String nombre = nombres.get(id);
+                double cobertura = (double) contador[0] / trigramasConsulta.size();
+                // Penaliza ligeramente los nombres mucho más largos que la búsqueda
+                double parecido = (double) consulta.length() / Math.max(consulta.length(), nombre.length());
+                if (nombre.contains(consulta)) {
+                    puntuaciones.put(id, 2.0 + parecido);
+                } else if (cobertura >= UMBRAL_APROXIMADO) {
+                    puntuaciones.put(id, cobertura + parecido * 0.1);
+                }
+            });
+        }
+
+        List<ProductoOtaku> resultado = new ArrayList<>(puntuaciones.size());
+        puntuaciones.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> resultado.add(new ProductoOtaku(productos.get(e.getKey()))));
+        return resultado;
+    }
+
+    /**
+     * Normaliza un texto para indexarlo o buscarlo: minúsculas, sin tildes y
+     * sin signos de puntuación, con un único espacio entre palabras.
+     *
+     * @param texto Texto original
+     * @return Texto normalizado
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Construye un índice nuevo con todos los productos y lo sustituye por el
+     * actual, aplicando después los cambios ocurridos durante la carga.
+     */
+    private void cargar(ToIntFunction<Consumer<ProductoOtaku>> cargador) {
+        IndiceProductos nuevo = new IndiceProductos(recargaMs);
+        int leidos = cargador.applyAsInt(nuevo::indexar);
+
+        synchronized (this) {
+            cargando = false;
+            if (leidos < 0) {
+                // Carga fallida: se mantiene el estado anterior y se reintentará en la próxima búsqueda
+                pendientes.clear();
+                return;
+            }
+            pendientes.forEach(cambio -> cambio.accept(nuevo));
+            pendientes.clear();
+            productos = nuevo.productos;
+            nombres = nuevo.nombres;
+            trigramas = nuevo.trigramas;
+            listo = true;
+            cargadoEn = System.currentTimeMillis();
+        }
+    }
+
+    private void indexar(ProductoOtaku producto) {
+        desindexar(producto.getId());
+        String nombre = normalizar(producto.getNombre());
+        productos.put(producto.getId(), producto);
+        nombres.put(producto.getId(), nombre);
+        for (String trigrama : trigramas(nombre)) {
+            trigramas.computeIfAbsent(trigrama, k -> new HashSet<>()).add(producto.getId());
+        }
+    }
+
+    private void desindexar(int id) {
+        String anterior = nombres.remove(id);
+        productos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String trigrama : trigramas(anterior)) {
+            Set<Integer> ids = trigramas.get(trigrama);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    trigramas.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene los trigramas de un texto normalizado. Cada palabra se rellena con
+     * dos espacios al principio y uno al final para dar peso a los inicios de
+     * palabra.
+     */
+    private static Set<String> trigramas(String texto) {
+        Set<String> resultado = new LinkedHashSet<>();
+        for (String palabra : texto.split(" ")) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            String relleno = "  " + palabra + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                resultado.add(relleno.substring(i, i + 3));
+            }
+        }
+        return resultado;
+    }
+
+}
@@ -0,0 +1,245 @@
+package dao;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Convierte las filas de un ResultSet en objetos del modelo.
+ * <p>
+ * Se define una vez por entidad indicando, para cada columna, cómo se asigna al
+ * objeto. Al leer una consulta, la posición de cada columna en el ResultSet se
+ * resuelve una sola vez y las filas se leen por índice, sin buscar cada columna
+ * por su nombre en cada fila.
+ * </p>
+ * <p>
+ * {@link #getColumnas()} devuelve la lista de columnas para escribir la consulta
+ * en lugar de {@code SELECT *}, y {@link #proyeccion(String...)} crea un mapeador
+ * con solo algunas columnas (por ejemplo ID y nombre para un selector), de modo
+ * que el servidor no envía los datos que no se van a mostrar.
+ * </p>
+ * <p>
+ * Los mapeadores son inmutables: cada método de definición devuelve uno nuevo,
+ * así que se pueden guardar en constantes y compartir entre hilos.
+ * </p>
+ *
+ * @param <T> Tipo de objeto que se construye con cada fila
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class MapeadorFilas<T> {
+
+    private final Supplier<T> crear;
+    private final List<Columna<T>> columnas;
+
+    // Columnas separadas por comas, listas para usar en un SELECT
+    private final String listaColumnas;
+
+    private MapeadorFilas(Supplier<T> crear, List<Columna<T>> columnas) {
+        this.crear = crear;
+        this.columnas = List.copyOf(columnas);
+        this.listaColumnas = columnas.stream().map(Columna::nombre).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Crea un mapeador sin columnas para el tipo dado.
+     *
+     * @param <T>   Tipo de objeto a construir
+     * @param crear Constructor de un objeto vacío
+     * @return Mapeador al que se le añaden las columnas
+     */
+    public static <T> MapeadorFilas<T> para(Supplier<T> crear) {
+        return new MapeadorFilas<>(crear, List.of());
+    }
+
+    /**
+     * Añade una columna de tipo entero.
+     *
+     * @param nombre Nombre de la columna
+     * @param asignar Setter del objeto
+     * @return Nuevo mapeador con la columna añadida
+     */
+    public MapeadorFilas<T> entero(String nombre, ObjIntConsumer<T> asignar) {
+        return con(nombre, (rs, i, destino) -> asignar.accept(destino, rs.getInt(i)));
+    }
+
+    /**
+     * Añade una columna de tipo decimal.
+     *
+     * @param nombre Nombre de la columna
+     * @param asignar Setter del objeto
+     * @return Nuevo mapeador con la columna añadida
+     */
+    public MapeadorFilas<T> decimal(String nombre, ObjDoubleConsumer<T> asignar) {
+        return con(nombre, (rs, i, destino) -> asignar.accept(destino, rs.getDouble(i)));
+    }
+
+    /**
+     * Añade una columna de texto.
+     *
+     * @param nombre Nombre de la columna
+     * @param asignar Setter del objeto
+     * @return Nuevo mapeador con la columna añadida
+     */
+    public MapeadorFilas<T> texto(String nombre, BiConsumer<T, String> asignar) {
+        return con(nombre, (rs, i, destino) -> asignar.accept(destino, rs.getString(i)));
+    }
+
+    /**
+     * Añade una columna de tipo fecha. Un valor NULL se asigna como null.
+     *
+     * @param nombre Nombre de la columna
+     * @param asignar Setter del objeto
+     * @return Nuevo mapeador con la columna añadida
+     */
+    public MapeadorFilas<T> fecha(String nombre, BiConsumer<T, LocalDate> asignar) {
+        return con(nombre, (rs, i, destino) -> {
+            Date fecha = rs.getDate(i);
+            asignar.accept(destino, fecha != null ? fecha.toLocalDate() : null);
+        });
+    }
+
+    /**
+     * Crea un mapeador que solo lee algunas de las columnas de este. Los campos
+     * del resto de columnas quedan con su valor por defecto.
+     *
+     * @param nombres Columnas a conservar, en el orden en que se seleccionarán
+     * @return Nuevo mapeador con las columnas indicadas
+     * @throws IllegalArgumentException Si alguna columna no está definida en este mapeador
+     */
+    public MapeadorFilas<T> proyeccion(String... nombres) {
+        List<Columna<T>> seleccion = new ArrayList<>(nombres.length);
+        for (String nombre : nombres) {
+            seleccion.add(columnas.stream()
+                    .filter(c -> c.nombre().equalsIgnoreCase(nombre))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Columna desconocida: " + nombre)));
+        }
+        return new MapeadorFilas<>(crear, seleccion);
+    }
+
+    /**
+     * Columnas del mapeador separadas por comas, para usar en el SELECT.
+     *
+     * @return Lista de columnas (por ejemplo "id, nombre")
+     */
+    public String getColumnas() {
+        return listaColumnas;
+    }
+
+    /**
+     * Lee la fila actual del ResultSet. Para varias filas es preferible
+     * {@link #leerTodas(ResultSet)} o {@link #recorrer(ResultSet, Consumer)},
+     * que resuelven las columnas una sola vez.
+     *
+     * @param rs ResultSet posicionado en una fila
+     * @return Objeto construido con la fila
+     * @throws SQLException Si falta alguna columna o no se puede leer
+     */
+    public T leer(ResultSet rs) throws SQLException {
+        return leer(rs, resolver(rs));
+    }
+
+    /**
+     * Lee la primera fila del ResultSet.
+     *
+     * @param rs ResultSet sin leer
+     * @return Objeto construido con la primera fila, o null si no hay filas
+     * @throws SQLException Si falta alguna columna o no se puede leer
+     */
+    public T leerPrimera(ResultSet rs) throws SQLException {
+        return rs.next() ? leer(rs) : null;
+    }
+
+    /**
+     * Lee todas las filas del ResultSet.
+     *
+     * @param rs ResultSet sin leer
+     * @return Lista con un objeto por fila
+     * @throws SQLException Si falta alguna columna o no se puede leer
+     */
+    public List<T> leerTodas(ResultSet rs) throws SQLException {
+        List<T> resultado = new ArrayList<>();
+        recorrer(rs, resultado::add);
+        return resultado;
+    }
+
+    /**
+     * Pasa cada fila del ResultSet a la acción dada sin acumularlas en memoria.
+     *
+     * @param rs     ResultSet sin leer
+     * @param accion Acción que recibe el objeto de cada fila
+     * @return Número de filas leídas
+     * @throws SQLException Si falta alguna columna o no se puede leer
+     */
+    public int recorrer(ResultSet rs, Consumer<T> accion) throws SQLException {
+        int[] indices = null;
+        int total = 0;
+        while (rs.next()) {
+            if (indices == null) {
+                indices = resolver(rs);
+            }
+            accion.accept(leer(rs, indices));
+            total++;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "MapeadorFilas[" + listaColumnas + "]";
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    private MapeadorFilas<T> con(String nombre, LectorColumna<T> lector) {
+        List<Columna<T>> nuevas = new ArrayList<>(columnas);
+        nuevas.add(new Columna<>(nombre, lector));
+        return new MapeadorFilas<>(crear, nuevas);
+    }
+
+    /**
+     * Obtiene la posición en el ResultSet de cada columna del mapeador.
+     */
+    private int[] resolver(ResultSet rs) throws SQLException {
+        int[] indices = new int[columnas.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = rs.findColumn(columnas.get(i).nombre());
+        }
+        return indices;
+    }
+
+    private T leer(ResultSet rs, int[] indices) throws SQLException {
+        T destino = crear.get();
+        for (int i = 0; i < indices.length; i++) {
+            columnas.get(i).lector().leer(rs, indices[i], destino);
+        }
+        return destino;
+    }
+
+    /**
+     * Lee el valor de una columna por su índice y lo asigna al objeto.
+     */
+    @FunctionalInterface
+    private interface LectorColumna<T> {
+        void leer(ResultSet rs, int indice, T destino) throws SQLException;
+    }
+
+    /**
+     * Columna del mapeador: nombre en la tabla y forma de asignarla.
+     */
+    private record Columna<T>(String nombre, LectorColumna<T> lector) {
+    }
+
+}
@@ -0,0 +1,431 @@
+package dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import config.ConfigLoader;
+
+/**
+ * Pool de conexiones JDBC compartido por todos los DAO de la aplicación.
+ * <p>
+ * Mantiene un número acotado de conexiones físicas con MySQL (mínimo y máximo
+ * configurables), valida cada conexión antes de prestarla, cierra las que llevan
+ * demasiado tiempo inactivas y, si se activa, avisa por consola de las
+ * conexiones que no se devuelven a tiempo (posibles fugas). La detección de
+ * fugas guarda la pila de llamadas de cada préstamo para indicar dónde se
+ * obtuvo la conexión, lo que encarece cada consulta; por eso está desactivada
+ * por defecto.
+ * </p>
+ * <p>
+ * Las conexiones entregadas son envoltorios: llamar a {@code close()} las
+ * devuelve al pool en lugar de cerrar la sesión con el servidor.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>poolMin: conexiones que se mantienen abiertas (por defecto 2)</li>
+ * <li>poolMax: máximo de conexiones simultáneas (por defecto 10)</li>
+ * <li>poolEsperaMs: espera máxima para obtener una conexión (por defecto 5000)</li>
+ * <li>poolInactividadMs: tiempo inactiva antes de cerrarse (por defecto 300000)</li>
+ * <li>poolFugaMs: tiempo prestada antes de avisar de una fuga (por defecto 0, sin
+ * detección de fugas)</li>
+ * <li>cacheSentencias: sentencias preparadas cacheadas por conexión (por defecto 64)</li>
+ * <li>sentenciasServidor: usar sentencias preparadas en el servidor (por defecto true)</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class PoolConexiones {
+
+    // Conexiones usadas hace menos de este tiempo no se vuelven a validar
+    private static final long MARGEN_VALIDACION_MS = 500;
+
+    // Segundos de espera máxima para la validación de una conexión
+    private static final int TIMEOUT_VALIDACION_S = 2;
+
+    // Instancia única del pool (se crea al pedir la primera conexión)
+    private static volatile PoolConexiones instancia;
+
+    private final String url;
+
+    // Usuario, contraseña y opciones del driver para abrir conexiones
+    private final Properties propiedades = new Properties();
+
+    private final int minimo;
+    private final int maximo;
+    private final long esperaMs;
+    private final long inactividadMs;
+    private final long fugaMs;
+    private final int tamanoCacheSentencias;
+
+    // Conexiones libres; se usa como pila para reutilizar primero la más reciente
+    private final LinkedBlockingDeque<ConexionFisica> libres = new LinkedBlockingDeque<>();
+
+    // Conexiones actualmente prestadas a algún DAO
+    private final Set<ConexionPrestada> prestadas = ConcurrentHashMap.newKeySet();
+
+    // Limita el número de conexiones en uso al máximo configurado
+    private final Semaphore permisos;
+
+    // Número total de conexiones físicas abiertas (libres + prestadas)
+    private final AtomicInteger abiertas = new AtomicInteger();
+
+    // Tarea periódica de desalojo de inactivas y detección de fugas
+    private final ScheduledExecutorService mantenimiento;
+
+    /**
+     * Crea el pool leyendo la configuración de config.properties.
+     */
+    private PoolConexiones() {
+        try {
+            // Cargar el driver JDBC de MySQL (asegura que esté disponible)
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException ex) {
+            System.out.println("Error al cargar el driver JDBC: " + ex);
+        }
+
+        url = ConfigLoader.getProperty("dbUrl");
+        propiedades.setProperty("user", ConfigLoader.getProperty("dbUser", ""));
+        propiedades.setProperty("password", ConfigLoader.getProperty("dbPassword", ""));
+
+        // Preparar las sentencias en el servidor para que no se reanalicen en cada ejecución
+        propiedades.setProperty("useServerPrepStmts", ConfigLoader.getProperty("sentenciasServidor", "true"));
+
+        // Reescribir los lotes de INSERT como un único INSERT multifila
+        propiedades.setProperty("rewriteBatchedStatements", "true");
+
+        maximo = Math.max(1, ConfigLoader.getIntProperty("poolMax", 10));
+        minimo = Math.min(maximo, Math.max(0, ConfigLoader.getIntProperty("poolMin", 2)));
+        esperaMs = ConfigLoader.getIntProperty("poolEsperaMs", 5000);
+        inactividadMs = ConfigLoader.getIntProperty("poolInactividadMs", 300_000);
+        fugaMs = ConfigLoader.getIntProperty("poolFugaMs", 0);
+        tamanoCacheSentencias = ConfigLoader.getIntProperty("cacheSentencias", 64);
+
+        permisos = new Semaphore(maximo, true);
+
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "pool-conexiones-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 30, 30, TimeUnit.SECONDS);
+
+        // Abrir las conexiones mínimas en segundo plano para no retrasar el arranque
+        mantenimiento.execute(this::rellenarMinimo);
+    }
+
+    /**
+     * Devuelve la instancia única del pool, creándola si aún no existe.
+     *
+     * @return Pool de conexiones compartido
+     */
+    public static PoolConexiones getInstancia() {
+        PoolConexiones pool = instancia;
+        if (pool == null) {
+            synchronized (PoolConexiones.class) {
+                pool = instancia;
+                if (pool == null) {
+                    instancia = pool = new PoolConexiones();
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Presta una conexión del pool. Debe cerrarse (idealmente con
+     * try-with-resources) para devolverla.
+     *
+     * @return Conexión lista para usar
+     * @throws SQLException Si no hay conexiones disponibles a tiempo o no se puede abrir una nueva
+     */
+    public Connection obtener() throws SQLException {
+
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Tiempo de espera agotado: no hay conexiones libres en el pool ("
+                        + maximo + " en uso)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool", e);
+        }
+
+        try {
+            ConexionFisica fisica;
+
+            // Reutilizar una conexión libre válida, descartando las que estén rotas
+            while ((fisica = libres.pollFirst()) != null) {
+                if (esValida(fisica)) {
+                    return prestar(fisica);
+                }
+                descartar(fisica);
+            }
+
+            // No quedan libres: abrir una nueva
+            return prestar(abrir());
+
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones libres y detiene el mantenimiento. Las conexiones
+     * prestadas se cerrarán cuando sus DAO las devuelvan.
+     */
+    public void cerrar() {
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = libres.pollFirst()) != null) {
+            descartar(fisica);
+        }
+    }
+
+    /**
+     * Número de conexiones físicas abiertas actualmente.
+     *
+     * @return Conexiones abiertas (libres y prestadas)
+     */
+    public int getConexionesAbiertas() {
+        return abiertas.get();
+    }
+
+    /**
+     * Número de conexiones prestadas en este momento.
+     *
+     * @return Conexiones en uso
+     */
+    public int getConexionesEnUso() {
+        return prestadas.size();
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Abre una nueva conexión física con la base de datos.
+     */
+    private ConexionFisica abrir() throws SQLException {
+        Connection real = DriverManager.getConnection(url, propiedades);
+        abiertas.incrementAndGet();
+        return new ConexionFisica(real, new CacheSentencias(real, tamanoCacheSentencias));
+    }
+
+    /**
+     * Comprueba que una conexión libre sigue operativa antes de prestarla.
+     * Las usadas hace muy poco se dan por buenas para ahorrar el ping.
+     */
+    private boolean esValida(ConexionFisica fisica) {
+        if (System.currentTimeMillis() - fisica.ultimoUso < MARGEN_VALIDACION_MS) {
+            return true;
+        }
+        try {
+            return fisica.real.isValid(TIMEOUT_VALIDACION_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Envuelve una conexión física en un proxy que la devuelve al pool al cerrarse.
+     */
+    private Connection prestar(ConexionFisica fisica) {
+        ConexionPrestada prestada = new ConexionPrestada(fisica);
+        prestadas.add(prestada);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, prestada);
+    }
+
+    /**
+     * Devuelve una conexión al pool dejando su estado como recién abierta.
+     */
+    private void devolver(ConexionPrestada prestada) {
+        prestadas.remove(prestada);
+        ConexionFisica fisica = prestada.fisica;
+        try {
+            if (fisica.real.isClosed()) {
+                descartar(fisica);
+                return;
+            }
+            // Deshacer transacciones que el DAO haya dejado abiertas
+            if (!fisica.real.getAutoCommit()) {
+                fisica.real.rollback();
+                fisica.real.setAutoCommit(true);
+            }
+            fisica.ultimoUso = System.currentTimeMillis();
+            libres.offerFirst(fisica);
+        } catch (SQLException e) {
+            descartar(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Cierra definitivamente una conexión física.
+     */
+    private void descartar(ConexionFisica fisica) {
+        abiertas.decrementAndGet();
+        fisica.sentencias.vaciar();
+        try {
+            fisica.real.close();
+        } catch (SQLException e) {
+            // La conexión ya estaba rota, no hay nada más que hacer
+        }
+    }
+
+    /**
+     * Abre conexiones hasta alcanzar el mínimo configurado.
+     */
+    private void rellenarMinimo() {
+        while (abiertas.get() < minimo) {
+            try {
+                ConexionFisica fisica = abrir();
+                fisica.ultimoUso = System.currentTimeMillis();
+                libres.offerLast(fisica);
+            } catch (SQLException e) {
+                System.out.println("Error al conectar: " + e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tarea periódica: cierra conexiones inactivas por encima del mínimo y, si
+     * la detección de fugas está activada, avisa de las conexiones prestadas
+     * durante demasiado tiempo.
+     */
+    private void mantener() {
+        long ahora = System.currentTimeMillis();
+
+        // Desalojo de inactivas (las más antiguas están al final de la pila)
+        ConexionFisica fisica;
+        while (abiertas.get() > minimo && (fisica = libres.peekLast()) != null
+                && ahora - fisica.ultimoUso > inactividadMs) {
+            if (libres.removeLastOccurrence(fisica)) {
+                descartar(fisica);
+            }
+        }
+        rellenarMinimo();
+
+        if (fugaMs <= 0) {
+            return;
+        }
+
+        // Detección de fugas: se avisa una sola vez por préstamo
+        for (ConexionPrestada prestada : prestadas) {
+            if (!prestada.avisada && ahora - prestada.desde > fugaMs) {
+                prestada.avisada = true;
+                System.err.println("Posible fuga de conexión: prestada al hilo " + prestada.hilo + " hace "
+                        + (ahora - prestada.desde) + " ms sin devolverse. Obtenida en:");
+                prestada.origen.printStackTrace();
+            }
+        }
+    }
+
+    // ---------------- CLASES INTERNAS ----------------
+
+    /**
+     * Conexión física real junto con su caché de sentencias y el momento de su
+     * último uso.
+     */
+    private static final class ConexionFisica {
+
+        final Connection real;
+        final CacheSentencias sentencias;
+        volatile long ultimoUso;
+
+        ConexionFisica(Connection real, CacheSentencias sentencias) {
+            this.real = real;
+            this.sentencias = sentencias;
+        }
+    }
+
+    /**
+     * Manejador del proxy entregado a los DAO. Intercepta {@code close()} para
+     * devolver la conexión al pool, sirve las sentencias preparadas desde la caché
+     * de la conexión y rechaza cualquier uso posterior.
+     */
+    private final class ConexionPrestada implements InvocationHandler {
+
+        final ConexionFisica fisica;
+        final long desde = System.currentTimeMillis();
+        final String hilo;
+        // Pila de llamadas del préstamo, solo si se detectan fugas (capturarla es caro)
+        final Throwable origen = fugaMs > 0 ? new Throwable("Préstamo de conexión") : null;
+        volatile boolean avisada;
+        private boolean cerrada;
+
+        ConexionPrestada(ConexionFisica fisica) {
+            this.fisica = fisica;
+            // Los hilos virtuales no tienen nombre
+            Thread actual = Thread.currentThread();
+            this.hilo = actual.getName().isEmpty() ? "#" + actual.threadId() : actual.getName();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "close" -> {
+                    synchronized (this) {
+                        if (!cerrada) {
+                            cerrada = true;
+                            devolver(this);
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return cerrada || fisica.real.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "ConexionPrestada[" + fisica.real + "]";
+                }
+                default -> {
+                    if (cerrada) {
+                        throw new SQLException("La conexión ya fue devuelta al pool");
+                    }
+                }
+            }
+            if (metodo.getName().equals("prepareStatement")) {
+                Class<?>[] tipos = metodo.getParameterTypes();
+                if (tipos.length == 1) {
+                    return fisica.sentencias.preparar((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (tipos.length == 2 && tipos[1] == int.class) {
+                    return fisica.sentencias.preparar((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return metodo.invoke(fisica.real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+}
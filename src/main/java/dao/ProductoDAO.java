@@ -2,8 +2,11 @@ package dao;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import config.ConfigLoader;
 import model.ProductoOtaku;
 
 /**
@@ -14,53 +17,197 @@ import model.ProductoOtaku;
 public class ProductoDAO extends DatabaseConnection {
 
     /**
-     * Agrega un nuevo producto a la base de datos.
+     * Correspondencia entre las columnas de la tabla productos y los campos de ProductoOtaku.
+     */
+    static final MapeadorFilas<ProductoOtaku> MAPEADOR = MapeadorFilas.para(ProductoOtaku::new)
+            .entero("id", ProductoOtaku::setId)
+            .texto("nombre", ProductoOtaku::setNombre)
+            .texto("categoria", ProductoOtaku::setCategoria)
+            .decimal("precio", ProductoOtaku::setPrecio)
+            .entero("stock", ProductoOtaku::setStock)
+            .texto("descripcion", ProductoOtaku::setDescripcion);
+
+    // Proyección sin la descripción, para listados y recorridos (la descripción solo
+    // se lee al consultar un producto por ID)
+    private static final MapeadorFilas<ProductoOtaku> LISTADO =
+            MAPEADOR.proyeccion("id", "nombre", "categoria", "precio", "stock");
+
+    // Proyección con solo ID y nombre, para selectores y listas de nombres
+    private static final MapeadorFilas<ProductoOtaku> RESUMEN = MAPEADOR.proyeccion("id", "nombre");
+
+    // Inicio de las consultas de listados de productos
+    private static final String SELECT = "SELECT " + LISTADO.getColumnas() + " FROM productos";
+
+    // Columnas que se pueden actualizar por separado con actualizarCampos
+    private static final ActualizacionParcial<ProductoOtaku> EDITABLES =
+            ActualizacionParcial.para("productos", ProductoOtaku::getId)
+            .columna("nombre", (stmt, i, p) -> stmt.setString(i, p.getNombre()))
+            .columna("categoria", (stmt, i, p) -> stmt.setString(i, p.getCategoria()))
+            .columna("precio", (stmt, i, p) -> stmt.setDouble(i, p.getPrecio()))
+            .columna("stock", (stmt, i, p) -> stmt.setInt(i, p.getStock()))
+            .anular("descripcion", "nombre", "categoria");
+
+    /**
+     * Caché de lectura de productos por ID compartida por todas las instancias del DAO
+     * (propiedades cacheTamano y cacheTtlMs de config.properties).
+     */
+    private static final CacheEntidades<ProductoOtaku> CACHE = new CacheEntidades<>(
+            ConfigLoader.getIntProperty("cacheTamano", 1000),
+            ConfigLoader.getIntProperty("cacheTtlMs", 60_000),
+            ProductoOtaku::new);
+
+    /**
+     * Índice de búsqueda por nombre compartido por todas las instancias del DAO
+     * (se reconstruye cada indiceRecargaMs de config.properties).
+     */
+    private static final IndiceProductos INDICE = new IndiceProductos(
+            ConfigLoader.getIntProperty("indiceRecargaMs", 600_000));
+
+    /**
+     * Agrega un nuevo producto a la base de datos y le asigna el ID generado.
      *
      * @param producto Objeto ProductoOtaku que contiene los datos a insertar.
+     * @return true si se insertó el producto, false en caso contrario.
      */
-    public void agregarProducto(ProductoOtaku producto) {
+    public boolean agregarProducto(ProductoOtaku producto) {
 
         String query = "INSERT INTO productos (nombre, categoria, precio, stock) VALUES (?, ?, ?, ?)";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
             // Asignar valores a los parámetros del PreparedStatement
-            stmt.setString(1, producto.getNombre());
-            stmt.setString(2, producto.getCategoria());
-            stmt.setDouble(3, producto.getPrecio());
-            stmt.setInt(4, producto.getStock());
+            asignarParametros(stmt, producto);
 
-            // Ejecutar la inserción y obtener número de filas afectadas
-            int affected = stmt.executeUpdate();
+            // Ejecutar la inserción y comprobar si se añadió la fila
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+
+            // Guardar en el objeto el ID autoincremental asignado por la base de datos
+            try (ResultSet claves = stmt.getGeneratedKeys()) {
+                if (claves.next()) {
+                    producto.setId(claves.getInt(1));
+                }
+            }
 
-            System.out.println(affected > 0 ? "Se ha añadido el producto" : "NO se ha realizado");
+            INDICE.guardar(producto);
+            return true;
 
         } catch (SQLException e) {
             System.out.println("Error al añadir producto: " + e.getMessage());
+            return false;
+        }
+
+    }
+
+    /**
+     * Agrega varios productos en lote y asigna a cada uno el ID generado.
+     * <p>
+     * Los productos se envían en bloques de {@link #TAMANO_LOTE} filas dentro de
+     * una única transacción: si falla algún bloque no se inserta ninguno.
+     * </p>
+     *
+     * @param productos Lista de productos a insertar.
+     * @return Número de productos insertados (0 si hubo error).
+     */
+    public int agregarProductos(List<ProductoOtaku> productos) {
+
+        String query = "INSERT INTO productos (nombre, categoria, precio, stock) VALUES (?, ?, ?, ?)";
+
+        if (productos.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conexion = obtenerConexion()) {
+
+            conexion.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conexion.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (int inicio = 0; inicio < productos.size(); inicio += TAMANO_LOTE) {
+
+                    List<ProductoOtaku> bloque = productos.subList(inicio,
+                            Math.min(inicio + TAMANO_LOTE, productos.size()));
+
+                    for (ProductoOtaku producto : bloque) {
+                        asignarParametros(stmt, producto);
+                        stmt.addBatch();
+                    }
+
+                    stmt.executeBatch();
+
+                    // Las claves generadas llegan en el mismo orden que las filas del bloque
+                    try (ResultSet claves = stmt.getGeneratedKeys()) {
+                        for (ProductoOtaku producto : bloque) {
+                            if (claves.next()) {
+                                producto.setId(claves.getInt(1));
+                            }
+                        }
+                    }
+
+                }
+
+                conexion.commit();
+                productos.forEach(INDICE::guardar);
+                return productos.size();
+
+            } catch (SQLException e) {
+                conexion.rollback();
+                // Ningún producto quedó insertado: se eliminan los IDs asignados
+                productos.forEach(p -> p.setId(0));
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al añadir productos en lote: " + e.getMessage());
+            return 0;
         }
 
     }
 
     /**
      * Obtiene un producto por su ID.
+     * <p>
+     * Se sirve desde la caché de productos si está disponible; si no, se consulta la
+     * base de datos y se guarda el resultado.
+     * </p>
      *
      * @param id Identificador único del producto.
      * @return ProductoOtaku encontrado o null si no existe.
      */
     public ProductoOtaku obtenerProductoPorId(int id) {
+        return CACHE.obtener(id, this::leerProductoPorId);
+    }
+
+    /**
+     * Obtiene las estadísticas de la caché de productos (aciertos, fallos y tamaño).
+     *
+     * @return Caché de productos compartida
+     */
+    public static CacheEntidades<ProductoOtaku> getCache() {
+        return CACHE;
+    }
 
-        String query = "SELECT * FROM productos WHERE id = ?";
+    /**
+     * Lee un producto por su ID directamente de la base de datos.
+     *
+     * @param id Identificador único del producto.
+     * @return ProductoOtaku encontrado o null si no existe.
+     */
+    private ProductoOtaku leerProductoPorId(int id) {
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        String query = "SELECT " + MAPEADOR.getColumnas() + " FROM productos WHERE id = ?";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
 
                 // Si hay resultado, construir y devolver el objeto ProductoOtaku
-                if (rs.next()) {
-                    return construirProducto(rs);
-                }
+                return MAPEADOR.leerPrimera(rs);
 
             }
 
@@ -82,23 +229,208 @@ public class ProductoDAO extends DatabaseConnection {
 
         List<ProductoOtaku> productos = new ArrayList<>();
 
-        String query = "SELECT * FROM productos";
+        String query = SELECT;
 
-        try (Statement stmt = conexion.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
 
             // Recorrer los resultados y agregar a la lista
+            productos = LISTADO.leerTodas(rs);
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener productos: " + e.getMessage());
+        }
+
+        return productos;
+
+    }
+
+    /**
+     * Obtiene solo el ID y el nombre de todos los productos, ordenados por nombre.
+     * <p>
+     * Pensado para selectores y listas de nombres: el resto de campos queda con su
+     * valor por defecto y no se transfieren desde el servidor.
+     * </p>
+     *
+     * @return Lista de productos con ID y nombre.
+     */
+    public List<ProductoOtaku> obtenerNombresProductos() {
+
+        List<ProductoOtaku> productos = new ArrayList<>();
+
+        String query = "SELECT " + RESUMEN.getColumnas() + " FROM productos ORDER BY nombre";
+
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            productos = RESUMEN.leerTodas(rs);
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener nombres de productos: " + e.getMessage());
+        }
+
+        return productos;
+
+    }
+
+    /**
+     * Obtiene el ID y el nombre de los productos con ID mayor que el dado, ordenados
+     * por ID.
+     * <p>
+     * Con {@code despuesDeId = 0} devuelve todos; con el mayor ID ya conocido
+     * devuelve solo los productos añadidos después, para actualizar una copia en
+     * memoria sin volver a leerla entera.
+     * </p>
+     *
+     * @param despuesDeId ID a partir del cual (sin incluirlo) se leen los productos.
+     * @return Lista de productos con ID y nombre.
+     */
+    public List<ProductoOtaku> obtenerNombresProductosDesde(int despuesDeId) {
+
+        List<ProductoOtaku> productos = new ArrayList<>();
+
+        String query = "SELECT " + RESUMEN.getColumnas() + " FROM productos WHERE id > ? ORDER BY id";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+
+            stmt.setInt(1, despuesDeId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                productos = RESUMEN.leerTodas(rs);
+
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener nombres de productos: " + e.getMessage());
+        }
+
+        return productos;
+
+    }
+
+    /**
+     * Obtiene los IDs de todos los productos en orden ascendente.
+     * <p>
+     * Sirve para mostrar la tabla completa sin cargarla: con los IDs se sabe
+     * cuántas filas hay y con qué ID empieza cada página, y los datos se piden
+     * después por páginas con {@link #obtenerProductosPagina(int, int)}.
+     * </p>
+     *
+     * @return IDs de los productos (vacío si hubo error).
+     */
+    public int[] obtenerIdsProductos() {
+
+        String query = "SELECT id FROM productos ORDER BY id";
+
+        int[] ids = new int[1024];
+        int total = 0;
+
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
             while (rs.next()) {
-                productos.add(construirProducto(rs));
+                if (total == ids.length) {
+                    ids = Arrays.copyOf(ids, total * 2);
+                }
+                ids[total++] = rs.getInt(1);
             }
 
         } catch (SQLException e) {
-            System.out.println("Error al obtener productos: " + e.getMessage());
+            System.out.println("Error al obtener IDs de productos: " + e.getMessage());
+            return new int[0];
+        }
+
+        return Arrays.copyOf(ids, total);
+
+    }
+
+    /**
+     * Obtiene una página de los productos ordenados por ID (paginación por clave).
+     * <p>
+     * Para recorrer la tabla se pide la primera página con {@code despuesDeId = 0}
+     * y cada página siguiente con el ID del último producto de la anterior. El coste
+     * de cada página no depende de su posición, a diferencia de OFFSET.
+     * </p>
+     *
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página.
+     * @param limite      Número máximo de productos de la página.
+     * @return Lista de productos de la página, vacía si no hay más, o null si
+     *         hubo un error (así se distingue una página vacía de una que no se
+     *         pudo leer).
+     */
+    public List<ProductoOtaku> obtenerProductosPagina(int despuesDeId, int limite) {
+
+        List<ProductoOtaku> productos = new ArrayList<>();
+
+        String query = SELECT + " WHERE id > ? ORDER BY id LIMIT ?";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+
+            stmt.setInt(1, despuesDeId);
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                productos = LISTADO.leerTodas(rs);
+
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener página de productos: " + e.getMessage());
+            return null;
         }
 
         return productos;
 
     }
 
+    /**
+     * Recorre todos los productos ordenados por ID pasando cada uno a la acción dada,
+     * sin cargar la tabla completa en memoria.
+     * <p>
+     * El ResultSet se lee en modo streaming (solo avance y fila a fila), por lo que
+     * el consumo de memoria es constante aunque la tabla tenga cientos de miles de
+     * filas. La conexión queda ocupada durante todo el recorrido, así que la acción
+     * no debe hacer trabajo lento.
+     * </p>
+     *
+     * @param accion Acción a ejecutar con cada producto.
+     * @return Número de productos recorridos, o -1 si hubo un error.
+     */
+    public int recorrerProductos(Consumer<ProductoOtaku> accion) {
+
+        String query = SELECT + " ORDER BY id";
+
+        int total;
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Con MySQL, Integer.MIN_VALUE activa la lectura fila a fila desde el servidor
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                total = LISTADO.recorrer(rs, accion);
+
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al recorrer productos: " + e.getMessage());
+            return -1;
+        }
+
+        return total;
+
+    }
+
     /**
      * Actualiza un producto existente en la base de datos.
      *
@@ -107,23 +439,164 @@ public class ProductoDAO extends DatabaseConnection {
      */
     public boolean actualizarProducto(ProductoOtaku producto) {
 
-        String query = "UPDATE productos SET nombre = ?, categoria = ?, precio = ?, stock = ? WHERE id = ?";
+        // La descripción se borra si cambian el nombre o la categoría. MySQL aplica las
+        // asignaciones en orden, así que se compara antes de asignar los valores nuevos.
+        String query = "UPDATE productos SET descripcion = IF(nombre <=> ? AND categoria <=> ?, descripcion, NULL), "
+                + "nombre = ?, categoria = ?, precio = ?, stock = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             // Establecer valores para el UPDATE
             stmt.setString(1, producto.getNombre());
             stmt.setString(2, producto.getCategoria());
-            stmt.setDouble(3, producto.getPrecio());
-            stmt.setInt(4, producto.getStock());
-            stmt.setInt(5, producto.getId());
+            stmt.setString(3, producto.getNombre());
+            stmt.setString(4, producto.getCategoria());
+            stmt.setDouble(5, producto.getPrecio());
+            stmt.setInt(6, producto.getStock());
+            stmt.setInt(7, producto.getId());
 
             // Ejecutar actualización y retornar true si se actualizó algún registro
-            return stmt.executeUpdate() > 0;
+            boolean actualizado = stmt.executeUpdate() > 0;
+
+            if (actualizado) {
+                INDICE.guardar(producto);
+            }
+
+            return actualizado;
 
         } catch (SQLException e) {
             System.out.println("Error al actualizar producto: " + e.getMessage());
             return false;
+        } finally {
+            // La versión cacheada del producto deja de ser válida
+            CACHE.invalidar(producto.getId());
+        }
+
+    }
+
+    /**
+     * Actualiza solo las columnas que han cambiado en uno o varios productos.
+     * <p>
+     * Cada producto se actualiza con un UPDATE que asigna únicamente sus columnas
+     * cambiadas. Si hay varios, se envían como lotes dentro de una única
+     * transacción: o se guardan todos o ninguno.
+     * </p>
+     *
+     * @param cambios Productos completos con sus valores nuevos y las columnas
+     *                cambiadas (nombre, categoria, precio y/o stock).
+     * @return true si se actualizaron todos, false si alguno no existe o hubo un error.
+     */
+    public boolean actualizarCampos(List<CambiosFila<ProductoOtaku>> cambios) {
+
+        try (Connection conexion = obtenerConexion()) {
+
+            boolean actualizados = EDITABLES.ejecutar(conexion, cambios);
+
+            if (actualizados) {
+                cambios.forEach(c -> INDICE.guardar(c.entidad()));
+            }
+
+            return actualizados;
+
+        } catch (SQLException e) {
+            System.out.println("Error al actualizar productos: " + e.getMessage());
+            return false;
+        } finally {
+            // Las versiones cacheadas de los productos dejan de ser válidas
+            cambios.forEach(c -> CACHE.invalidar(c.entidad().getId()));
+        }
+
+    }
+
+    /**
+     * Guarda la descripción generada para un producto.
+     * <p>
+     * Solo se guarda si el nombre y la categoría del producto siguen siendo los
+     * que se usaron para generarla: si han cambiado mientras tanto, la
+     * descripción ya no corresponde al producto.
+     * </p>
+     *
+     * @param producto    Producto con el nombre y la categoría usados para generar la descripción.
+     * @param descripcion Descripción generada.
+     * @return true si se guardó, false si el producto no existe, ha cambiado o hubo un error.
+     */
+    public boolean guardarDescripcion(ProductoOtaku producto, String descripcion) {
+
+        String query = "UPDATE productos SET descripcion = ? WHERE id = ? AND nombre <=> ? AND categoria <=> ?";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+
+            stmt.setString(1, descripcion);
+            stmt.setInt(2, producto.getId());
+            stmt.setString(3, producto.getNombre());
+            stmt.setString(4, producto.getCategoria());
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            System.out.println("Error al guardar la descripción del producto: " + e.getMessage());
+            return false;
+        } finally {
+            // La versión cacheada del producto deja de ser válida
+            CACHE.invalidar(producto.getId());
+        }
+
+    }
+
+    /**
+     * Obtiene una página de los productos sin descripción (nunca generada o
+     * borrada al cambiar su nombre o categoría), ordenados por ID.
+     *
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página.
+     * @param limite      Número máximo de productos de la página.
+     * @return Productos de la página (sin descripción).
+     */
+    public List<ProductoOtaku> obtenerProductosSinDescripcion(int despuesDeId, int limite) {
+
+        List<ProductoOtaku> productos = new ArrayList<>();
+
+        String query = SELECT + " WHERE descripcion IS NULL AND id > ? ORDER BY id LIMIT ?";
+
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
+
+            stmt.setInt(1, despuesDeId);
+            stmt.setInt(2, limite);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+
+                productos = LISTADO.leerTodas(rs);
+
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Error al obtener productos sin descripción: " + e.getMessage());
+        }
+
+        return productos;
+
+    }
+
+    /**
+     * Cuenta los productos sin descripción.
+     *
+     * @return Número de productos sin descripción (0 si hubo error).
+     */
+    public int contarProductosSinDescripcion() {
+
+        String query = "SELECT COUNT(*) FROM productos WHERE descripcion IS NULL";
+
+        try (Connection conexion = obtenerConexion();
+             Statement stmt = conexion.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+
+            return rs.next() ? rs.getInt(1) : 0;
+
+        } catch (SQLException e) {
+            System.out.println("Error al contar productos sin descripción: " + e.getMessage());
+            return 0;
         }
 
     }
@@ -138,33 +611,78 @@ public class ProductoDAO extends DatabaseConnection {
 
         String query = "DELETE FROM productos WHERE id = ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             stmt.setInt(1, id);
 
             // Ejecutar eliminación y retornar true si se eliminó algún registro
-            return stmt.executeUpdate() > 0;
+            boolean eliminado = stmt.executeUpdate() > 0;
+
+            if (eliminado) {
+                INDICE.eliminar(id);
+            }
+
+            return eliminado;
 
         } catch (SQLException e) {
             System.out.println("Error al eliminar producto: " + e.getMessage());
             return false;
+        } finally {
+            // La versión cacheada del producto deja de ser válida
+            CACHE.invalidar(id);
         }
 
     }
 
     /**
-     * Busca productos cuyo nombre contenga la cadena dada (búsqueda parcial).
+     * Busca productos cuyo nombre contenga la cadena dada o se le parezca.
+     * <p>
+     * Si el índice de nombres en memoria está cargado, la búsqueda se resuelve en
+     * él: ignora tildes y mayúsculas, tolera errores de escritura y ordena los
+     * resultados por relevancia. Mientras el índice se carga (la primera búsqueda
+     * lanza la carga en segundo plano) se usa la búsqueda parcial con LIKE.
+     * </p>
      *
      * @param nombre Cadena a buscar dentro del nombre del producto.
      * @return Lista de productos que coinciden con la búsqueda.
      */
     public List<ProductoOtaku> buscarProductosPorNombre(String nombre) {
 
+        INDICE.asegurarCarga(this::recorrerProductos);
+
+        if (INDICE.estaListo()) {
+            return INDICE.buscar(nombre);
+        }
+
+        return buscarProductosPorNombreSql(nombre);
+
+    }
+
+    /**
+     * Obtiene el índice de búsqueda por nombre (estado y tamaño).
+     *
+     * @return Índice de productos compartido
+     */
+    public static IndiceProductos getIndice() {
+        return INDICE;
+    }
+
+    /**
+     * Busca en la base de datos productos cuyo nombre contenga la cadena dada
+     * (búsqueda parcial con LIKE).
+     *
+     * @param nombre Cadena a buscar dentro del nombre del producto.
+     * @return Lista de productos que coinciden con la búsqueda.
+     */
+    private List<ProductoOtaku> buscarProductosPorNombreSql(String nombre) {
+
         List<ProductoOtaku> productos = new ArrayList<>();
 
-        String query = "SELECT * FROM productos WHERE nombre LIKE ?";
+        String query = SELECT + " WHERE nombre LIKE ?";
 
-        try (PreparedStatement stmt = conexion.prepareStatement(query)) {
+        try (Connection conexion = obtenerConexion();
+             PreparedStatement stmt = conexion.prepareStatement(query)) {
 
             // Usar comodines para búsqueda parcial
             stmt.setString(1, "%" + nombre + "%");
@@ -172,9 +690,7 @@ public class ProductoDAO extends DatabaseConnection {
             try (ResultSet rs = stmt.executeQuery()) {
 
                 // Añadir cada producto encontrado a la lista
-                while (rs.next()) {
-                    productos.add(construirProducto(rs));
-                }
+                productos = LISTADO.leerTodas(rs);
 
             }
 
@@ -189,24 +705,19 @@ public class ProductoDAO extends DatabaseConnection {
     // ---------------- MÉTODOS AUXILIARES ----------------
 
     /**
-     * Construye un objeto ProductoOtaku a partir de un ResultSet.
+     * Asigna los datos de un producto a los parámetros de un INSERT.
      *
-     * @param rs ResultSet con los datos del producto.
-     * @return Objeto ProductoOtaku construido.
-     * @throws SQLException En caso de error al acceder al ResultSet.
+     * @param stmt     Sentencia INSERT con los parámetros nombre, categoría, precio y stock.
+     * @param producto Producto con los datos a insertar.
+     * @throws SQLException En caso de error al asignar los parámetros.
      */
-    private ProductoOtaku construirProducto(ResultSet rs) throws SQLException {
-
-        ProductoOtaku p = new ProductoOtaku();
-
-        p.setId(rs.getInt("id"));
-        p.setNombre(rs.getString("nombre"));
-        p.setCategoria(rs.getString("categoria"));
-        p.setPrecio(rs.getDouble("precio"));
-        p.setStock(rs.getInt("stock"));
+    private void asignarParametros(PreparedStatement stmt, ProductoOtaku producto) throws SQLException {
 
-        return p;
+        stmt.setString(1, producto.getNombre());
+        stmt.setString(2, producto.getCategoria());
+        stmt.setDouble(3, producto.getPrecio());
+        stmt.setInt(4, producto.getStock());
 
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package dao;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import model.ProductoOtaku;
+import util.EjecutorAsincrono;
+
+/**
+ * Versión asíncrona de {@link ProductoDAO}.
+ * <p>
+ * Cada método lanza la operación equivalente del DAO en un hilo virtual del
+ * {@link EjecutorAsincrono} compartido y devuelve inmediatamente un
+ * {@link CompletableFuture} con su resultado. Así se pueden lanzar en paralelo
+ * consultas independientes y combinar sus resultados.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class ProductoDAOAsincrono {
+
+    private final ProductoDAO dao;
+
+    private final EjecutorAsincrono ejecutor = EjecutorAsincrono.getInstancia();
+
+    /**
+     * Crea la fachada asíncrona sobre un DAO nuevo.
+     */
+    public ProductoDAOAsincrono() {
+        this(new ProductoDAO());
+    }
+
+    /**
+     * Crea la fachada asíncrona sobre un DAO existente.
+     *
+     * @param dao DAO que realiza las operaciones
+     */
+    public ProductoDAOAsincrono(ProductoDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * @param producto Producto a insertar
+     * @return Futuro con true si se insertó el producto
+     * @see ProductoDAO#agregarProducto(ProductoOtaku)
+     */
+    public CompletableFuture<Boolean> agregarProducto(ProductoOtaku producto) {
+        return ejecutor.ejecutar(() -> dao.agregarProducto(producto));
+    }
+
+    /**
+     * @param productos Productos a insertar
+     * @return Futuro con el número de productos insertados
+     * @see ProductoDAO#agregarProductos(List)
+     */
+    public CompletableFuture<Integer> agregarProductos(List<ProductoOtaku> productos) {
+        return ejecutor.ejecutar(() -> dao.agregarProductos(productos));
+    }
+
+    /**
+     * @param id Identificador del producto
+     * @return Futuro con el producto o null si no existe
+     * @see ProductoDAO#obtenerProductoPorId(int)
+     */
+    public CompletableFuture<ProductoOtaku> obtenerProductoPorId(int id) {
+        return ejecutor.ejecutar(() -> dao.obtenerProductoPorId(id));
+    }
+
+    /**
+     * @return Futuro con la lista de todos los productos
+     * @see ProductoDAO#obtenerTodosLosProductos()
+     */
+    public CompletableFuture<List<ProductoOtaku>> obtenerTodosLosProductos() {
+        return ejecutor.ejecutar(dao::obtenerTodosLosProductos);
+    }
+
+    /**
+     * @param despuesDeId Último ID de la página anterior (0 para la primera)
+     * @param limite      Número máximo de productos
+     * @return Futuro con la página de productos
+     * @see ProductoDAO#obtenerProductosPagina(int, int)
+     */
+    public CompletableFuture<List<ProductoOtaku>> obtenerProductosPagina(int despuesDeId, int limite) {
+        return ejecutor.ejecutar(() -> dao.obtenerProductosPagina(despuesDeId, limite));
+    }
+
+    /**
+     * La acción se ejecuta en el hilo virtual, no en el del llamador.
+     *
+     * @param accion Acción que se aplica a cada producto
+     * @return Futuro con el número de productos recorridos (-1 si hubo un error)
+     * @see ProductoDAO#recorrerProductos(Consumer)
+     */
+    public CompletableFuture<Integer> recorrerProductos(Consumer<ProductoOtaku> accion) {
+        return ejecutor.ejecutar(() -> dao.recorrerProductos(accion));
+    }
+
+    /**
+     * @param producto Producto con los datos actualizados
+     * @return Futuro con true si se actualizó el producto
+     * @see ProductoDAO#actualizarProducto(ProductoOtaku)
+     */
+    public CompletableFuture<Boolean> actualizarProducto(ProductoOtaku producto) {
+        return ejecutor.ejecutar(() -> dao.actualizarProducto(producto));
+    }
+
+    /**
+     * @param id Identificador del producto
+     * @return Futuro con true si se eliminó el producto
+     * @see ProductoDAO#eliminarProducto(int)
+     */
+    public CompletableFuture<Boolean> eliminarProducto(int id) {
+        return ejecutor.ejecutar(() -> dao.eliminarProducto(id));
+    }
+
+    /**
+     * @param nombre Texto a buscar en el nombre
+     * @return Futuro con los productos encontrados
+     * @see ProductoDAO#buscarProductosPorNombre(String)
+     */
+    public CompletableFuture<List<ProductoOtaku>> buscarProductosPorNombre(String nombre) {
+        return ejecutor.ejecutar(() -> dao.buscarProductosPorNombre(nombre));
+    }
+
+}
@@ -0,0 +1,29 @@
+package dao;
+
+/**
+ * Resultado de una operación de escritura sobre clientes.
+ * <p>
+ * Permite a las vistas distinguir el motivo de un fallo sin hacer consultas
+ * previas: la unicidad del email la comprueba la propia base de datos con su
+ * restricción UNIQUE.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public enum ResultadoEscritura {
+
+    /** La operación se realizó correctamente. */
+    OK,
+
+    /** El email ya pertenece a otro cliente. */
+    EMAIL_DUPLICADO,
+
+    /** No existe ningún cliente con el ID indicado. */
+    NO_ENCONTRADO,
+
+    /** Error de base de datos no relacionado con los datos del cliente. */
+    ERROR
+
+}
@@ -36,6 +36,19 @@ public class ClienteOtaku {
         this.telefono = telefono;
     }
 
+    /**
+     * Constructor de copia: crea un cliente independiente con los mismos datos.
+     * 
+     * @param otro Cliente a copiar
+     */
+    public ClienteOtaku(ClienteOtaku otro) {
+        this.id = otro.id;
+        this.nombre = otro.nombre;
+        this.email = otro.email;
+        this.telefono = otro.telefono;
+        this.fechaRegistro = otro.fechaRegistro;
+    }
+
     /**
      * Obtiene el ID del cliente.
      * 
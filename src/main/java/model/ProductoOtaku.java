@@ -18,6 +18,7 @@ public class ProductoOtaku {
     private String categoria;  // Categoría a la que pertenece el producto
     private double precio;     // Precio del producto
     private int stock;         // Cantidad disponible en inventario
+    private String descripcion; // Descripción generada con IA (null si todavía no tiene)
 
     /**
      * Constructor vacío por defecto.
@@ -40,6 +41,20 @@ public class ProductoOtaku {
         this.stock = stock;
     }
 
+    /**
+     * Constructor de copia: crea un producto independiente con los mismos datos.
+     *
+     * @param otro Producto a copiar
+     */
+    public ProductoOtaku(ProductoOtaku otro) {
+        this.id = otro.id;
+        this.nombre = otro.nombre;
+        this.categoria = otro.categoria;
+        this.precio = otro.precio;
+        this.stock = otro.stock;
+        this.descripcion = otro.descripcion;
+    }
+
     /**
      * Obtiene el ID del producto.
      *
@@ -130,6 +145,24 @@ public class ProductoOtaku {
         this.stock = stock;
     }
 
+    /**
+     * Obtiene la descripción del producto generada con IA.
+     *
+     * @return Descripción del producto, o null si todavía no tiene o no se ha leído
+     */
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    /**
+     * Asigna la descripción del producto.
+     *
+     * @param descripcion Nueva descripción del producto
+     */
+    public void setDescripcion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
     /**
      * Representación en cadena del objeto ProductoOtaku en formato legible.
      *
@@ -143,8 +176,10 @@ public class ProductoOtaku {
             "Nombre:    %s\n" +
             "Categoría: %s\n" +
             "Precio:    €%.2f\n" +
-            "Stock:     %d unidades\n",
-            id, nombre, categoria, precio, stock
+            "Stock:     %d unidades\n" +
+            "%s",
+            id, nombre, categoria, precio, stock,
+            descripcion != null ? "Descripción: " + descripcion + "\n" : ""
         );
     }
 
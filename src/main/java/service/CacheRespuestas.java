@@ -0,0 +1,329 @@
+package service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Caché de las respuestas de la IA en dos niveles: en memoria y en disco.
+ * <p>
+ * Cada respuesta se guarda con una clave calculada a partir del prompt
+ * normalizado (sin espacios repetidos ni al principio o al final), el modelo y
+ * los parámetros de la petición. La copia en memoria sirve las consultas
+ * repetidas al instante. La copia en disco, un archivo por respuesta, hace que
+ * sobrevivan a un reinicio; al leerla se vuelve a subir a memoria.
+ * </p>
+ * <p>
+ * Las entradas caducan pasado su tiempo de vida. Cuando se supera el tamaño
+ * máximo se descarta en memoria la entrada usada hace más tiempo y en disco las
+ * escritas hace más tiempo. Se puede usar desde varios hilos.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class CacheRespuestas {
+
+    private static final String EXTENSION = ".json";
+
+    private final Path directorio;
+    private final int maxMemoria;
+    private final int maxDisco;
+    private final long ttlMs;
+
+    // Entradas en orden de acceso (la primera es la menos usada)
+    private final LinkedHashMap<String, Entrada> memoria = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Archivos en disco (-1 hasta que se cuentan por primera vez)
+    private int enDisco = -1;
+
+    private long aciertosMemoria;
+    private long aciertosDisco;
+    private long fallos;
+
+    /**
+     * Crea una caché de respuestas.
+     *
+     * @param directorio Carpeta donde se guardan las respuestas en disco (null para
+     *                   no usar el disco)
+     * @param maxMemoria Número máximo de respuestas en memoria (0 para no usar la memoria)
+     * @param maxDisco   Número máximo de respuestas en disco
+     * @param ttlMs      Tiempo de vida de cada respuesta en milisegundos
+     */
+    public CacheRespuestas(Path directorio, int maxMemoria, int maxDisco, long ttlMs) {
+        this.directorio = maxDisco > 0 ? directorio : null;
+        this.maxMemoria = Math.max(0, maxMemoria);
+        this.maxDisco = maxDisco;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Calcula la clave de una petición.
+     *
+     * @param prompt     Texto enviado al modelo
+     * @param modelo     Modelo que genera la respuesta
+     * @param parametros Resto de parámetros que influyen en la respuesta
+     * @return Clave de la petición (hash hexadecimal)
+     */
+    public static String clave(String prompt, String modelo, String parametros) {
+        String normalizado = prompt.strip().replaceAll("\\s+", " ");
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha.digest((modelo + "\n" + parametros + "\n" + normalizado).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // SHA-256 está disponible en todas las JVM
+        }
+    }
+
+    /**
+     * Busca una respuesta guardada, primero en memoria y después en disco.
+     *
+     * @param clave Clave de la petición (ver {@link #clave(String, String, String)})
+     * @return Respuesta guardada, o null si no está o ha caducado
+     */
+    public String obtener(String clave) {
+
+        long ahora = System.currentTimeMillis();
+
+        synchronized (this) {
+            Entrada entrada = memoria.get(clave);
+            if (entrada != null && ahora < entrada.caduca) {
+                aciertosMemoria++;
+                return entrada.respuesta;
+            }
+            if (entrada != null) {
+                memoria.remove(clave);
+            }
+        }
+
+        // La lectura del disco se hace fuera del bloqueo
+        Entrada entrada = leer(clave);
+
+        synchronized (this) {
+            if (entrada == null || ahora >= entrada.caduca) {
+                fallos++;
+                return null;
+            }
+            aciertosDisco++;
+            guardarEnMemoria(clave, entrada);
+            return entrada.respuesta;
+        }
+    }
+
+    /**
+     * Guarda una respuesta en memoria y en disco.
+     *
+     * @param clave     Clave de la petición
+     * @param respuesta Respuesta del modelo
+     */
+    public void guardar(String clave, String respuesta) {
+
+        Entrada entrada = new Entrada(respuesta, System.currentTimeMillis() + ttlMs);
+
+        synchronized (this) {
+            guardarEnMemoria(clave, entrada);
+        }
+
+        if (directorio != null) {
+            escribir(clave, entrada);
+        }
+    }
+
+    /**
+     * Vacía la caché en memoria y en disco.
+     */
+    public void limpiar() {
+        synchronized (this) {
+            memoria.clear();
+        }
+        if (directorio != null) {
+            for (Path archivo : archivos()) {
+                borrar(archivo);
+            }
+            synchronized (this) {
+                enDisco = 0;
+            }
+        }
+    }
+
+    /**
+     * Número de respuestas en memoria.
+     *
+     * @return Tamaño actual de la caché en memoria
+     */
+    public synchronized int getTamanoMemoria() {
+        return memoria.size();
+    }
+
+    /**
+     * Número de consultas servidas desde memoria.
+     *
+     * @return Aciertos en memoria acumulados
+     */
+    public synchronized long getAciertosMemoria() {
+        return aciertosMemoria;
+    }
+
+    /**
+     * Número de consultas servidas desde disco.
+     *
+     * @return Aciertos en disco acumulados
+     */
+    public synchronized long getAciertosDisco() {
+        return aciertosDisco;
+    }
+
+    /**
+     * Número de consultas que no estaban en la caché.
+     *
+     * @return Fallos acumulados
+     */
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CacheRespuestas[memoria=%d, aciertosMemoria=%d, aciertosDisco=%d, fallos=%d]",
+                memoria.size(), aciertosMemoria, aciertosDisco, fallos);
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    private void guardarEnMemoria(String clave, Entrada entrada) {
+        if (maxMemoria == 0) {
+            return;
+        }
+        memoria.put(clave, entrada);
+        var it = memoria.entrySet().iterator();
+        while (memoria.size() > maxMemoria && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Lee una respuesta del disco, o null si no está o no se puede leer.
+     */
+    private Entrada leer(String clave) {
+        if (directorio == null) {
+            return null;
+        }
+        try {
+            JsonObject json = JsonParser.parseString(
+                    Files.readString(directorio.resolve(clave + EXTENSION), StandardCharsets.UTF_8)).getAsJsonObject();
+            return new Entrada(json.get("respuesta").getAsString(), json.get("caduca").getAsLong());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error al leer la caché de respuestas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Escribe una respuesta en disco (en un archivo temporal que después se
+     * renombra, para no dejar archivos a medias) y descarta las más antiguas si
+     * se supera el máximo.
+     */
+    private void escribir(String clave, Entrada entrada) {
+        JsonObject json = new JsonObject();
+        json.addProperty("respuesta", entrada.respuesta);
+        json.addProperty("caduca", entrada.caduca);
+        try {
+            Files.createDirectories(directorio);
+            Path destino = directorio.resolve(clave + EXTENSION);
+            boolean nuevo = !Files.exists(destino);
+            Path temporal = Files.createTempFile(directorio, clave, ".tmp");
+            Files.writeString(temporal, json.toString(), StandardCharsets.UTF_8);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            boolean recortar;
+            synchronized (this) {
+                if (enDisco < 0) {
+                    enDisco = archivos().size();
+                } else if (nuevo) {
+                    enDisco++;
+                }
+                recortar = enDisco > maxDisco;
+            }
+            if (recortar) {
+                recortarDisco();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al guardar la caché de respuestas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las respuestas escritas hace más tiempo hasta dejar un 10 % de hueco
+     * por debajo del máximo, para no recorrer la carpeta en cada escritura.
+     */
+    private void recortarDisco() {
+        List<Path> archivos = archivos();
+        Map<Path, Long> fechas = new HashMap<>();
+        archivos.forEach(archivo -> fechas.put(archivo, modificado(archivo)));
+        archivos.sort(Comparator.comparing(fechas::get));
+        int sobran = archivos.size() - (maxDisco - maxDisco / 10);
+        for (int i = 0; i < sobran; i++) {
+            borrar(archivos.get(i));
+        }
+        synchronized (this) {
+            enDisco = archivos.size() - Math.max(0, sobran);
+        }
+    }
+
+    private List<Path> archivos() {
+        List<Path> archivos = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return archivos;
+        }
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            contenido.forEach(archivos::add);
+        } catch (IOException e) {
+            System.err.println("Error al leer la caché de respuestas: " + e.getMessage());
+        }
+        return archivos;
+    }
+
+    private static long modificado(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            System.err.println("Error al borrar de la caché de respuestas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Respuesta guardada junto con su instante de caducidad.
+     */
+    private record Entrada(String respuesta, long caduca) {
+    }
+
+}
@@ -0,0 +1,310 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import config.ConfigLoader;
+import dao.IndiceProductos;
+import model.ProductoOtaku;
+
+/**
+ * Sugiere con IA la categoría de muchos productos a la vez, por ejemplo al
+ * importar un lote, empaquetando varios nombres en cada petición.
+ * <p>
+ * En lugar de una consulta por producto (cada una con las mismas instrucciones)
+ * se envía una lista numerada de nombres y se pide un objeto JSON que asigne a
+ * cada número su categoría. La respuesta se valida elemento a elemento: solo se
+ * aceptan las categorías de {@link ClasificadorCategorias#CATEGORIAS} o
+ * {@link #DESCONOCIDO}. Los elementos que faltan o no son válidos se vuelven a
+ * pedir juntos, sin repetir los que ya se resolvieron; si la respuesta entera no
+ * sirve, el lote se parte en dos por si algún nombre confunde al modelo. Solo
+ * se guardan en la caché de {@link LlmService} las respuestas que resuelven
+ * todos los nombres pedidos, para no repetir los reintentos de una respuesta
+ * mal formada en cada ejecución.
+ * </p>
+ * <p>
+ * Si se indica un clasificador local, los nombres que resuelve con confianza
+ * suficiente no se envían a la IA.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>iaCategoriasLote: nombres por petición como máximo (por defecto 40)</li>
+ * <li>iaCategoriasReintentos: veces que se vuelven a pedir los nombres que fallaron (por defecto 2)</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class CategorizadorLotes {
+
+    /**
+     * Respuesta válida para los nombres que no encajan en ninguna categoría.
+     */
+    public static final String DESCONOCIDO = "Desconocido";
+
+    private final LlmService llm;
+    private final ClasificadorCategorias clasificador;
+    private final int tamanoLote;
+    private final int reintentos;
+
+    private final LongAdder peticiones = new LongAdder();
+    private final LongAdder resueltasLocal = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+
+    /**
+     * Crea el categorizador.
+     *
+     * @param llm          Servicio de IA
+     * @param clasificador Clasificador local que se consulta antes que la IA, o
+     *                     null para enviar todos los nombres
+     * @param tamanoLote   Nombres por petición como máximo
+     * @param reintentos   Veces que se vuelven a pedir los nombres que fallaron
+     */
+    public CategorizadorLotes(LlmService llm, ClasificadorCategorias clasificador, int tamanoLote, int reintentos) {
+        this.llm = llm;
+        this.clasificador = clasificador;
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.reintentos = Math.max(0, reintentos);
+    }
+
+    /**
+     * Crea un categorizador con el servicio de IA y el clasificador compartidos
+     * y la configuración de config.properties.
+     *
+     * @return Categorizador configurado
+     */
+    public static CategorizadorLotes conConfiguracion() {
+        return new CategorizadorLotes(LlmService.getInstancia(), ClasificadorCategorias.getInstancia(),
+                ConfigLoader.getIntProperty("iaCategoriasLote", 40),
+                ConfigLoader.getIntProperty("iaCategoriasReintentos", 2));
+    }
+
+    /**
+     * Prompt con el que se pide a la IA la categoría de varios productos.
+     *
+     * @param nombres Nombres de los productos
+     * @return Texto que se envía al modelo
+     */
+    public static String prompt(List<String> nombres) {
+        StringBuilder prompt = new StringBuilder()
+                .append("En español: Para cada producto otaku de la lista, sugiere una categoría adecuada de esta lista: ")
+                .append(String.join(", ", ClasificadorCategorias.CATEGORIAS)).append(". ")
+                .append("Si el nombre del producto es extraño (ej. djhdftj, etc) la categoría debe ser ")
+                .append(DESCONOCIDO).append(". ")
+                .append("Responde solo con un objeto JSON, sin texto adicional, que asigne a cada número de la lista ")
+                .append("su categoría, con este formato: {\"1\": \"Figura\", \"2\": \"Manga\"}.\nProductos:\n");
+        for (int i = 0; i < nombres.size(); i++) {
+            // Un producto por línea: los saltos de línea del nombre romperían la lista
+            prompt.append(i + 1).append(". ").append(nombres.get(i).replaceAll("\\s+", " ").strip()).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * Sugiere la categoría de cada nombre.
+     *
+     * @param nombres Nombres de los productos
+     * @return Categoría de cada nombre, en el mismo orden: una de
+     *         {@link ClasificadorCategorias#CATEGORIAS}, {@link #DESCONOCIDO} o
+     *         null si no se pudo obtener tras los reintentos
+     * @throws RuntimeException Si la variable de entorno OPENROUTER_API_KEY no está
+     *                          definida.
+     */
+    public List<String> categorizar(List<String> nombres) {
+
+        String[] categorias = new String[nombres.size()];
+        List<Integer> pendientes = new ArrayList<>();
+
+        for (int i = 0; i < nombres.size(); i++) {
+            ClasificadorCategorias.Prediccion local =
+                    clasificador != null ? clasificador.resolverLocal(nombres.get(i)) : null;
+            if (local != null) {
+                categorias[i] = local.categoria();
+                resueltasLocal.increment();
+            } else {
+                pendientes.add(i);
+            }
+        }
+
+        for (int desde = 0; desde < pendientes.size(); desde += tamanoLote) {
+            resolver(nombres, pendientes.subList(desde, Math.min(desde + tamanoLote, pendientes.size())),
+                    categorias, 0);
+        }
+
+        return Arrays.asList(categorias);
+    }
+
+    /**
+     * Pone categoría a los productos que no la tienen (por ejemplo, antes de
+     * guardar un lote importado). Los productos que la IA no reconoce o que no
+     * se pudieron categorizar se quedan sin categoría.
+     *
+     * @param productos Productos del lote
+     * @return Número de productos a los que se puso categoría
+     */
+    public int completarCategorias(List<ProductoOtaku> productos) {
+
+        List<ProductoOtaku> sinCategoria = productos.stream()
+                .filter(p -> p.getCategoria() == null || p.getCategoria().isBlank())
+                .toList();
+
+        List<String> categorias = categorizar(sinCategoria.stream().map(ProductoOtaku::getNombre).toList());
+
+        int completadas = 0;
+        for (int i = 0; i < sinCategoria.size(); i++) {
+            String categoria = categorias.get(i);
+            if (categoria != null && !categoria.equals(DESCONOCIDO)) {
+                sinCategoria.get(i).setCategoria(categoria);
+                completadas++;
+            }
+        }
+        return completadas;
+    }
+
+    /**
+     * Número de peticiones enviadas a la IA.
+     *
+     * @return Peticiones acumuladas
+     */
+    public long getPeticiones() {
+        return peticiones.sum();
+    }
+
+    /**
+     * Número de nombres resueltos por el clasificador local.
+     *
+     * @return Nombres resueltos sin consultar a la IA
+     */
+    public long getResueltasLocal() {
+        return resueltasLocal.sum();
+    }
+
+    /**
+     * Número de nombres que se quedaron sin categoría tras los reintentos.
+     *
+     * @return Nombres fallidos acumulados
+     */
+    public long getFallidas() {
+        return fallidas.sum();
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Pide la categoría de los nombres indicados en una petición y vuelve a
+     * pedir los que fallen.
+     *
+     * @param indices Posiciones en {@code nombres} de los nombres que se piden
+     * @param intento Número de intento, empezando por 0
+     */
+    private void resolver(List<String> nombres, List<Integer> indices, String[] categorias, int intento) {
+
+        List<String> lote = indices.stream().map(nombres::get).toList();
+
+        // Una respuesta incompleta no se guarda en la caché: la próxima vez se pide de nuevo
+        String contenido = LlmService.contenido(llm.oraculoDigital(prompt(lote), false,
+                generado -> leer(generado, lote.size()).size() == lote.size()));
+        peticiones.increment();
+
+        Map<Integer, String> leidas = leer(contenido, lote.size());
+
+        List<Integer> fallidos = new ArrayList<>();
+        for (int k = 0; k < indices.size(); k++) {
+            String categoria = leidas.get(k + 1);
+            if (categoria != null) {
+                categorias[indices.get(k)] = categoria;
+            } else {
+                fallidos.add(indices.get(k));
+            }
+        }
+
+        if (fallidos.isEmpty()) {
+            return;
+        }
+        if (intento >= reintentos) {
+            fallidas.add(fallidos.size());
+            return;
+        }
+
+        if (contenido != null && leidas.isEmpty() && fallidos.size() > 1) {
+            // La respuesta entera no sirve: se parte el lote por si algún nombre confunde al modelo
+            int mitad = fallidos.size() / 2;
+            resolver(nombres, fallidos.subList(0, mitad), categorias, intento + 1);
+            resolver(nombres, fallidos.subList(mitad, fallidos.size()), categorias, intento + 1);
+        } else {
+            resolver(nombres, fallidos, categorias, intento + 1);
+        }
+    }
+
+    /**
+     * Lee las categorías válidas de la respuesta del modelo.
+     *
+     * @param contenido Texto generado (puede venir rodeado de texto o de un
+     *                  bloque de código)
+     * @param total     Número de nombres que se pidieron
+     * @return Categoría de cada número de la lista, solo para los números y
+     *         categorías válidos
+     */
+    private static Map<Integer, String> leer(String contenido, int total) {
+
+        Map<Integer, String> leidas = new HashMap<>();
+
+        int inicio = contenido != null ? contenido.indexOf('{') : -1;
+        int fin = contenido != null ? contenido.lastIndexOf('}') : -1;
+        if (inicio < 0 || fin < inicio) {
+            return leidas;
+        }
+
+        JsonObject json;
+        try {
+            json = JsonParser.parseString(contenido.substring(inicio, fin + 1)).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            return leidas;
+        }
+
+        for (Map.Entry<String, JsonElement> entrada : json.entrySet()) {
+            int numero;
+            try {
+                numero = Integer.parseInt(entrada.getKey().strip());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            String categoria = entrada.getValue().isJsonPrimitive() ? categoria(entrada.getValue().getAsString()) : null;
+            if (numero >= 1 && numero <= total && categoria != null) {
+                leidas.put(numero, categoria);
+            }
+        }
+        return leidas;
+    }
+
+    /**
+     * Categoría válida que corresponde al texto del modelo, sin tener en cuenta
+     * mayúsculas ni tildes.
+     *
+     * @return Categoría tal como está en la lista, o null si no es ninguna
+     */
+    private static String categoria(String texto) {
+        String buscada = IndiceProductos.normalizar(texto);
+        if (buscada.equals(IndiceProductos.normalizar(DESCONOCIDO))) {
+            return DESCONOCIDO;
+        }
+        for (String categoria : ClasificadorCategorias.CATEGORIAS) {
+            if (buscada.equals(IndiceProductos.normalizar(categoria))) {
+                return categoria;
+            }
+        }
+        return null;
+    }
+
+}
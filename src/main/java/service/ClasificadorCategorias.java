@@ -0,0 +1,387 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import config.ConfigLoader;
+import dao.IndiceProductos;
+import model.ProductoOtaku;
+
+/**
+ * Clasificador local que sugiere la categoría de un producto a partir de su
+ * nombre, sin consultar a la IA.
+ * <p>
+ * Es un clasificador bayesiano ingenuo (multinomial) sobre los n-gramas de 2 a 4
+ * caracteres de cada palabra del nombre normalizado, entrenado con los productos
+ * del catálogo que ya tienen una de las {@link #CATEGORIAS} (los de otras
+ * categorías se ignoran). Responde en microsegundos con una confianza entre 0 y
+ * 1: la probabilidad de la categoría elegida multiplicada por la proporción de
+ * n-gramas del nombre que aparecieron en el entrenamiento, de modo que un nombre
+ * extraño (por ejemplo "djhdftj") tiene confianza baja aunque una categoría
+ * destaque sobre las demás.
+ * </p>
+ * <p>
+ * Con {@link #resolverLocal(String)} solo se acepta la respuesta si la confianza
+ * llega al umbral y el modelo se entrenó con suficientes productos; si no, quien
+ * llama debe preguntar a la IA. El modelo se entrena en segundo plano la primera
+ * vez que se pide y se vuelve a entrenar cada {@code iaClasificadorRecargaMs}
+ * para aprender de los productos nuevos; mientras tanto se sigue usando el
+ * anterior. Se puede usar desde varios hilos.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>iaClasificadorUmbral: confianza mínima para no consultar a la IA (por defecto 0.8)</li>
+ * <li>iaClasificadorMinEjemplos: productos necesarios para fiarse del modelo (por defecto 50)</li>
+ * <li>iaClasificadorRecargaMs: cada cuánto se vuelve a entrenar (por defecto 600000)</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class ClasificadorCategorias {
+
+    /**
+     * Categorías que puede sugerir el clasificador (las mismas que se piden a la IA).
+     */
+    public static final List<String> CATEGORIAS =
+            List.of("Figura", "Manga", "Póster", "Llavero", "Ropa", "Videojuego", "Otro");
+
+    // Longitud mínima y máxima de los n-gramas
+    private static final int MIN_N = 2;
+    private static final int MAX_N = 4;
+
+    // Suavizado de Laplace para los n-gramas que no aparecen en una categoría
+    private static final double ALFA = 1.0;
+
+    // Instancia única del clasificador (se crea en la primera consulta)
+    private static volatile ClasificadorCategorias instancia;
+
+    private final double umbral;
+    private final int minEjemplos;
+    private final long recargaMs;
+
+    // Modelo entrenado (null hasta el primer entrenamiento) y estado de la carga
+    private volatile Modelo modelo;
+    private boolean entrenando;
+    private long entrenadoEn;
+
+    private long resueltasLocal;
+    private long derivadasIa;
+
+    /**
+     * Crea un clasificador sin entrenar.
+     *
+     * @param umbral      Confianza mínima para aceptar la respuesta local
+     * @param minEjemplos Productos de entrenamiento necesarios para aceptarla
+     * @param recargaMs   Cada cuánto se vuelve a entrenar el modelo
+     */
+    public ClasificadorCategorias(double umbral, int minEjemplos, long recargaMs) {
+        this.umbral = umbral;
+        this.minEjemplos = minEjemplos;
+        this.recargaMs = recargaMs;
+    }
+
+    /**
+     * Obtiene el clasificador compartido, configurado con config.properties.
+     *
+     * @return Instancia única del clasificador
+     */
+    public static ClasificadorCategorias getInstancia() {
+        ClasificadorCategorias clasificador = instancia;
+        if (clasificador == null) {
+            synchronized (ClasificadorCategorias.class) {
+                clasificador = instancia;
+                if (clasificador == null) {
+                    instancia = clasificador = new ClasificadorCategorias(
+                            ConfigLoader.getDoubleProperty("iaClasificadorUmbral", 0.8),
+                            ConfigLoader.getIntProperty("iaClasificadorMinEjemplos", 50),
+                            ConfigLoader.getIntProperty("iaClasificadorRecargaMs", 600_000));
+                }
+            }
+        }
+        return clasificador;
+    }
+
+    /**
+     * Prompt con el que se pide a la IA la categoría de un producto.
+     *
+     * @param nombre Nombre del producto
+     * @return Texto que se envía al modelo
+     */
+    public static String prompt(String nombre) {
+        return "En español: Para un producto otaku llamado " + nombre
+                + ", sugiere una categoría adecuada de esta lista: " + String.join(", ", CATEGORIAS) + ". "
+                + "Responde en este formato: Categoría: 'Nombre de la categoría'. "
+                + "Comprueba que si el nombre del producto es extraño (ej. djhdftj, etc) la respuesta sea Desconocido.";
+    }
+
+    /**
+     * Lanza el entrenamiento en un hilo en segundo plano si el modelo no existe o
+     * si ha pasado el tiempo de recarga. Mientras se entrena se sigue usando el
+     * modelo anterior.
+     *
+     * @param cargador Función que pasa todos los productos a la acción recibida y
+     *                 devuelve cuántos recorrió (negativo si falló)
+     */
+    public void asegurarEntrenamiento(ToIntFunction<Consumer<ProductoOtaku>> cargador) {
+
+        synchronized (this) {
+            boolean caducado = System.currentTimeMillis() - entrenadoEn > recargaMs;
+            if (entrenando || (modelo != null && !caducado)) {
+                return;
+            }
+            entrenando = true;
+        }
+
+        Thread hilo = new Thread(() -> entrenar(cargador), "clasificador-categorias");
+        hilo.setDaemon(true);
+        hilo.setPriority(Thread.MIN_PRIORITY);
+        hilo.start();
+    }
+
+    /**
+     * Entrena el modelo con los productos dados, en el hilo que llama, y lo
+     * sustituye por el actual.
+     *
+     * @param cargador Función que pasa todos los productos a la acción recibida y
+     *                 devuelve cuántos recorrió (negativo si falló)
+     * @return true si se entrenó el modelo
+     */
+    public boolean entrenar(ToIntFunction<Consumer<ProductoOtaku>> cargador) {
+        try {
+            Entrenamiento entrenamiento = new Entrenamiento();
+            if (cargador.applyAsInt(entrenamiento::aprender) < 0) {
+                return false;  // Se reintentará en la próxima consulta
+            }
+            Modelo nuevo = entrenamiento.modelo();
+            synchronized (this) {
+                modelo = nuevo;
+                entrenadoEn = System.currentTimeMillis();
+            }
+            return true;
+        } finally {
+            synchronized (this) {
+                entrenando = false;
+            }
+        }
+    }
+
+    /**
+     * Clasifica un nombre de producto.
+     *
+     * @param nombre Nombre del producto
+     * @return Categoría más probable con su confianza, o null si el modelo aún no
+     *         se ha entrenado o no tiene ejemplos
+     */
+    public Prediccion clasificar(String nombre) {
+        Modelo actual = modelo;
+        return actual == null || actual.ejemplos == 0 ? null : actual.clasificar(nombre);
+    }
+
+    /**
+     * Clasifica un nombre de producto si la respuesta local es fiable.
+     *
+     * @param nombre Nombre del producto
+     * @return Predicción con confianza suficiente, o null si hay que preguntar a la IA
+     */
+    public Prediccion resolverLocal(String nombre) {
+        Modelo actual = modelo;
+        Prediccion prediccion = actual != null && actual.ejemplos >= minEjemplos ? clasificar(nombre) : null;
+        boolean fiable = prediccion != null && prediccion.confianza() >= umbral;
+        synchronized (this) {
+            if (fiable) {
+                resueltasLocal++;
+            } else {
+                derivadasIa++;
+            }
+        }
+        return fiable ? prediccion : null;
+    }
+
+    /**
+     * Número de productos con los que se entrenó el modelo actual.
+     *
+     * @return Ejemplos de entrenamiento (0 si no está entrenado)
+     */
+    public int getEjemplos() {
+        Modelo actual = modelo;
+        return actual == null ? 0 : actual.ejemplos;
+    }
+
+    /**
+     * Número de consultas resueltas sin la IA.
+     *
+     * @return Consultas resueltas por el clasificador local
+     */
+    public synchronized long getResueltasLocal() {
+        return resueltasLocal;
+    }
+
+    /**
+     * Número de consultas que hubo que pasar a la IA.
+     *
+     * @return Consultas sin respuesta local fiable
+     */
+    public synchronized long getDerivadasIa() {
+        return derivadasIa;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ClasificadorCategorias[ejemplos=%d, resueltasLocal=%d, derivadasIa=%d]",
+                getEjemplos(), resueltasLocal, derivadasIa);
+    }
+
+    /**
+     * Categoría sugerida para un producto.
+     *
+     * @param categoria Categoría más probable
+     * @param confianza Confianza de la sugerencia, entre 0 y 1
+     */
+    public record Prediccion(String categoria, double confianza) {
+
+        /**
+         * Texto de la sugerencia en el mismo formato que pide a la IA.
+         *
+         * @return Sugerencia con la confianza en porcentaje
+         */
+        public String texto() {
+            return String.format(Locale.ROOT, "Categoría: '%s' (clasificador local, confianza %.0f %%)",
+                    categoria, confianza * 100);
+        }
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Obtiene los n-gramas de un nombre. Cada palabra se rellena con un espacio
+     * a cada lado para distinguir los inicios y finales de palabra.
+     */
+    private static List<String> ngramas(String nombre) {
+        List<String> resultado = new ArrayList<>();
+        for (String palabra : IndiceProductos.normalizar(nombre).split(" ")) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            String relleno = " " + palabra + " ";
+            for (int n = MIN_N; n <= MAX_N; n++) {
+                for (int i = 0; i + n <= relleno.length(); i++) {
+                    resultado.add(relleno.substring(i, i + n));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Posición en {@link #CATEGORIAS} de una categoría escrita a mano (sin
+     * distinguir mayúsculas ni tildes), o -1 si no es ninguna de ellas.
+     */
+    private static int indiceCategoria(String categoria) {
+        String normalizada = IndiceProductos.normalizar(categoria);
+        for (int i = 0; i < CATEGORIAS.size(); i++) {
+            if (IndiceProductos.normalizar(CATEGORIAS.get(i)).equals(normalizada)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recuentos que se van acumulando al recorrer los productos.
+     */
+    private static final class Entrenamiento {
+        private final int[] productos = new int[CATEGORIAS.size()];
+        private final long[] totales = new long[CATEGORIAS.size()];
+        private final Map<String, int[]> recuentos = new HashMap<>();
+
+        private void aprender(ProductoOtaku producto) {
+            int categoria = indiceCategoria(producto.getCategoria());
+            if (categoria < 0) {
+                return;
+            }
+            productos[categoria]++;
+            for (String ngrama : ngramas(producto.getNombre())) {
+                recuentos.computeIfAbsent(ngrama, k -> new int[CATEGORIAS.size()])[categoria]++;
+                totales[categoria]++;
+            }
+        }
+
+        /**
+         * Convierte los recuentos en logaritmos de probabilidad, para que
+         * clasificar solo tenga que sumar.
+         */
+        private Modelo modelo() {
+            int ejemplos = 0;
+            for (int n : productos) {
+                ejemplos += n;
+            }
+            int categorias = CATEGORIAS.size();
+            double[] previas = new double[categorias];
+            double[] desconocidos = new double[categorias];
+            for (int c = 0; c < categorias; c++) {
+                // Las categorías sin ejemplos quedan descartadas
+                previas[c] = productos[c] == 0 ? Double.NEGATIVE_INFINITY : Math.log((double) productos[c] / ejemplos);
+                desconocidos[c] = Math.log(ALFA / (totales[c] + ALFA * recuentos.size()));
+            }
+            Map<String, double[]> pesos = new HashMap<>(recuentos.size() * 2);
+            recuentos.forEach((ngrama, recuento) -> {
+                double[] peso = new double[categorias];
+                for (int c = 0; c < categorias; c++) {
+                    peso[c] = Math.log((recuento[c] + ALFA) / (totales[c] + ALFA * recuentos.size()));
+                }
+                pesos.put(ngrama, peso);
+            });
+            return new Modelo(ejemplos, previas, desconocidos, pesos);
+        }
+    }
+
+    /**
+     * Modelo entrenado (no cambia una vez creado).
+     *
+     * @param ejemplos     Productos usados en el entrenamiento
+     * @param previas      Logaritmo de la proporción de productos de cada categoría
+     * @param desconocidos Logaritmo de la probabilidad de un n-grama nunca visto en cada categoría
+     * @param pesos        Logaritmo de la probabilidad de cada n-grama en cada categoría
+     */
+    private record Modelo(int ejemplos, double[] previas, double[] desconocidos, Map<String, double[]> pesos) {
+
+        private Prediccion clasificar(String nombre) {
+            List<String> ngramas = ngramas(nombre);
+            double[] puntuaciones = previas.clone();
+            int conocidos = 0;
+            for (String ngrama : ngramas) {
+                double[] peso = pesos.get(ngrama);
+                if (peso != null) {
+                    conocidos++;
+                }
+                for (int c = 0; c < puntuaciones.length; c++) {
+                    puntuaciones[c] += peso != null ? peso[c] : desconocidos[c];
+                }
+            }
+
+            int mejor = 0;
+            for (int c = 1; c < puntuaciones.length; c++) {
+                if (puntuaciones[c] > puntuaciones[mejor]) {
+                    mejor = c;
+                }
+            }
+
+            // Probabilidad de la mejor categoría (restando el máximo para no desbordar)
+            double suma = 0;
+            for (double puntuacion : puntuaciones) {
+                suma += Math.exp(puntuacion - puntuaciones[mejor]);
+            }
+            double cobertura = ngramas.isEmpty() ? 0 : (double) conocidos / ngramas.size();
+            return new Prediccion(CATEGORIAS.get(mejor), cobertura / suma);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package service;
+
+import java.time.Duration;
+
+/**
+ * Disyuntor (circuit breaker) que corta las peticiones a un servicio mientras
+ * está caído, en lugar de esperar a que cada una falle por su cuenta.
+ * <p>
+ * Tras un número de fallos seguidos se abre: durante el tiempo de apertura
+ * {@link #permitir()} rechaza las peticiones al instante. Pasado ese tiempo deja
+ * pasar una sola petición de prueba; si sale bien se cierra y si falla vuelve a
+ * abrirse. Si la prueba no informa de su resultado (por ejemplo, porque se
+ * canceló) se permite otra al cabo del mismo tiempo.
+ * </p>
+ * <p>
+ * Se puede usar desde varios hilos.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class Disyuntor {
+
+    /**
+     * Estado del disyuntor.
+     */
+    public enum Estado {
+        /** Deja pasar todas las peticiones. */
+        CERRADO,
+        /** Rechaza las peticiones. */
+        ABIERTO,
+        /** Deja pasar una petición de prueba. */
+        SEMIABIERTO
+    }
+
+    private final int umbralFallos;
+    private final long aperturaNanos;
+
+    private int fallosSeguidos;
+
+    // Instante hasta el que está abierto (0 si está cerrado)
+    private long abiertoHasta;
+
+    // Instante hasta el que se espera el resultado de la prueba (0 si no hay prueba en curso)
+    private long pruebaHasta;
+
+    private long aperturas;
+    private long rechazos;
+
+    /**
+     * Crea un disyuntor cerrado.
+     *
+     * @param umbralFallos Fallos seguidos que lo abren
+     * @param apertura     Tiempo que permanece abierto antes de probar de nuevo
+     */
+    public Disyuntor(int umbralFallos, Duration apertura) {
+        this.umbralFallos = Math.max(1, umbralFallos);
+        this.aperturaNanos = apertura.toNanos();
+    }
+
+    /**
+     * Indica si se puede lanzar una petición. Quien recibe true debe informar
+     * después del resultado con {@link #exito()} o {@link #fallo()}.
+     *
+     * @return true si la petición puede lanzarse, false si debe fallar sin lanzarla
+     */
+    public synchronized boolean permitir() {
+        if (abiertoHasta == 0) {
+            return true;
+        }
+        long ahora = System.nanoTime();
+        if (ahora - abiertoHasta < 0 || (pruebaHasta != 0 && ahora - pruebaHasta < 0)) {
+            rechazos++;
+            return false;
+        }
+        // Semiabierto: esta petición es la prueba
+        pruebaHasta = ahora + aperturaNanos;
+        return true;
+    }
+
+    /**
+     * Informa de que una petición ha llegado al servicio. Cierra el disyuntor.
+     */
+    public synchronized void exito() {
+        fallosSeguidos = 0;
+        abiertoHasta = 0;
+        pruebaHasta = 0;
+    }
+
+    /**
+     * Informa de que una petición ha fallado por un problema del servicio. Abre
+     * el disyuntor si se alcanza el umbral o si era la petición de prueba.
+     */
+    public synchronized void fallo() {
+        fallosSeguidos++;
+        if (pruebaHasta != 0 || (abiertoHasta == 0 && fallosSeguidos >= umbralFallos)) {
+            if (abiertoHasta == 0) {
+                aperturas++;
+            }
+            abiertoHasta = System.nanoTime() + aperturaNanos;
+            pruebaHasta = 0;
+        }
+    }
+
+    /**
+     * Estado actual del disyuntor.
+     *
+     * @return Cerrado, abierto o semiabierto
+     */
+    public synchronized Estado getEstado() {
+        if (abiertoHasta == 0) {
+            return Estado.CERRADO;
+        }
+        return System.nanoTime() - abiertoHasta < 0 ? Estado.ABIERTO : Estado.SEMIABIERTO;
+    }
+
+    /**
+     * Tiempo que falta para que deje pasar una petición de prueba.
+     *
+     * @return Tiempo restante de apertura (cero si no está abierto)
+     */
+    public synchronized Duration getRestante() {
+        return abiertoHasta == 0 ? Duration.ZERO : Duration.ofNanos(Math.max(0, abiertoHasta - System.nanoTime()));
+    }
+
+    /**
+     * Número de veces que se ha abierto.
+     *
+     * @return Aperturas acumuladas
+     */
+    public synchronized long getAperturas() {
+        return aperturas;
+    }
+
+    /**
+     * Número de peticiones rechazadas sin lanzarlas.
+     *
+     * @return Rechazos acumulados
+     */
+    public synchronized long getRechazos() {
+        return rechazos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Disyuntor[estado=%s, aperturas=%d, rechazos=%d]", getEstado(), aperturas, rechazos);
+    }
+
+}
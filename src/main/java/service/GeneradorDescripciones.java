@@ -0,0 +1,401 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import config.ConfigLoader;
+import model.ProductoOtaku;
+
+/**
+ * Genera con IA la descripción de todos los productos del catálogo que no la
+ * tienen y la guarda en la base de datos.
+ * <p>
+ * Recorre por páginas, en orden de ID, los productos sin descripción y lanza
+ * una petición por producto, con un máximo de peticiones en curso a la vez y de
+ * peticiones por segundo. Como solo se piden los productos sin descripción, si
+ * la ejecución se interrumpe (se cancela, falla la red o se cierra el
+ * programa) la siguiente continúa donde se quedó y reintenta los que fallaron.
+ * </p>
+ * <p>
+ * Cada descripción se anota además, en cuanto llega y antes de guardarla, en
+ * un registro (una línea JSON por producto). Si no se pudo guardar (por
+ * ejemplo, porque la base de datos no respondía), la siguiente ejecución la
+ * recupera del registro en lugar de volver a pedirla, siempre que el nombre y
+ * la categoría del producto no hayan cambiado.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>iaLoteParalelismo: peticiones en curso a la vez (por defecto 4)</li>
+ * <li>iaLotePeticionesSegundo: peticiones por segundo como máximo (por defecto 2, 0 sin límite)</li>
+ * <li>iaLoteSalida: registro de las descripciones generadas (por defecto descripciones_ia.jsonl)</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class GeneradorDescripciones {
+
+    // Productos que se leen de la base de datos en cada página
+    private static final int TAMANO_PAGINA = 200;
+
+    // Tiempo mínimo entre dos avisos de progreso
+    private static final long AVISO_MS = 1000;
+
+    /**
+     * Estado de una ejecución.
+     *
+     * @param completados Descripciones generadas y guardadas en esta ejecución
+     * @param fallidos    Productos que no se pudieron describir o guardar en esta ejecución
+     * @param total       Productos sin descripción al empezar la ejecución
+     * @param yaHechos    Descripciones recuperadas del registro sin volver a pedirlas
+     * @param porSegundo  Productos terminados por segundo
+     * @param restante    Tiempo estimado hasta terminar, o null si todavía no se puede estimar
+     */
+    public record Progreso(int completados, int fallidos, int total, int yaHechos,
+                           double porSegundo, Duration restante) {
+
+        /**
+         * @return true si se han procesado todos los productos pendientes
+         */
+        public boolean terminado() {
+            return completados + fallidos + yaHechos >= total;
+        }
+
+        @Override
+        public String toString() {
+            String eta = restante == null ? "calculando..."
+                    : String.format("%d:%02d:%02d", restante.toHours(), restante.toMinutesPart(), restante.toSecondsPart());
+            return String.format("%d/%d descripciones (%d fallidas, %d recuperadas) · %.2f/s · quedan %s",
+                    completados, total, fallidos, yaHechos, porSegundo, eta);
+        }
+    }
+
+    private final LlmService llm;
+    private final IntSupplier contarPendientes;
+    private final BiFunction<Integer, Integer, List<ProductoOtaku>> cargarPendientes;
+    private final BiPredicate<ProductoOtaku, String> guardar;
+    private final Path salida;
+    private final int paralelismo;
+    private final LimitadorTasa limitador;
+
+    private volatile boolean cancelado;
+
+    // Estado de la ejecución en curso (solo se accede con el bloqueo del objeto)
+    private int completados;
+    private int fallidos;
+    private int recuperados;
+    private long ultimoAviso;
+
+    /**
+     * Crea un generador.
+     *
+     * @param llm                  Servicio de IA
+     * @param contarPendientes     Cuenta los productos sin descripción
+     * @param cargarPendientes     Consulta de los productos sin descripción con ID mayor que el
+     *                             primer argumento, ordenados por ID y limitados por el segundo
+     * @param guardar              Guarda la descripción de un producto; devuelve false si no se
+     *                             guardó (por ejemplo, porque el producto cambió mientras tanto)
+     * @param salida               Registro de las descripciones generadas
+     * @param paralelismo          Peticiones en curso a la vez
+     * @param peticionesPorSegundo Peticiones por segundo como máximo (0 o menos sin límite)
+     */
+    public GeneradorDescripciones(LlmService llm, IntSupplier contarPendientes,
+                                  BiFunction<Integer, Integer, List<ProductoOtaku>> cargarPendientes,
+                                  BiPredicate<ProductoOtaku, String> guardar,
+                                  Path salida, int paralelismo, double peticionesPorSegundo) {
+        this.llm = llm;
+        this.contarPendientes = contarPendientes;
+        this.cargarPendientes = cargarPendientes;
+        this.guardar = guardar;
+        this.salida = salida;
+        this.paralelismo = Math.max(1, paralelismo);
+        this.limitador = new LimitadorTasa(peticionesPorSegundo);
+    }
+
+    /**
+     * Crea un generador con el servicio de IA compartido y la configuración de
+     * config.properties.
+     *
+     * @param contarPendientes Cuenta los productos sin descripción
+     * @param cargarPendientes Consulta de una página de productos sin descripción ordenados por ID
+     * @param guardar          Guarda la descripción de un producto
+     * @return Generador configurado
+     */
+    public static GeneradorDescripciones conConfiguracion(IntSupplier contarPendientes,
+                                                          BiFunction<Integer, Integer, List<ProductoOtaku>> cargarPendientes,
+                                                          BiPredicate<ProductoOtaku, String> guardar) {
+        return new GeneradorDescripciones(LlmService.getInstancia(), contarPendientes, cargarPendientes, guardar,
+                Path.of(ConfigLoader.getProperty("iaLoteSalida", "descripciones_ia.jsonl")),
+                ConfigLoader.getIntProperty("iaLoteParalelismo", 4),
+                ConfigLoader.getDoubleProperty("iaLotePeticionesSegundo", 2));
+    }
+
+    /**
+     * Prompt con el que se pide la descripción de un producto.
+     *
+     * @param producto Producto a describir
+     * @return Texto que se envía al modelo
+     */
+    public static String prompt(ProductoOtaku producto) {
+        return "En español: Genera una descripción de marketing breve de no más de 15 palabras y atractiva para el producto otaku: "
+                + producto.getNombre() + " de la categoría " + producto.getCategoria() + ".";
+    }
+
+    /**
+     * Genera y guarda las descripciones de los productos que todavía no la tienen.
+     * <p>
+     * Bloquea hasta terminar o hasta que se cancele; las peticiones en curso al
+     * cancelar se dejan acabar y se guardan.
+     * </p>
+     *
+     * @param alAvanzar Recibe el progreso como mucho una vez por segundo y al terminar
+     * @return Progreso final de la ejecución
+     * @throws IOException Si no se puede leer o escribir el registro
+     */
+    public Progreso ejecutar(Consumer<Progreso> alAvanzar) throws IOException {
+
+        cancelado = false;
+        Map<Integer, JsonObject> registro = leerRegistro();
+        int total = contarPendientes.getAsInt();
+
+        synchronized (this) {
+            completados = 0;
+            fallidos = 0;
+            recuperados = 0;
+            ultimoAviso = 0;
+        }
+
+        terminarUltimaLinea();
+
+        long inicio = System.nanoTime();
+        Semaphore huecos = new Semaphore(paralelismo);
+
+        try (BufferedWriter escritor = Files.newBufferedWriter(salida, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            int despues = 0;
+            recorrido:
+            while (!cancelado) {
+                List<ProductoOtaku> pagina = cargarPendientes.apply(despues, TAMANO_PAGINA);
+                if (pagina.isEmpty()) {
+                    break;
+                }
+                for (ProductoOtaku producto : pagina) {
+                    despues = producto.getId();
+                    if (recuperar(producto, registro.get(producto.getId()))) {
+                        continue;
+                    }
+                    huecos.acquireUninterruptibly();
+                    if (cancelado) {
+                        huecos.release();
+                        break recorrido;
+                    }
+                    hilos.execute(() -> {
+                        try {
+                            describir(producto, escritor);
+                        } finally {
+                            huecos.release();
+                            avisar(alAvanzar, total, inicio, false);
+                        }
+                    });
+                }
+            }
+        }
+        // Al cerrar el ejecutor se ha esperado a todas las peticiones
+
+        return avisar(alAvanzar, total, inicio, true);
+    }
+
+    /**
+     * Deja de lanzar peticiones. Las que están en curso terminan y se guardan, y
+     * {@link #ejecutar(Consumer)} vuelve en cuanto acaban.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    /**
+     * Borra el registro de descripciones generadas.
+     *
+     * @throws IOException Si no se puede borrar el archivo
+     */
+    public void reiniciar() throws IOException {
+        Files.deleteIfExists(salida);
+    }
+
+    /**
+     * Número de productos con alguna descripción en el registro.
+     *
+     * @return Productos descritos alguna vez
+     * @throws IOException Si no se puede leer el archivo
+     */
+    public int getGuardadas() throws IOException {
+        return leerRegistro().size();
+    }
+
+    /**
+     * Archivo donde se registran las descripciones generadas.
+     *
+     * @return Ruta del registro
+     */
+    public Path getSalida() {
+        return salida;
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Guarda la descripción registrada en una ejecución anterior si se generó
+     * para el mismo nombre y la misma categoría.
+     *
+     * @return true si se guardó y no hace falta pedirla
+     */
+    private boolean recuperar(ProductoOtaku producto, JsonObject linea) {
+        if (linea == null || !linea.has("descripcion")
+                || !Objects.equals(texto(linea, "nombre"), producto.getNombre())
+                || !Objects.equals(texto(linea, "categoria"), producto.getCategoria())
+                || !guardar.test(producto, linea.get("descripcion").getAsString())) {
+            return false;
+        }
+        synchronized (this) {
+            recuperados++;
+        }
+        return true;
+    }
+
+    /**
+     * Pide la descripción de un producto, la anota en el registro y la guarda.
+     */
+    private void describir(ProductoOtaku producto, BufferedWriter escritor) {
+        String descripcion = null;
+        try {
+            limitador.esperarTurno();
+            descripcion = LlmService.contenido(llm.oraculoDigital(prompt(producto)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Por ejemplo, sin clave API: los demás productos fallarían igual
+            System.err.println("Error al describir el producto " + producto.getId() + ": " + e.getMessage());
+            cancelar();
+        }
+
+        if (descripcion != null) {
+            registrar(producto, descripcion, escritor);
+        }
+        boolean guardada = descripcion != null && guardar.test(producto, descripcion);
+
+        synchronized (this) {
+            if (guardada) {
+                completados++;
+            } else {
+                fallidos++;
+            }
+        }
+    }
+
+    /**
+     * Añade la descripción al registro antes de guardarla, para no perderla si
+     * falla la base de datos.
+     */
+    private synchronized void registrar(ProductoOtaku producto, String descripcion, BufferedWriter escritor) {
+        JsonObject linea = new JsonObject();
+        linea.addProperty("id", producto.getId());
+        linea.addProperty("nombre", producto.getNombre());
+        linea.addProperty("categoria", producto.getCategoria());
+        linea.addProperty("descripcion", descripcion);
+        try {
+            escritor.write(linea.toString());
+            escritor.newLine();
+            escritor.flush();
+        } catch (IOException e) {
+            System.err.println("Error al registrar la descripción del producto " + producto.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Calcula el progreso y lo entrega si ha pasado un segundo desde el último aviso
+     * o si se pide el final.
+     */
+    private Progreso avisar(Consumer<Progreso> alAvanzar, int total, long inicio, boolean fin) {
+        Progreso progreso;
+        synchronized (this) {
+            long ahora = System.currentTimeMillis();
+            if (!fin && ahora - ultimoAviso < AVISO_MS) {
+                return null;
+            }
+            ultimoAviso = ahora;
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            int terminados = completados + fallidos;
+            double porSegundo = segundos > 0 ? terminados / segundos : 0;
+            Duration restante = porSegundo > 0
+                    ? Duration.ofSeconds((long) Math.ceil(Math.max(0, total - recuperados - terminados) / porSegundo))
+                    : null;
+            progreso = new Progreso(completados, fallidos, total, recuperados, porSegundo, restante);
+        }
+        alAvanzar.accept(progreso);
+        return progreso;
+    }
+
+    /**
+     * Si el programa se cerró a mitad de una línea, la termina para que la
+     * siguiente descripción no se pegue a ella.
+     */
+    private void terminarUltimaLinea() throws IOException {
+        if (!Files.exists(salida) || Files.size(salida) == 0) {
+            return;
+        }
+        try (var archivo = new RandomAccessFile(salida.toFile(), "rw")) {
+            archivo.seek(archivo.length() - 1);
+            if (archivo.read() != '\n') {
+                archivo.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Última descripción registrada de cada producto, por ID.
+     */
+    private Map<Integer, JsonObject> leerRegistro() throws IOException {
+        Map<Integer, JsonObject> registro = new HashMap<>();
+        if (!Files.exists(salida)) {
+            return registro;
+        }
+        for (String linea : Files.readAllLines(salida, StandardCharsets.UTF_8)) {
+            try {
+                JsonObject json = JsonParser.parseString(linea).getAsJsonObject();
+                registro.put(json.get("id").getAsInt(), json);
+            } catch (RuntimeException e) {
+                // Línea a medio escribir si el programa se cerró de golpe: ese producto se repite
+            }
+        }
+        return registro;
+    }
+
+    private static String texto(JsonObject json, String campo) {
+        return json.has(campo) && !json.get(campo).isJsonNull() ? json.get(campo).getAsString() : null;
+    }
+
+}
@@ -0,0 +1,57 @@
+package service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita el número de operaciones por segundo que se lanzan entre todos los
+ * hilos que lo comparten.
+ * <p>
+ * Reparte los turnos a intervalos fijos: cada llamada a {@link #esperarTurno()}
+ * reserva el siguiente turno libre y duerme hasta que llega, sin bloquear a los
+ * demás hilos mientras espera. Así las peticiones salen espaciadas en lugar de
+ * en ráfagas.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class LimitadorTasa {
+
+    // Separación entre dos turnos (0 = sin límite)
+    private final long intervaloNanos;
+
+    // Instante del siguiente turno libre
+    private long siguiente = System.nanoTime();
+
+    /**
+     * Crea un limitador.
+     *
+     * @param porSegundo Operaciones por segundo permitidas (0 o menos para no limitar)
+     */
+    public LimitadorTasa(double porSegundo) {
+        this.intervaloNanos = porSegundo > 0 ? (long) (1_000_000_000L / porSegundo) : 0;
+    }
+
+    /**
+     * Espera hasta que le toque al hilo que llama.
+     *
+     * @throws InterruptedException Si se interrumpe el hilo mientras espera
+     */
+    public void esperarTurno() throws InterruptedException {
+        if (intervaloNanos == 0) {
+            return;
+        }
+        long espera;
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            long turno = Math.max(ahora, siguiente);
+            siguiente = turno + intervaloNanos;
+            espera = turno - ahora;
+        }
+        if (espera > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+
+}
@@ -1,122 +1,1094 @@
 package service;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import config.ConfigLoader;
 
 /**
  * Servicio para interactuar con la API de OpenRouter (basada en GPT) y obtener
  * respuestas generadas a partir de un texto de usuario.
- * 
+ * <p>
+ * Todas las peticiones pasan por un único {@link HttpClient}, que mantiene
+ * abiertas las conexiones con el servidor (HTTP/2 cuando el servidor lo admite)
+ * y las reutiliza, de modo que solo la primera consulta paga el coste de
+ * conectar y negociar TLS. Por eso la aplicación usa una sola instancia del
+ * servicio, que se obtiene con {@link #getInstancia()}.
+ * </p>
+ * <p>
+ * Las respuestas correctas se guardan en una {@link CacheRespuestas} (en memoria
+ * y en disco), así que repetir un prompt, incluso tras reiniciar la aplicación,
+ * no vuelve a consultar al modelo mientras la respuesta no caduque. Con
+ * {@link #oraculoDigital(String, boolean)} se puede forzar una respuesta nueva.
+ * </p>
+ * <p>
+ * Las consultas con el mismo prompt (normalizado) que llegan mientras otra igual
+ * está en curso no lanzan una petición nueva: esperan la respuesta de la
+ * primera y, en modo stream, reciben su texto a medida que llega.
+ * </p>
+ * <p>
+ * Las peticiones siguen una {@link PoliticaResiliencia}: los 429, los 5xx y los
+ * errores de conexión se reintentan con esperas exponenciales aleatorizadas (o
+ * las que pida el servidor con Retry-After), un {@link Disyuntor} hace fallar al
+ * instante mientras el proveedor está caído y, si se activa, se lanza una
+ * petición duplicada cuando la respuesta tarda más que el percentil 95 de las
+ * anteriores y se usa la primera que llegue.
+ * </p>
+ * <p>
+ * Con {@link #oraculoDigitalEnVivo(String, Oyente)} la respuesta se recibe en
+ * modo stream y se entrega a trozos según la genera el modelo, para mostrarla
+ * sin esperar a que termine.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>llmUrl: endpoint de chat completions (por defecto, el de OpenRouter)</li>
+ * <li>llmModelo: modelo que genera las respuestas (por defecto openai/gpt-4o)</li>
+ * <li>llmTimeoutConexionMs: espera máxima para conectar con el servidor (por defecto 10000)</li>
+ * <li>llmTimeoutMs: espera máxima para recibir la respuesta (por defecto 60000)</li>
+ * <li>llmCacheDir: carpeta de la caché de respuestas en disco (por defecto cache_ia)</li>
+ * <li>llmCacheMemoria: respuestas guardadas en memoria (por defecto 500, 0 la desactiva)</li>
+ * <li>llmCacheDisco: respuestas guardadas en disco (por defecto 5000, 0 la desactiva)</li>
+ * <li>llmCacheTtlMs: tiempo de vida de cada respuesta (por defecto 604800000, una semana)</li>
+ * <li>llmReintentos, llmReintentoBaseMs, llmReintentoMaxMs, llmCircuitoFallos,
+ * llmCircuitoAbiertoMs y llmCobertura: ver {@link PoliticaResiliencia}</li>
+ * </ul>
+ *
  * @author Esteban Martín González
  * @version 1.0
  * @since 2025
  */
 public class LlmService {
 
+    private static final String URL_POR_DEFECTO = "https://openrouter.ai/api/v1/chat/completions";
+    private static final String MODELO_POR_DEFECTO = "openai/gpt-4o";
+    private static final int MAX_TOKENS = 1024;
+
+    // Prefijo de las respuestas correctas (lo que no empieza así es un error)
+    private static final String PREFIJO_CONTENIDO = "Contenido:\n\n";
+
+    private static final Gson GSON = new Gson();
+
+    // Criterio por defecto para guardar una respuesta correcta en la caché
+    private static final Predicate<String> CUALQUIERA = contenido -> true;
+
+    // Respuestas que indican un problema pasajero del proveedor
+    private static final Set<Integer> CODIGOS_REINTENTABLES = Set.of(429, 500, 502, 503, 504);
+
+    // Instancia única del servicio (se crea en la primera consulta)
+    private static volatile LlmService instancia;
+
+    private final HttpClient cliente;
+    private final URI url;
+    private final String apiKey;
+    private final String modelo;
+    private final Duration timeoutRespuesta;
+
+    // Caché de respuestas (null si no se usa)
+    private final CacheRespuestas cache;
+
+    // Reintentos, disyuntor (null si no se usa) y latencias para las peticiones duplicadas
+    private final PoliticaResiliencia politica;
+    private final Disyuntor disyuntor;
+    private final Latencias latencias = new Latencias();
+
+    private final LongAdder reintentos = new LongAdder();
+    private final LongAdder coberturas = new LongAdder();
+    private final LongAdder coberturasGanadas = new LongAdder();
+
+    // Consultas en curso por clave, para que las iguales compartan la petición
+    private final ConcurrentHashMap<String, Vuelo> enVuelo = new ConcurrentHashMap<>();
+    private final LongAdder compartidas = new LongAdder();
+
     /**
-     * Envía un texto al API de OpenRouter para generar una respuesta con GPT.
+     * Crea un servicio con su propio cliente HTTP y sin caché de respuestas.
+     *
+     * @param url              Endpoint de chat completions
+     * @param apiKey           Clave API (null o vacía si no está configurada)
+     * @param modelo           Modelo que genera las respuestas
+     * @param timeoutConexion  Espera máxima para conectar con el servidor
+     * @param timeoutRespuesta Espera máxima para recibir la respuesta
+     */
+    public LlmService(String url, String apiKey, String modelo, Duration timeoutConexion, Duration timeoutRespuesta) {
+        this(url, apiKey, modelo, timeoutConexion, timeoutRespuesta, null);
+    }
+
+    /**
+     * Crea un servicio con su propio cliente HTTP.
      * <p>
-     * Obtiene la clave API desde la configuración, construye una petición HTTP POST
-     * con el texto proporcionado, y procesa la respuesta JSON para extraer el
-     * contenido generado o los mensajes de error.
+     * La aplicación usa {@link #getInstancia()}; este constructor permite
+     * apuntar a otro servidor compatible (por ejemplo, uno local en las pruebas).
      * </p>
-     * 
+     *
+     * @param url              Endpoint de chat completions
+     * @param apiKey           Clave API (null o vacía si no está configurada)
+     * @param modelo           Modelo que genera las respuestas
+     * @param timeoutConexion  Espera máxima para conectar con el servidor
+     * @param timeoutRespuesta Espera máxima para recibir la respuesta
+     * @param cache            Caché de respuestas, o null para no usarla
+     */
+    public LlmService(String url, String apiKey, String modelo, Duration timeoutConexion, Duration timeoutRespuesta,
+                      CacheRespuestas cache) {
+        this(url, apiKey, modelo, timeoutConexion, timeoutRespuesta, cache, PoliticaResiliencia.NINGUNA);
+    }
+
+    /**
+     * Crea un servicio con su propio cliente HTTP y la política de reintentos dada.
+     *
+     * @param url              Endpoint de chat completions
+     * @param apiKey           Clave API (null o vacía si no está configurada)
+     * @param modelo           Modelo que genera las respuestas
+     * @param timeoutConexion  Espera máxima para conectar con el servidor
+     * @param timeoutRespuesta Espera máxima para recibir la respuesta
+     * @param cache            Caché de respuestas, o null para no usarla
+     * @param politica         Reintentos, disyuntor y peticiones duplicadas
+     */
+    public LlmService(String url, String apiKey, String modelo, Duration timeoutConexion, Duration timeoutRespuesta,
+                      CacheRespuestas cache, PoliticaResiliencia politica) {
+        this.cache = cache;
+        this.politica = politica;
+        this.disyuntor = politica.fallosCircuito() > 0
+                ? new Disyuntor(politica.fallosCircuito(), politica.circuitoAbierto()) : null;
+        this.url = URI.create(url);
+        this.apiKey = apiKey;
+        this.modelo = modelo;
+        this.timeoutRespuesta = timeoutRespuesta;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeoutConexion)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Devuelve el servicio compartido, creándolo con la configuración de
+     * config.properties si todavía no existe.
+     *
+     * @return Instancia única del servicio
+     */
+    public static LlmService getInstancia() {
+        LlmService servicio = instancia;
+        if (servicio == null) {
+            synchronized (LlmService.class) {
+                servicio = instancia;
+                if (servicio == null) {
+                    instancia = servicio = new LlmService(
+                            ConfigLoader.getProperty("llmUrl", URL_POR_DEFECTO),
+                            ConfigLoader.getProperty("OPENROUTER_API_KEY"),
+                            ConfigLoader.getProperty("llmModelo", MODELO_POR_DEFECTO),
+                            Duration.ofMillis(ConfigLoader.getIntProperty("llmTimeoutConexionMs", 10_000)),
+                            Duration.ofMillis(ConfigLoader.getIntProperty("llmTimeoutMs", 60_000)),
+                            new CacheRespuestas(
+                                    Path.of(ConfigLoader.getProperty("llmCacheDir", "cache_ia")),
+                                    ConfigLoader.getIntProperty("llmCacheMemoria", 500),
+                                    ConfigLoader.getIntProperty("llmCacheDisco", 5000),
+                                    ConfigLoader.getIntProperty("llmCacheTtlMs", 604_800_000)),
+                            PoliticaResiliencia.desdeConfiguracion());
+                }
+            }
+        }
+        return servicio;
+    }
+
+    /**
+     * Envía un texto al API de OpenRouter para generar una respuesta con GPT,
+     * o la devuelve desde la caché si ya se pidió antes.
+     *
      * @param texto Texto que se envía como prompt al modelo GPT.
      * @return Respuesta generada por el modelo, mensaje de error de la API, error
-     *         HTTP o "ERROR" en caso de excepción.
+     *         HTTP o "ERROR" en caso de excepción (incluido agotar la espera).
      * @throws RuntimeException Si la variable de entorno OPENROUTER_API_KEY no está
      *                          definida.
+     * @see #oraculoDigital(String, boolean)
      */
     public String oraculoDigital(String texto) {
+        return oraculoDigital(texto, false);
+    }
 
-        // Obtener la clave API desde configuración o variables de entorno
-        String apiKey = ConfigLoader.getProperty("OPENROUTER_API_KEY");
+    /**
+     * Envía un texto al API de OpenRouter para generar una respuesta con GPT.
+     * <p>
+     * Salvo que se pida lo contrario, primero se busca la respuesta en la caché.
+     * Si no está y ya hay en curso una consulta con el mismo prompt, espera su
+     * respuesta en lugar de repetirla. Si no, construye una petición HTTP POST con el texto proporcionado,
+     * la envía por el cliente compartido y procesa la respuesta JSON para
+     * extraer el contenido generado o los mensajes de error. Las respuestas
+     * correctas se guardan en la caché; los errores no.
+     * </p>
+     *
+     * @param texto    Texto que se envía como prompt al modelo GPT.
+     * @param sinCache true para ignorar la respuesta guardada y pedir una nueva
+     *                 (que sustituye a la guardada)
+     * @return Respuesta generada por el modelo, mensaje de error de la API, error
+     *         HTTP o "ERROR" en caso de excepción (incluido agotar la espera).
+     * @throws RuntimeException Si la variable de entorno OPENROUTER_API_KEY no está
+     *                          definida.
+     */
+    public String oraculoDigital(String texto, boolean sinCache) {
+        return consultar(texto, sinCache, CUALQUIERA, null);
+    }
+
+    /**
+     * Envía un texto al API como {@link #oraculoDigital(String, boolean)}, pero
+     * solo guarda la respuesta en la caché (y solo usa la guardada) si el texto
+     * generado cumple la condición dada. Sirve cuando el formato de la respuesta
+     * se valida después: una respuesta mal formada no se vuelve a servir desde
+     * la caché.
+     *
+     * @param texto    Texto que se envía como prompt al modelo GPT.
+     * @param sinCache true para ignorar la respuesta guardada y pedir una nueva
+     * @param valida   Condición que debe cumplir el texto generado (ver
+     *                 {@link #contenido(String)}, que puede ser null) para
+     *                 guardarse en la caché
+     * @return Respuesta generada por el modelo, mensaje de error de la API, error
+     *         HTTP o "ERROR" en caso de excepción. Se devuelve aunque no cumpla
+     *         la condición.
+     * @throws RuntimeException Si la variable de entorno OPENROUTER_API_KEY no está
+     *                          definida.
+     */
+    public String oraculoDigital(String texto, boolean sinCache, Predicate<String> valida) {
+        return consultar(texto, sinCache, valida, null);
+    }
+
+    /**
+     * Envía un texto al API y va entregando la respuesta a medida que se genera
+     * (ver {@link #oraculoDigitalEnVivo(String, boolean, Oyente)}).
+     *
+     * @param texto  Texto que se envía como prompt al modelo GPT.
+     * @param oyente Recibe cada trozo de texto según llega
+     * @return Respuesta completa, con el mismo formato que {@link #oraculoDigital(String)}
+     */
+    public String oraculoDigitalEnVivo(String texto, Oyente oyente) {
+        return oraculoDigitalEnVivo(texto, false, oyente);
+    }
+
+    /**
+     * Envía un texto al API y va entregando la respuesta a medida que el modelo
+     * la genera, en lugar de esperar a que esté completa.
+     * <p>
+     * Pide la respuesta en modo {@code stream} (eventos SSE): cada evento trae un
+     * fragmento JSON con el siguiente trozo de texto, que se lee con un
+     * {@link JsonReader} y se pasa al oyente en cuanto llega. El oyente también
+     * recibe el tiempo hasta el primer trozo, que es la espera que percibe el
+     * usuario. Si la respuesta está en la caché se entrega entera de una vez. Si
+     * el stream pasa la espera máxima de respuesta sin enviar nada, se corta y se
+     * devuelve "ERROR".
+     * </p>
+     * <p>
+     * Si ya hay en curso una consulta con el mismo prompt, el oyente recibe el
+     * texto que esa consulta lleva recibido y después el resto según llega. Por
+     * eso puede llamarse desde el hilo de otra consulta.
+     * </p>
+     *
+     * @param texto    Texto que se envía como prompt al modelo GPT.
+     * @param sinCache true para ignorar la respuesta guardada y pedir una nueva
+     * @param oyente   Recibe cada trozo de texto según llega
+     * @return Respuesta completa, con el mismo formato que
+     *         {@link #oraculoDigital(String, boolean)}
+     * @throws RuntimeException Si la variable de entorno OPENROUTER_API_KEY no está
+     *                          definida.
+     */
+    public String oraculoDigitalEnVivo(String texto, boolean sinCache, Oyente oyente) {
+        return consultar(texto, sinCache, CUALQUIERA, oyente);
+    }
+
+    /**
+     * Extrae el texto generado de una respuesta de {@link #oraculoDigital(String)}.
+     *
+     * @param respuesta Respuesta del servicio
+     * @return Texto generado por el modelo, o null si la respuesta es un error
+     */
+    public static String contenido(String respuesta) {
+        if (respuesta == null || !respuesta.startsWith(PREFIJO_CONTENIDO)) {
+            return null;
+        }
+        return respuesta.substring(PREFIJO_CONTENIDO.length()).strip();
+    }
+
+    /**
+     * Caché de respuestas del servicio, para consultar sus estadísticas o vaciarla.
+     *
+     * @return Caché de respuestas, o null si el servicio no usa caché
+     */
+    public CacheRespuestas getCache() {
+        return cache;
+    }
+
+    /**
+     * Disyuntor que corta las peticiones mientras el proveedor está caído.
+     *
+     * @return Disyuntor del servicio, o null si no se usa
+     */
+    public Disyuntor getDisyuntor() {
+        return disyuntor;
+    }
 
+    /**
+     * Número de consultas que esperaron la respuesta de otra igual en curso en
+     * lugar de hacer su propia petición.
+     *
+     * @return Consultas compartidas acumuladas
+     */
+    public long getCompartidas() {
+        return compartidas.sum();
+    }
+
+    /**
+     * Número de peticiones repetidas tras un error pasajero.
+     *
+     * @return Reintentos acumulados
+     */
+    public long getReintentos() {
+        return reintentos.sum();
+    }
+
+    /**
+     * Número de peticiones duplicadas lanzadas porque la primera tardaba.
+     *
+     * @return Peticiones duplicadas acumuladas
+     */
+    public long getCoberturas() {
+        return coberturas.sum();
+    }
+
+    /**
+     * Número de peticiones duplicadas que respondieron antes que la original.
+     *
+     * @return Peticiones duplicadas ganadoras acumuladas
+     */
+    public long getCoberturasGanadas() {
+        return coberturasGanadas.sum();
+    }
+
+    /**
+     * Recibe la respuesta de {@link #oraculoDigitalEnVivo(String, boolean, Oyente)}
+     * a medida que se genera.
+     */
+    @FunctionalInterface
+    public interface Oyente {
+
+        /**
+         * Recibe el siguiente trozo de la respuesta.
+         *
+         * @param texto Texto generado desde el trozo anterior
+         */
+        void token(String texto);
+
+        /**
+         * Recibe el tiempo que ha tardado en llegar el primer trozo de texto
+         * desde que se hizo la petición. Se llama justo antes de entregarlo.
+         *
+         * @param espera Tiempo hasta el primer trozo
+         */
+        default void primerToken(Duration espera) {
+        }
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    private void validarClave() {
         // Validar que la clave API no esté vacía o nula, si no, lanzar excepción
         if (apiKey == null || apiKey.isEmpty()) {
             throw new RuntimeException("La variable de entorno OPENROUTER_API_KEY no está definida.");
         }
+    }
+
+    /**
+     * Resuelve una consulta: primero busca en la caché; si no está y ya hay en
+     * curso una consulta con la misma clave, espera su respuesta; si no, hace
+     * la petición y la comparte con las consultas iguales que lleguen mientras
+     * tanto.
+     *
+     * @param valida Condición que debe cumplir el texto generado para usar la caché
+     * @param oyente Receptor del texto en modo stream, o null para pedir la respuesta completa
+     */
+    private String consultar(String texto, boolean sinCache, Predicate<String> valida, Oyente oyente) {
 
-        // URL del endpoint para solicitudes de chat completions
-        String url = "https://openrouter.ai/api/v1/chat/completions";
+        validarClave();
 
-        // Construir el cuerpo JSON de la petición, con el prompt enviado por parámetro
-        // Se reemplazan comillas dobles en el texto para evitar errores JSON
-        String jsonInput = String.format("""
-                {
-                  "model": "openai/gpt-4o",
-                  "messages": [{"role": "user", "content": "%s"}],
-                  "max_tokens": 1024
+        Suscriptor suscriptor = oyente != null ? new Suscriptor(oyente) : null;
+        String clave = CacheRespuestas.clave(texto, modelo, "max_tokens=" + MAX_TOKENS);
+
+        while (true) {
+            String guardada = sinCache ? null : desdeCache(clave, valida);
+            if (guardada != null) {
+                if (suscriptor != null) {
+                    suscriptor.completa(guardada);
                 }
-                """, texto.replace("\"", "\\\""));
+                return guardada;
+            }
 
+            Vuelo nuevo = new Vuelo(oyente != null);
+            Vuelo enCurso = enVuelo.putIfAbsent(clave, nuevo);
+            if (enCurso == null) {
+                return dirigir(nuevo, clave, texto, sinCache, valida, suscriptor);
+            }
+            compartidas.increment();
+            String respuesta = enCurso.esperar(suscriptor);
+            if (respuesta != null) {
+                return respuesta;
+            }
+            // La consulta compartida se canceló antes de entregar texto: se repite
+        }
+    }
+
+    /**
+     * Hace la petición de una consulta y entrega el resultado a las consultas
+     * iguales que la esperan.
+     */
+    private String dirigir(Vuelo vuelo, String clave, String texto, boolean sinCache, Predicate<String> valida,
+            Suscriptor suscriptor) {
+        String respuesta = null;
         try {
-            // Abrir conexión HTTP POST con la URL del API
-            HttpURLConnection conexion = (HttpURLConnection) new URL(url).openConnection();
+            if (suscriptor != null) {
+                vuelo.unir(suscriptor);
+            }
+            // Otra consulta igual pudo terminar justo antes de registrar esta
+            respuesta = sinCache ? null : desdeCache(clave, valida);
+            if (respuesta != null) {
+                vuelo.token(contenido(respuesta));
+            } else {
+                respuesta = vuelo.enVivo ? pedirEnVivo(texto, clave, valida, vuelo::token) : pedir(texto, clave, valida);
+            }
+            return respuesta;
+        } finally {
+            enVuelo.remove(clave, vuelo);
+            vuelo.terminar(respuesta, Thread.currentThread().isInterrupted());
+        }
+    }
 
-            conexion.setRequestMethod("POST"); // Método POST
-            conexion.setRequestProperty("Authorization", "Bearer " + apiKey); // Header con clave API
-            conexion.setRequestProperty("Content-Type", "application/json");   // Tipo de contenido JSON
-            conexion.setDoOutput(true); // Permitir enviar datos en el cuerpo de la petición
+    /**
+     * Respuesta guardada en la caché, si la hay y su texto cumple la condición.
+     */
+    private String desdeCache(String clave, Predicate<String> valida) {
+        String guardada = cache != null ? cache.obtener(clave) : null;
+        return guardada != null && valida.test(contenido(guardada)) ? guardada : null;
+    }
 
-            // Escribir el cuerpo JSON en la conexión (enviar la solicitud)
-            try (OutputStream output = conexion.getOutputStream()) {
-                output.write(jsonInput.getBytes("UTF-8"));
+    /**
+     * Pide la respuesta completa al API y la guarda en la caché si es correcta
+     * y cumple la condición.
+     */
+    private String pedir(String texto, String clave, Predicate<String> valida) {
+        try {
+            HttpResponse<String> respuesta =
+                    enviar(peticion(texto, false), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8), true);
+
+            String resultado = interpretar(respuesta.statusCode(), respuesta.body());
+            if (cache != null && respuesta.statusCode() >= 200 && respuesta.statusCode() < 300
+                    && valida.test(contenido(resultado))) {
+                cache.guardar(clave, resultado);
             }
+            return resultado;
 
-            // Obtener el código de respuesta HTTP
-            int responseCode = conexion.getResponseCode();
+        } catch (InterruptedException e) {
+            // Tarea cancelada: se conserva la interrupción para quien la lanzó
+            Thread.currentThread().interrupt();
+            return "ERROR";
+        } catch (CircuitoAbiertoException e) {
+            return e.getMessage();
+        } catch (Exception e) {
+            // En caso de cualquier excepción, imprimir el mensaje de error y devolver "ERROR"
+            System.err.println("Excepción capturada: " + e.getMessage());
+            return "ERROR";
+        }
+    }
 
-            // Seleccionar el flujo de datos para leer: inputStream si éxito, errorStream si no
-            InputStream responseStream = (responseCode >= 200 && responseCode < 300)
-                    ? conexion.getInputStream()
-                    : conexion.getErrorStream();
+    /**
+     * Pide la respuesta en modo stream, pasando cada trozo al oyente, y la
+     * guarda en la caché si llegó completa y cumple la condición.
+     */
+    private String pedirEnVivo(String texto, String clave, Predicate<String> valida, Oyente oyente) {
 
-            // Leer la respuesta del API línea por línea
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(responseStream, "UTF-8"))) {
-                StringBuilder respuesta = new StringBuilder();
-                String linea;
-                while ((linea = reader.readLine()) != null) {
-                    respuesta.append(linea.trim());
+        long inicio = System.nanoTime();
+        CompletableFuture<Void> corte = null;
+        try {
+            HttpResponse<InputStream> respuesta =
+                    enviar(peticion(texto, true), HttpResponse.BodyHandlers.ofInputStream(), false);
+
+            try (BufferedReader lector = new BufferedReader(
+                    new InputStreamReader(respuesta.body(), StandardCharsets.UTF_8))) {
+
+                // Los errores llegan como una respuesta normal, sin eventos
+                if (respuesta.statusCode() < 200 || respuesta.statusCode() >= 300) {
+                    return interpretar(respuesta.statusCode(), lector.lines().collect(Collectors.joining("\n")));
                 }
 
-                // Parsear la respuesta JSON
-                JsonObject json = JsonParser.parseString(respuesta.toString()).getAsJsonObject();
+                // La espera de la petición solo cubre la llegada de las cabeceras: si después el
+                // stream pasa el mismo tiempo sin enviar nada, se cierra para desbloquear la lectura
+                AtomicBoolean agotado = new AtomicBoolean();
+                corte = programarCorte(respuesta.body(), agotado);
 
-                // Si la respuesta fue exitosa (código 2xx), extraer el contenido generado
-                if (responseCode >= 200 && responseCode < 300) {
-                    return "Contenido:\n\n" +
-                            json.getAsJsonArray("choices")
-                                .get(0).getAsJsonObject()
-                                .getAsJsonObject("message")
-                                .get("content").getAsString();
+                StringBuilder generado = new StringBuilder();
+                boolean completa = false;
+                String linea;
+                while ((linea = leerLinea(lector, agotado)) != null) {
+                    corte.cancel(false);
+                    corte = programarCorte(respuesta.body(), agotado);
+                    // Solo interesan las líneas de datos (el resto son separadores y comentarios)
+                    if (!linea.startsWith("data:")) {
+                        continue;
+                    }
+                    String datos = linea.substring(5).strip();
+                    if (datos.equals("[DONE]")) {
+                        completa = true;
+                        break;
+                    }
+                    Fragmento fragmento = leerFragmento(datos);
+                    if (fragmento.error() != null) {
+                        return "Error de la API: " + fragmento.error();
+                    }
+                    if (fragmento.contenido() != null && !fragmento.contenido().isEmpty()) {
+                        if (generado.isEmpty()) {
+                            oyente.primerToken(Duration.ofNanos(System.nanoTime() - inicio));
+                        }
+                        generado.append(fragmento.contenido());
+                        oyente.token(fragmento.contenido());
+                    }
                 }
-                // Si hay un error reportado en el JSON, devolver mensaje de error
-                else if (json.has("error")) {
-                    return "Error de la API: " +
-                            json.getAsJsonObject("error")
-                                .get("message").getAsString();
+
+                if (agotado.get()) {
+                    throw tiempoAgotado();
                 }
-                // Si no, devolver un error HTTP genérico con código y respuesta
-                else {
-                    return "Error HTTP: código " + responseCode + "\n\nRespuesta: " + respuesta.toString();
+                String resultado = PREFIJO_CONTENIDO + generado;
+                // Una respuesta cortada antes del final no se guarda
+                if (cache != null && completa && valida.test(contenido(resultado))) {
+                    cache.guardar(clave, resultado);
                 }
+                return resultado;
             }
 
+        } catch (InterruptedException | InterruptedIOException e) {
+            // Tarea cancelada: se conserva la interrupción para quien la lanzó
+            Thread.currentThread().interrupt();
+            return "ERROR";
+        } catch (CircuitoAbiertoException e) {
+            return e.getMessage();
         } catch (Exception e) {
             // En caso de cualquier excepción, imprimir el mensaje de error y devolver "ERROR"
             System.err.println("Excepción capturada: " + e.getMessage());
             return "ERROR";
+        } finally {
+            if (corte != null) {
+                corte.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Cierra el cuerpo de una respuesta en stream si pasa la espera máxima de
+     * respuesta sin que se cancele el corte (al llegar la siguiente línea).
+     */
+    private CompletableFuture<Void> programarCorte(InputStream cuerpo, AtomicBoolean agotado) {
+        return CompletableFuture.runAsync(() -> {
+            agotado.set(true);
+            try {
+                cuerpo.close();
+            } catch (IOException e) {
+                // Se descarta de todos modos
+            }
+        }, CompletableFuture.delayedExecutor(timeoutRespuesta.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Lee una línea del stream; si falla porque se cortó por falta de datos, lo
+     * indica como tiempo agotado.
+     */
+    private String leerLinea(BufferedReader lector, AtomicBoolean agotado) throws IOException {
+        try {
+            return lector.readLine();
+        } catch (IOException e) {
+            if (agotado.get()) {
+                throw tiempoAgotado();
+            }
+            throw e;
+        }
+    }
+
+    private HttpTimeoutException tiempoAgotado() {
+        return new HttpTimeoutException("stream sin datos durante " + timeoutRespuesta.toMillis() + " ms");
+    }
+
+    /**
+     * Envía una petición aplicando la política de resiliencia: consulta el
+     * disyuntor, reintenta los errores pasajeros y, si se pide, lanza una
+     * petición duplicada cuando la respuesta tarda.
+     *
+     * @param cubrir true si se puede duplicar la petición (no en modo stream)
+     * @return Última respuesta recibida (puede ser un error si no quedan reintentos)
+     * @throws CircuitoAbiertoException Si el disyuntor está abierto
+     */
+    private <T> HttpResponse<T> enviar(HttpRequest peticion, HttpResponse.BodyHandler<T> manejador, boolean cubrir)
+            throws IOException, InterruptedException {
+
+        for (int intento = 0; ; intento++) {
+
+            if (disyuntor != null && !disyuntor.permitir()) {
+                throw new CircuitoAbiertoException(disyuntor.getRestante());
+            }
+
+            long inicio = System.nanoTime();
+            HttpResponse<T> respuesta;
+            try {
+                respuesta = cubrir && politica.cobertura()
+                        ? enviarConCobertura(peticion, manejador) : cliente.send(peticion, manejador);
+            } catch (IOException e) {
+                if (disyuntor != null) {
+                    disyuntor.fallo();
+                }
+                // Agotar la espera de respuesta no se reintenta: ya se esperó todo el tiempo permitido
+                boolean reintentable = !(e instanceof HttpTimeoutException) || e instanceof HttpConnectTimeoutException;
+                if (!reintentable || intento >= politica.reintentos()) {
+                    throw e;
+                }
+                esperarReintento(politica.espera(intento));
+                continue;
+            }
+
+            int codigo = respuesta.statusCode();
+            if (disyuntor != null) {
+                if (codigo >= 500) {
+                    disyuntor.fallo();
+                } else {
+                    disyuntor.exito();
+                }
+            }
+            if (codigo >= 200 && codigo < 300 && cubrir) {
+                latencias.registrar((System.nanoTime() - inicio) / 1_000_000);
+            }
+
+            if (!CODIGOS_REINTENTABLES.contains(codigo) || intento >= politica.reintentos()) {
+                return respuesta;
+            }
+            // Si el servidor pide esperar más de lo permitido se devuelve el error
+            Duration espera = retryAfter(respuesta).orElse(politica.espera(intento));
+            if (espera.compareTo(politica.esperaMaxima()) > 0) {
+                return respuesta;
+            }
+            if (respuesta.body() instanceof AutoCloseable cuerpo) {
+                try {
+                    cuerpo.close();
+                } catch (Exception e) {
+                    // La respuesta se descarta de todos modos
+                }
+            }
+            esperarReintento(espera);
+        }
+    }
+
+    private void esperarReintento(Duration espera) throws InterruptedException {
+        reintentos.increment();
+        Thread.sleep(espera.toMillis());
+    }
+
+    /**
+     * Envía la petición y, si no ha respondido cuando se alcanza el percentil 95
+     * de las latencias anteriores, lanza otra igual y devuelve la primera
+     * respuesta que llegue, cancelando la otra.
+     */
+    private <T> HttpResponse<T> enviarConCobertura(HttpRequest peticion, HttpResponse.BodyHandler<T> manejador)
+            throws IOException, InterruptedException {
+
+        CompletableFuture<HttpResponse<T>> primera = cliente.sendAsync(peticion, manejador);
+        long umbralMs = latencias.percentil95();
+        if (umbralMs < 0) {
+            return esperar(primera);  // Aún no hay latencias suficientes para saber qué es lento
+        }
+
+        try {
+            return primera.get(umbralMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // La primera tarda más de lo normal: se lanza la duplicada
+        } catch (ExecutionException e) {
+            return esperar(primera);
+        } catch (InterruptedException e) {
+            primera.cancel(true);
+            throw e;
+        }
+
+        coberturas.increment();
+        CompletableFuture<HttpResponse<T>> segunda = cliente.sendAsync(peticion, manejador);
+        CompletableFuture<HttpResponse<T>> ganadora = new CompletableFuture<>();
+        AtomicInteger fallidas = new AtomicInteger();
+        for (CompletableFuture<HttpResponse<T>> envio : List.of(primera, segunda)) {
+            envio.whenComplete((respuesta, error) -> {
+                if (error == null) {
+                    if (ganadora.complete(respuesta) && envio == segunda) {
+                        coberturasGanadas.increment();
+                    }
+                } else if (fallidas.incrementAndGet() == 2) {
+                    ganadora.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            return esperar(ganadora);
+        } finally {
+            primera.cancel(true);
+            segunda.cancel(true);
+        }
+    }
+
+    /**
+     * Espera una petición asíncrona y devuelve su respuesta o lanza su error.
+     */
+    private static <T> HttpResponse<T> esperar(CompletableFuture<HttpResponse<T>> envio)
+            throws IOException, InterruptedException {
+        try {
+            return envio.get();
+        } catch (InterruptedException e) {
+            envio.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException causa) {
+                throw causa;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Espera pedida por el servidor en la cabecera Retry-After, en segundos o
+     * como fecha HTTP.
+     */
+    private static Optional<Duration> retryAfter(HttpResponse<?> respuesta) {
+        return respuesta.headers().firstValue("Retry-After").map(String::strip).map(valor -> {
+            try {
+                return valor.chars().allMatch(Character::isDigit)
+                        ? Duration.ofSeconds(Long.parseLong(valor))
+                        : Duration.between(ZonedDateTime.now(),
+                                ZonedDateTime.parse(valor, DateTimeFormatter.RFC_1123_DATE_TIME));
+            } catch (RuntimeException e) {
+                return null;  // Valor no válido: se usa la espera normal
+            }
+        }).map(espera -> espera.isNegative() ? Duration.ZERO : espera);
+    }
+
+    private HttpRequest peticion(String texto, boolean enVivo) {
+        return HttpRequest.newBuilder(url)
+                .timeout(timeoutRespuesta)
+                .header("Authorization", "Bearer " + apiKey) // Header con clave API
+                .header("Content-Type", "application/json")  // Tipo de contenido JSON
+                .header("Accept", enVivo ? "text/event-stream" : "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo(texto, enVivo), StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * Cuerpo JSON de la petición con el prompt como único mensaje del usuario.
+     */
+    private String cuerpo(String texto, boolean enVivo) {
+        JsonObject mensaje = new JsonObject();
+        mensaje.addProperty("role", "user");
+        mensaje.addProperty("content", texto);
+
+        JsonArray mensajes = new JsonArray();
+        mensajes.add(mensaje);
+
+        JsonObject cuerpo = new JsonObject();
+        cuerpo.addProperty("model", modelo);
+        cuerpo.add("messages", mensajes);
+        cuerpo.addProperty("max_tokens", MAX_TOKENS);
+        if (enVivo) {
+            cuerpo.addProperty("stream", true);
+        }
+        return GSON.toJson(cuerpo);
+    }
+
+    /**
+     * Extrae el contenido generado, o el error, de la respuesta del API.
+     */
+    private String interpretar(int codigo, String cuerpo) {
+
+        // Si la respuesta fue exitosa (código 2xx), extraer el contenido generado
+        if (codigo >= 200 && codigo < 300) {
+            JsonObject json = JsonParser.parseString(cuerpo).getAsJsonObject();
+            return PREFIJO_CONTENIDO +
+                    json.getAsJsonArray("choices")
+                        .get(0).getAsJsonObject()
+                        .getAsJsonObject("message")
+                        .get("content").getAsString();
+        }
+
+        // Si hay un error reportado en el JSON, devolver mensaje de error
+        try {
+            JsonObject json = JsonParser.parseString(cuerpo).getAsJsonObject();
+            if (json.has("error")) {
+                return "Error de la API: " +
+                        json.getAsJsonObject("error")
+                            .get("message").getAsString();
+            }
+        } catch (RuntimeException e) {
+            // El cuerpo no es JSON: se devuelve tal cual
+        }
+
+        // Si no, devolver un error HTTP genérico con código y respuesta
+        return "Error HTTP: código " + codigo + "\n\nRespuesta: " + cuerpo;
+    }
+
+    /**
+     * Lee un evento del modo stream: el texto nuevo de la primera opción
+     * ({@code choices[0].delta.content}) o el mensaje de error, sin construir
+     * el árbol JSON completo.
+     */
+    private static Fragmento leerFragmento(String json) throws IOException {
+        String contenido = null;
+        String error = null;
+        try (JsonReader lector = new JsonReader(new StringReader(json))) {
+            lector.beginObject();
+            while (lector.hasNext()) {
+                switch (lector.nextName()) {
+                    case "choices" -> {
+                        lector.beginArray();
+                        if (lector.hasNext()) {
+                            lector.beginObject();
+                            while (lector.hasNext()) {
+                                if (lector.nextName().equals("delta")) {
+                                    contenido = leerTexto(lector, "content");
+                                } else {
+                                    lector.skipValue();
+                                }
+                            }
+                            lector.endObject();
+                        }
+                        while (lector.hasNext()) {
+                            lector.skipValue();
+                        }
+                        lector.endArray();
+                    }
+                    case "error" -> error = leerTexto(lector, "message");
+                    default -> lector.skipValue();
+                }
+            }
+            lector.endObject();
+        }
+        return new Fragmento(contenido, error);
+    }
+
+    /**
+     * Lee un objeto JSON y devuelve el valor de texto de uno de sus campos.
+     */
+    private static String leerTexto(JsonReader lector, String campo) throws IOException {
+        String valor = null;
+        lector.beginObject();
+        while (lector.hasNext()) {
+            if (lector.nextName().equals(campo) && lector.peek() == JsonToken.STRING) {
+                valor = lector.nextString();
+            } else {
+                lector.skipValue();
+            }
+        }
+        lector.endObject();
+        return valor;
+    }
+
+    /**
+     * Contenido de un evento del modo stream: texto nuevo o mensaje de error.
+     */
+    private record Fragmento(String contenido, String error) {
+    }
+
+    /**
+     * Latencias de las últimas respuestas correctas, para decidir cuándo una
+     * petición tarda más de lo normal.
+     */
+    private static final class Latencias {
+
+        // Latencias guardadas y mínimo necesario para calcular el percentil
+        private static final int TAMANO = 200;
+        private static final int MINIMO = 20;
+
+        private final long[] valores = new long[TAMANO];
+        private int total;
+
+        private synchronized void registrar(long ms) {
+            valores[total % TAMANO] = ms;
+            total++;
+        }
+
+        /**
+         * Percentil 95 de las latencias guardadas en milisegundos, o -1 si aún no
+         * hay suficientes.
+         */
+        private synchronized long percentil95() {
+            int n = Math.min(total, TAMANO);
+            if (n < MINIMO) {
+                return -1;
+            }
+            long[] ordenadas = Arrays.copyOf(valores, n);
+            Arrays.sort(ordenadas);
+            return ordenadas[(int) Math.ceil(n * 0.95) - 1];
+        }
+    }
+
+    /**
+     * Petición rechazada sin enviarla porque el disyuntor está abierto. El
+     * mensaje es el texto que se devuelve al llamador.
+     */
+    private static final class CircuitoAbiertoException extends IOException {
+
+        private CircuitoAbiertoException(Duration restante) {
+            super("Error: el servicio de IA no está disponible, se volverá a intentar en "
+                    + Math.max(1, restante.toSeconds()) + " s");
+        }
+    }
+
+    /**
+     * Consulta en curso compartida por todas las consultas con la misma clave.
+     * Guarda el texto recibido en modo stream para entregárselo a las que se
+     * unen tarde.
+     */
+    private static final class Vuelo {
+
+        private final boolean enVivo;
+        private final CompletableFuture<String> resultado = new CompletableFuture<>();
+        private final StringBuilder recibido = new StringBuilder();
+        private final List<Suscriptor> suscriptores = new ArrayList<>();
+
+        private Vuelo(boolean enVivo) {
+            this.enVivo = enVivo;
+        }
+
+        private synchronized void unir(Suscriptor suscriptor) {
+            if (!recibido.isEmpty()) {
+                suscriptor.token(recibido.toString());
+            }
+            suscriptores.add(suscriptor);
+        }
+
+        private synchronized void salir(Suscriptor suscriptor) {
+            suscriptores.remove(suscriptor);
+        }
+
+        private synchronized void token(String texto) {
+            if (texto == null) {
+                return;
+            }
+            recibido.append(texto);
+            for (Suscriptor suscriptor : suscriptores) {
+                suscriptor.token(texto);
+            }
+        }
+
+        /**
+         * Entrega la respuesta a las consultas que esperan. Si la consulta que
+         * hacía la petición se canceló, las demás la repiten por su cuenta.
+         */
+        private void terminar(String respuesta, boolean cancelada) {
+            if (respuesta == null) {
+                resultado.complete("ERROR");
+            } else if (cancelada) {
+                resultado.cancel(false);
+            } else {
+                resultado.complete(respuesta);
+            }
+        }
+
+        /**
+         * Espera la respuesta como consulta secundaria.
+         *
+         * @return Respuesta, o null si hay que repetir la consulta
+         */
+        private String esperar(Suscriptor suscriptor) {
+            if (suscriptor != null && enVivo) {
+                unir(suscriptor);
+            }
+            try {
+                String respuesta = resultado.get();
+                if (suscriptor != null && !enVivo) {
+                    suscriptor.completa(respuesta);
+                }
+                return respuesta;
+            } catch (CancellationException e) {
+                if (suscriptor != null) {
+                    salir(suscriptor);
+                }
+                // Si ya se mostró parte del texto no se puede empezar de nuevo
+                return suscriptor != null && suscriptor.recibido ? "ERROR" : null;
+            } catch (InterruptedException e) {
+                // Cancelada esta consulta: la petición sigue para las demás
+                if (suscriptor != null) {
+                    salir(suscriptor);
+                }
+                Thread.currentThread().interrupt();
+                return "ERROR";
+            } catch (ExecutionException e) {
+                return "ERROR";
+            }
+        }
+    }
+
+    /**
+     * Oyente de una consulta en modo stream, con el momento en que empezó para
+     * medir su propia espera hasta el primer trozo.
+     */
+    private static final class Suscriptor {
+
+        private final Oyente oyente;
+        private final long inicio = System.nanoTime();
+        private volatile boolean recibido;
+
+        private Suscriptor(Oyente oyente) {
+            this.oyente = oyente;
+        }
+
+        private void token(String texto) {
+            if (texto == null || texto.isEmpty()) {
+                return;
+            }
+            if (!recibido) {
+                recibido = true;
+                oyente.primerToken(Duration.ofNanos(System.nanoTime() - inicio));
+            }
+            oyente.token(texto);
+        }
+
+        /**
+         * Entrega de una vez una respuesta que no llegó por trozos.
+         */
+        private void completa(String respuesta) {
+            if (!recibido) {
+                token(contenido(respuesta));
+            }
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import config.ConfigLoader;
+
+/**
+ * Cómo reacciona {@link LlmService} ante un proveedor lento o con fallos.
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>llmReintentos: reintentos tras un 429, un 5xx o un error de conexión (por defecto 3)</li>
+ * <li>llmReintentoBaseMs: espera antes del primer reintento, que se duplica en cada uno (por defecto 500)</li>
+ * <li>llmReintentoMaxMs: espera máxima entre reintentos, también para Retry-After (por defecto 10000)</li>
+ * <li>llmCircuitoFallos: fallos seguidos que abren el disyuntor (por defecto 5, 0 lo desactiva)</li>
+ * <li>llmCircuitoAbiertoMs: tiempo que se rechazan peticiones con el disyuntor abierto (por defecto 30000)</li>
+ * <li>llmCobertura: lanzar una petición duplicada si la respuesta tarda más que el percentil 95 (por defecto false)</li>
+ * </ul>
+ *
+ * @param reintentos      Reintentos como máximo por petición (0 para no reintentar)
+ * @param esperaBase      Espera antes del primer reintento
+ * @param esperaMaxima    Espera máxima entre reintentos; si el servidor pide
+ *                        esperar más con Retry-After no se reintenta
+ * @param fallosCircuito  Fallos seguidos que abren el disyuntor (0 para no usarlo)
+ * @param circuitoAbierto Tiempo que el disyuntor permanece abierto
+ * @param cobertura       true para lanzar una petición duplicada cuando la
+ *                        primera tarda más que el percentil 95 de las anteriores
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public record PoliticaResiliencia(int reintentos, Duration esperaBase, Duration esperaMaxima,
+                                  int fallosCircuito, Duration circuitoAbierto, boolean cobertura) {
+
+    /**
+     * Sin reintentos, sin disyuntor y sin peticiones duplicadas.
+     */
+    public static final PoliticaResiliencia NINGUNA =
+            new PoliticaResiliencia(0, Duration.ZERO, Duration.ZERO, 0, Duration.ZERO, false);
+
+    /**
+     * Crea la política con los valores de config.properties.
+     *
+     * @return Política configurada
+     */
+    public static PoliticaResiliencia desdeConfiguracion() {
+        return new PoliticaResiliencia(
+                ConfigLoader.getIntProperty("llmReintentos", 3),
+                Duration.ofMillis(ConfigLoader.getIntProperty("llmReintentoBaseMs", 500)),
+                Duration.ofMillis(ConfigLoader.getIntProperty("llmReintentoMaxMs", 10_000)),
+                ConfigLoader.getIntProperty("llmCircuitoFallos", 5),
+                Duration.ofMillis(ConfigLoader.getIntProperty("llmCircuitoAbiertoMs", 30_000)),
+                Boolean.parseBoolean(ConfigLoader.getProperty("llmCobertura", "false")));
+    }
+
+    /**
+     * Espera antes de un reintento: crece de forma exponencial hasta la espera
+     * máxima y se elige al azar entre la mitad y el total, para que los clientes
+     * que fallaron a la vez no vuelvan a la vez.
+     *
+     * @param intento Número de reintento, empezando por 0
+     * @return Tiempo que hay que esperar
+     */
+    public Duration espera(int intento) {
+        long tope = Math.min(esperaMaxima.toMillis(), esperaBase.toMillis() << Math.min(intento, 20));
+        if (tope <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(tope / 2 + ThreadLocalRandom.current().nextLong(tope / 2 + 1));
+    }
+
+}
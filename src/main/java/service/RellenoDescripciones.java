@@ -0,0 +1,183 @@
+package service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.IntSupplier;
+
+import config.ConfigLoader;
+import model.ProductoOtaku;
+
+/**
+ * Tarea en segundo plano que genera con IA la descripción de los productos que
+ * no la tienen y la guarda en la base de datos.
+ * <p>
+ * Cada vuelta es una ejecución de {@link GeneradorDescripciones} sobre los
+ * productos sin descripción (los nuevos y aquellos cuya descripción se borró al
+ * cambiar su nombre o categoría), con una sola petición en curso, lanzada desde
+ * un hilo de baja prioridad y con un límite de peticiones por segundo, para no
+ * competir con las consultas del usuario. Usa el mismo registro que la
+ * generación desde la consola, así que las descripciones que no se pudieron
+ * guardar se recuperan de él sin volver a pedirlas. Al terminar una vuelta
+ * espera un rato y empieza otra; los productos que fallaron se reintentan en
+ * la siguiente.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>iaRelleno: activa la tarea al arrancar la aplicación (por defecto false)</li>
+ * <li>iaRellenoPeticionesSegundo: peticiones por segundo como máximo (por defecto 0.5)</li>
+ * <li>iaRellenoPausaMs: espera entre dos vueltas (por defecto 300000)</li>
+ * <li>iaLoteSalida: registro de las descripciones generadas (ver {@link GeneradorDescripciones})</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class RellenoDescripciones {
+
+    // Tarea arrancada con la configuración (como mucho una por aplicación)
+    private static RellenoDescripciones activa;
+
+    private final GeneradorDescripciones generador;
+    private final long pausaMs;
+
+    private Thread hilo;
+    private volatile boolean detenida;
+
+    private volatile long rellenadas;
+    private volatile long fallidas;
+
+    /**
+     * Crea la tarea sin arrancarla.
+     *
+     * @param llm                  Servicio de IA
+     * @param contarPendientes     Cuenta los productos sin descripción
+     * @param pendientes           Consulta de los productos sin descripción con ID mayor que el
+     *                             primer argumento, ordenados por ID y limitados por el segundo
+     * @param guardar              Guarda la descripción de un producto; devuelve false si no se
+     *                             guardó (por ejemplo, porque el producto cambió mientras tanto)
+     * @param salida               Registro de las descripciones generadas
+     * @param peticionesPorSegundo Peticiones por segundo como máximo (0 o menos sin límite)
+     * @param pausaMs              Espera entre dos vueltas
+     */
+    public RellenoDescripciones(LlmService llm, IntSupplier contarPendientes,
+                                BiFunction<Integer, Integer, List<ProductoOtaku>> pendientes,
+                                BiPredicate<ProductoOtaku, String> guardar, Path salida,
+                                double peticionesPorSegundo, long pausaMs) {
+        this.generador = new GeneradorDescripciones(llm, contarPendientes, pendientes, guardar, salida, 1,
+                peticionesPorSegundo);
+        this.pausaMs = pausaMs;
+    }
+
+    /**
+     * Arranca la tarea con el servicio de IA compartido y la configuración de
+     * config.properties, si está activada y no se arrancó ya.
+     *
+     * @param contarPendientes Cuenta los productos sin descripción
+     * @param pendientes       Consulta de una página de productos sin descripción
+     * @param guardar          Guarda la descripción de un producto
+     */
+    public static synchronized void arrancarSiActiva(IntSupplier contarPendientes,
+                                                     BiFunction<Integer, Integer, List<ProductoOtaku>> pendientes,
+                                                     BiPredicate<ProductoOtaku, String> guardar) {
+        if (activa != null || !Boolean.parseBoolean(ConfigLoader.getProperty("iaRelleno", "false"))) {
+            return;
+        }
+        activa = new RellenoDescripciones(LlmService.getInstancia(), contarPendientes, pendientes, guardar,
+                Path.of(ConfigLoader.getProperty("iaLoteSalida", "descripciones_ia.jsonl")),
+                ConfigLoader.getDoubleProperty("iaRellenoPeticionesSegundo", 0.5),
+                ConfigLoader.getIntProperty("iaRellenoPausaMs", 300_000));
+        activa.iniciar();
+    }
+
+    /**
+     * Tarea arrancada con {@link #arrancarSiActiva(IntSupplier, BiFunction, BiPredicate)}.
+     *
+     * @return Tarea en marcha, o null si no está activada
+     */
+    public static synchronized RellenoDescripciones getActiva() {
+        return activa;
+    }
+
+    /**
+     * Arranca la tarea en un hilo de baja prioridad (no impide cerrar la
+     * aplicación).
+     */
+    public synchronized void iniciar() {
+        if (hilo != null) {
+            return;
+        }
+        hilo = new Thread(this::ejecutar, "relleno-descripciones");
+        hilo.setDaemon(true);
+        hilo.setPriority(Thread.MIN_PRIORITY);
+        hilo.start();
+    }
+
+    /**
+     * Detiene la tarea. La petición en curso, si la hay, termina y se guarda.
+     */
+    public synchronized void detener() {
+        detenida = true;
+        generador.cancelar();
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    /**
+     * Hace una vuelta completa en el hilo que llama: describe todos los
+     * productos sin descripción.
+     *
+     * @return Descripciones guardadas en esta vuelta (generadas o recuperadas del registro)
+     * @throws IOException Si no se puede leer o escribir el registro
+     */
+    public int rellenar() throws IOException {
+        if (detenida) {
+            return 0;
+        }
+        GeneradorDescripciones.Progreso fin = generador.ejecutar(progreso -> { });
+        int guardadas = fin.completados() + fin.yaHechos();
+        rellenadas += guardadas;
+        fallidas += fin.fallidos();
+        return guardadas;
+    }
+
+    /**
+     * Número de descripciones guardadas desde que se creó la tarea.
+     *
+     * @return Descripciones guardadas
+     */
+    public long getRellenadas() {
+        return rellenadas;
+    }
+
+    /**
+     * Número de productos que no se pudieron describir o guardar.
+     *
+     * @return Intentos fallidos (se reintentan en la siguiente vuelta)
+     */
+    public long getFallidas() {
+        return fallidas;
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    private void ejecutar() {
+        try {
+            while (!detenida) {
+                rellenar();
+                TimeUnit.MILLISECONDS.sleep(pausaMs);
+            }
+        } catch (InterruptedException e) {
+            // Tarea detenida
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Se detiene el relleno de descripciones: " + e.getMessage());
+        }
+    }
+
+}
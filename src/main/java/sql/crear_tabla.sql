@@ -13,9 +13,13 @@ CREATE TABLE productos (
     nombre VARCHAR(255) NOT NULL,         -- Nombre del producto, obligatorio
     categoria VARCHAR(100),               -- Categoría del producto (opcional)
     precio DECIMAL(10,2),                 -- Precio del producto con dos decimales
-    stock INT                             -- Número de unidades disponibles en stock
+    stock INT,                            -- Número de unidades disponibles en stock
+    descripcion TEXT                      -- Descripción generada con IA (NULL si falta o quedó obsoleta)
 );
 
+-- En una base de datos ya creada, la columna de la descripción se añade con:
+-- ALTER TABLE productos ADD COLUMN descripcion TEXT;
+
 -- Crea la tabla 'clientes' para almacenar información de los clientes
 CREATE TABLE clientes (
     id INT AUTO_INCREMENT PRIMARY KEY,            -- ID único del cliente
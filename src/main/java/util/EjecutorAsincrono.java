@@ -0,0 +1,181 @@
+package util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import config.ConfigLoader;
+
+/**
+ * Ejecutor compartido para las operaciones asíncronas de la aplicación.
+ * <p>
+ * Cada tarea se ejecuta en su propio hilo virtual, de modo que esperar a la
+ * base de datos o a la red no ocupa hilos del sistema. Como los hilos virtuales
+ * no tienen límite, un semáforo acota cuántas tareas pueden estar trabajando a
+ * la vez; las demás esperan su turno sin bloquear al llamador.
+ * </p>
+ * <p>
+ * Las peticiones a la IA tienen su propio límite ({@link #ejecutarIA(Supplier)}):
+ * pueden tardar decenas de segundos y no usan la base de datos, así que no deben
+ * ocupar los turnos que esperan las consultas (por ejemplo, la carga de las
+ * páginas de las tablas).
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>asyncMaxConcurrencia: tareas ejecutándose a la vez (por defecto, el valor
+ * de poolMax, para no pedir más conexiones de las que tiene el pool)</li>
+ * <li>asyncMaxConcurrenciaIA: peticiones a la IA ejecutándose a la vez (por
+ * defecto 4)</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class EjecutorAsincrono {
+
+    // Instancia única del ejecutor (se crea al lanzar la primera tarea)
+    private static volatile EjecutorAsincrono instancia;
+
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int maxConcurrencia;
+
+    // Limita el número de tareas que se ejecutan a la vez
+    private final Semaphore permisos;
+
+    // Limita, aparte, el número de peticiones a la IA que se ejecutan a la vez
+    private final Semaphore permisosIA;
+
+    /**
+     * Crea el ejecutor leyendo los límites de concurrencia de la configuración.
+     */
+    private EjecutorAsincrono() {
+        int poolMax = ConfigLoader.getIntProperty("poolMax", 10);
+        maxConcurrencia = Math.max(1, ConfigLoader.getIntProperty("asyncMaxConcurrencia", poolMax));
+        permisos = new Semaphore(maxConcurrencia, true);
+        permisosIA = new Semaphore(Math.max(1, ConfigLoader.getIntProperty("asyncMaxConcurrenciaIA", 4)), true);
+    }
+
+    /**
+     * Devuelve el ejecutor compartido, creándolo si todavía no existe.
+     *
+     * @return Instancia única del ejecutor
+     */
+    public static EjecutorAsincrono getInstancia() {
+        EjecutorAsincrono ejecutor = instancia;
+        if (ejecutor == null) {
+            synchronized (EjecutorAsincrono.class) {
+                ejecutor = instancia;
+                if (ejecutor == null) {
+                    instancia = ejecutor = new EjecutorAsincrono();
+                }
+            }
+        }
+        return ejecutor;
+    }
+
+    /**
+     * Ejecuta una tarea en un hilo virtual respetando el límite de concurrencia.
+     * <p>
+     * Cancelar el futuro devuelto interrumpe el hilo de la tarea: si todavía
+     * esperaba turno deja de esperar, y si estaba bloqueada en una operación de
+     * red (una consulta o una petición HTTP) esta se aborta.
+     * </p>
+     *
+     * @param <T>   Tipo del resultado
+     * @param tarea Operación a ejecutar
+     * @return Futuro que se completa con el resultado de la tarea, o de forma
+     *         excepcional si la tarea lanza una excepción o se interrumpe la espera
+     */
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> tarea) {
+        return lanzar(tarea, permisos);
+    }
+
+    /**
+     * Ejecuta una petición a la IA en un hilo virtual, respetando el límite de
+     * peticiones a la IA en lugar del de las tareas de base de datos. Por lo
+     * demás se comporta igual que {@link #ejecutar(Supplier)}.
+     *
+     * @param <T>   Tipo del resultado
+     * @param tarea Petición a ejecutar
+     * @return Futuro que se completa con el resultado de la petición, o de forma
+     *         excepcional si lanza una excepción o se interrumpe la espera
+     */
+    public <T> CompletableFuture<T> ejecutarIA(Supplier<T> tarea) {
+        return lanzar(tarea, permisosIA);
+    }
+
+    /**
+     * Número máximo de tareas (sin contar las peticiones a la IA) que se
+     * ejecutan a la vez.
+     *
+     * @return Límite de concurrencia configurado
+     */
+    public int getMaxConcurrencia() {
+        return maxConcurrencia;
+    }
+
+    /**
+     * Número de tareas (sin contar las peticiones a la IA) que se están
+     * ejecutando en este momento.
+     *
+     * @return Tareas en curso
+     */
+    public int getEnCurso() {
+        return maxConcurrencia - permisos.availablePermits();
+    }
+
+    /**
+     * Número aproximado de tareas (sin contar las peticiones a la IA) esperando
+     * a que quede un hueco libre.
+     *
+     * @return Tareas en espera
+     */
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Ejecuta una tarea en un hilo virtual cuando quede un permiso libre en el
+     * semáforo indicado.
+     */
+    private <T> CompletableFuture<T> lanzar(Supplier<T> tarea, Semaphore semaforo) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+
+        Future<?> trabajo = hilos.submit(() -> {
+            // Cancelada antes de empezar
+            if (resultado.isDone()) {
+                return;
+            }
+            try {
+                semaforo.acquire();
+            } catch (InterruptedException e) {
+                resultado.completeExceptionally(e);
+                return;
+            }
+            try {
+                resultado.complete(tarea.get());
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            } finally {
+                semaforo.release();
+            }
+        });
+
+        resultado.whenComplete((valor, error) -> {
+            if (resultado.isCancelled()) {
+                trabajo.cancel(true);
+            }
+        });
+
+        return resultado;
+    }
+
+}
@@ -0,0 +1,62 @@
+package util;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mide cuánto tarda la aplicación en llegar a los momentos importantes del
+ * arranque (por ejemplo, el primer pintado de la ventana o la primera fila de
+ * una tabla), contando desde {@link #iniciar()}.
+ * <p>
+ * Cada momento se anota solo la primera vez que ocurre y se muestra por
+ * consola. Se puede usar desde cualquier hilo.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public final class MetricasArranque {
+
+    // Instante desde el que se mide (por defecto, la carga de la clase)
+    private static volatile long inicio = System.nanoTime();
+
+    // Milisegundos hasta cada momento anotado
+    private static final Map<String, Long> marcas = new ConcurrentHashMap<>();
+
+    private MetricasArranque() {
+    }
+
+    /**
+     * Empieza a medir desde ahora y olvida los momentos anotados.
+     */
+    public static void iniciar() {
+        inicio = System.nanoTime();
+        marcas.clear();
+    }
+
+    /**
+     * Anota que se ha llegado a un momento del arranque, si no se había anotado ya.
+     *
+     * @param momento Nombre del momento (por ejemplo, "primer pintado")
+     */
+    public static void marcar(String momento) {
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        if (marcas.putIfAbsent(momento, ms) == null) {
+            System.out.println("Arranque: " + momento + " a los " + ms + " ms");
+        }
+    }
+
+    /**
+     * Tiempo que se tardó en llegar a un momento.
+     *
+     * @param momento Nombre del momento
+     * @return Milisegundos desde el inicio, o vacío si todavía no se ha llegado
+     */
+    public static OptionalLong getMs(String momento) {
+        Long ms = marcas.get(momento);
+        return ms != null ? OptionalLong.of(ms) : OptionalLong.empty();
+    }
+
+}
@@ -0,0 +1,24 @@
+package view;
+
+import java.util.List;
+
+/**
+ * Datos con los que se abre una tabla: los IDs de todas sus filas y la primera
+ * página ya leída.
+ * <p>
+ * La ventana principal los pide en segundo plano nada más arrancar, antes de
+ * construir los paneles, de modo que la tabla se muestra con sus primeras filas
+ * sin esperar a otra consulta.
+ * </p>
+ *
+ * @param <T>           Tipo de las entidades de la tabla
+ * @param ids           IDs de todas las filas en orden ascendente
+ * @param primeraPagina Entidades de la primera página, en el mismo orden, o null si
+ *                      no se pudo leer
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public record CargaInicial<T>(int[] ids, List<T> primeraPagina) {
+}
@@ -1,11 +1,14 @@
 package view;
 
+import dao.CambiosFila;
 import dao.ClienteDAO;
 import dao.ProductoDAO;
+import dao.ResultadoEscritura;
 import model.ClienteOtaku;
 import model.ProductoOtaku;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Esteban Martín González
@@ -36,6 +39,47 @@ public class ControllerGrafico {
         return productoDAO.obtenerTodosLosProductos();
     }
 
+    /**
+     * Obtiene los IDs de todos los productos en orden ascendente.
+     * 
+     * @return IDs de todos los productos
+     */
+    public int[] obtenerIdsProductos() {
+        return productoDAO.obtenerIdsProductos();
+    }
+
+    /**
+     * Obtiene el ID y el nombre de los productos con ID mayor que el dado.
+     * 
+     * @param despuesDeId ID a partir del cual (sin incluirlo) se leen los productos
+     * @return productos con solo ID y nombre, ordenados por ID
+     */
+    public List<ProductoOtaku> obtenerNombresProductosDesde(int despuesDeId) {
+        return productoDAO.obtenerNombresProductosDesde(despuesDeId);
+    }
+
+    /**
+     * Obtiene una página de productos ordenados por ID.
+     * 
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página
+     * @param limite      número máximo de productos
+     * @return productos de la página, o null si hubo un error
+     */
+    public List<ProductoOtaku> obtenerProductosPagina(int despuesDeId, int limite) {
+        return productoDAO.obtenerProductosPagina(despuesDeId, limite);
+    }
+
+    /**
+     * Recorre todos los productos pasando cada uno a la acción dada, sin cargar
+     * la tabla completa en memoria.
+     * 
+     * @param accion acción a ejecutar con cada producto
+     * @return número de productos recorridos, o -1 si hubo un error
+     */
+    public int recorrerProductos(Consumer<ProductoOtaku> accion) {
+        return productoDAO.recorrerProductos(accion);
+    }
+
     /**
      * Obtiene un producto específico según su ID.
      * 
@@ -60,27 +104,53 @@ public class ControllerGrafico {
      * Agrega un nuevo producto a la base de datos.
      * 
      * @param producto objeto ProductoOtaku con los datos a agregar
+     * @return true si se agregó el producto
      */
-    public void agregarProducto(ProductoOtaku producto) {
-        productoDAO.agregarProducto(producto);
+    public boolean agregarProducto(ProductoOtaku producto) {
+        return productoDAO.agregarProducto(producto);
     }
 
     /**
      * Actualiza los datos de un producto existente en la base de datos.
      * 
      * @param producto objeto ProductoOtaku con datos actualizados
+     * @return true si se actualizó el producto
+     */
+    public boolean actualizarProducto(ProductoOtaku producto) {
+        return productoDAO.actualizarProducto(producto);
+    }
+
+    /**
+     * Guarda la descripción generada para un producto, si su nombre y su
+     * categoría no han cambiado desde que se generó.
+     * 
+     * @param producto    producto usado para generar la descripción
+     * @param descripcion descripción generada
+     * @return true si se guardó la descripción
      */
-    public void actualizarProducto(ProductoOtaku producto) {
-        productoDAO.actualizarProducto(producto);
+    public boolean guardarDescripcion(ProductoOtaku producto, String descripcion) {
+        return productoDAO.guardarDescripcion(producto, descripcion);
+    }
+
+    /**
+     * Guarda solo las columnas cambiadas de uno o varios productos; si son
+     * varios, en una única transacción.
+     * 
+     * @param cambios productos con sus valores nuevos y las columnas cambiadas
+     * @return true si se guardaron todos los cambios
+     */
+    public boolean actualizarCamposProductos(List<CambiosFila<ProductoOtaku>> cambios) {
+        return productoDAO.actualizarCampos(cambios);
     }
 
     /**
      * Elimina un producto de la base de datos según su ID.
      * 
      * @param id ID del producto a eliminar
+     * @return true si se eliminó el producto
      */
-    public void eliminarProducto(int id) {
-        productoDAO.eliminarProducto(id);
+    public boolean eliminarProducto(int id) {
+        return productoDAO.eliminarProducto(id);
     }
 
     // -------------------- MÉTODOS PARA CLIENTES --------------------
@@ -94,6 +164,36 @@ public class ControllerGrafico {
         return clienteDAO.obtenerTodosLosClientes();
     }
 
+    /**
+     * Obtiene los IDs de todos los clientes en orden ascendente.
+     * 
+     * @return IDs de todos los clientes
+     */
+    public int[] obtenerIdsClientes() {
+        return clienteDAO.obtenerIdsClientes();
+    }
+
+    /**
+     * Obtiene el ID y el email de los clientes con ID mayor que el dado.
+     * 
+     * @param despuesDeId ID a partir del cual (sin incluirlo) se leen los clientes
+     * @return clientes con solo ID y email, ordenados por ID
+     */
+    public List<ClienteOtaku> obtenerEmailsClientesDesde(int despuesDeId) {
+        return clienteDAO.obtenerEmailsClientesDesde(despuesDeId);
+    }
+
+    /**
+     * Obtiene una página de clientes ordenados por ID.
+     * 
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página
+     * @param limite      número máximo de clientes
+     * @return clientes de la página, o null si hubo un error
+     */
+    public List<ClienteOtaku> obtenerClientesPagina(int despuesDeId, int limite) {
+        return clienteDAO.obtenerClientesPagina(despuesDeId, limite);
+    }
+
     /**
      * Obtiene un cliente específico según su ID.
      * 
@@ -118,27 +218,41 @@ public class ControllerGrafico {
      * Agrega un nuevo cliente a la base de datos.
      * 
      * @param cliente objeto ClienteOtaku con los datos a agregar
+     * @return resultado de la inserción (EMAIL_DUPLICADO si el email ya existe)
      */
-    public void agregarCliente(ClienteOtaku cliente) {
-        clienteDAO.agregarCliente(cliente);
+    public ResultadoEscritura agregarCliente(ClienteOtaku cliente) {
+        return clienteDAO.registrarCliente(cliente);
     }
 
     /**
      * Actualiza los datos de un cliente existente en la base de datos.
      * 
      * @param cliente objeto ClienteOtaku con datos actualizados
+     * @return resultado de la actualización
+     */
+    public ResultadoEscritura actualizarCliente(ClienteOtaku cliente) {
+        return clienteDAO.modificarCliente(cliente);
+    }
+
+    /**
+     * Guarda solo las columnas cambiadas de uno o varios clientes; si son
+     * varios, en una única transacción.
+     * 
+     * @param cambios clientes con sus valores nuevos y las columnas cambiadas
+     * @return resultado de la actualización
      */
-    public void actualizarCliente(ClienteOtaku cliente) {
-        clienteDAO.actualizarCliente(cliente);
+    public ResultadoEscritura actualizarCamposClientes(List<CambiosFila<ClienteOtaku>> cambios) {
+        return clienteDAO.actualizarCampos(cambios);
     }
 
     /**
      * Elimina un cliente de la base de datos según su ID.
      * 
      * @param id ID del cliente a eliminar
+     * @return true si se eliminó el cliente
      */
-    public void eliminarCliente(int id) {
-        clienteDAO.eliminarCliente(id);
+    public boolean eliminarCliente(int id) {
+        return clienteDAO.eliminarCliente(id);
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package view;
+
+import dao.ResultadoEscritura;
+import model.ClienteOtaku;
+import model.ProductoOtaku;
+import util.EjecutorAsincrono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de {@link ControllerGrafico} para la interfaz gráfica.
+ * <p>
+ * Cada método ejecuta la operación del controlador en un hilo virtual y
+ * devuelve un {@link CompletableFuture}, de modo que las consultas
+ * independientes (por ejemplo, la carga inicial de productos y de clientes)
+ * se pueden lanzar a la vez en lugar de una detrás de otra. Los resultados se
+ * completan fuera del hilo de Swing: para tocar componentes hay que volver a él
+ * con {@code SwingUtilities.invokeLater}.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class ControllerGraficoAsincrono {
+
+    // Controlador síncrono que realiza las operaciones
+    private final ControllerGrafico controlador;
+
+    private final EjecutorAsincrono ejecutor = EjecutorAsincrono.getInstancia();
+
+    /**
+     * Crea la versión asíncrona de un controlador existente.
+     *
+     * @param controlador controlador que realiza las operaciones
+     */
+    public ControllerGraficoAsincrono(ControllerGrafico controlador) {
+        this.controlador = controlador;
+    }
+
+    // -------------------- MÉTODOS PARA PRODUCTOS --------------------
+
+    /**
+     * @return futuro con la lista de todos los productos
+     */
+    public CompletableFuture<List<ProductoOtaku>> obtenerTodosProductos() {
+        return ejecutor.ejecutar(controlador::obtenerTodosProductos);
+    }
+
+    /**
+     * @return futuro con los IDs de todos los productos en orden ascendente
+     */
+    public CompletableFuture<int[]> obtenerIdsProductos() {
+        return ejecutor.ejecutar(controlador::obtenerIdsProductos);
+    }
+
+    /**
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página
+     * @param limite      número máximo de productos
+     * @return futuro con los productos de la página
+     */
+    public CompletableFuture<List<ProductoOtaku>> obtenerProductosPagina(int despuesDeId, int limite) {
+        return ejecutor.ejecutar(() -> controlador.obtenerProductosPagina(despuesDeId, limite));
+    }
+
+    /**
+     * @param id ID del producto a buscar
+     * @return futuro con el producto o null si no existe
+     */
+    public CompletableFuture<ProductoOtaku> obtenerProductoPorId(int id) {
+        return ejecutor.ejecutar(() -> controlador.obtenerProductoPorId(id));
+    }
+
+    /**
+     * @param nombre nombre o parte del nombre para buscar
+     * @return futuro con los productos que coinciden con la búsqueda
+     */
+    public CompletableFuture<List<ProductoOtaku>> buscarProductoPorNombre(String nombre) {
+        return ejecutor.ejecutar(() -> controlador.buscarProductoPorNombre(nombre));
+    }
+
+    /**
+     * @param producto objeto ProductoOtaku con los datos a agregar
+     * @return futuro con true si se realizó la inserción
+     */
+    public CompletableFuture<Boolean> agregarProducto(ProductoOtaku producto) {
+        return ejecutor.ejecutar(() -> controlador.agregarProducto(producto));
+    }
+
+    /**
+     * @param producto objeto ProductoOtaku con datos actualizados
+     * @return futuro con true si se realizó la actualización
+     */
+    public CompletableFuture<Boolean> actualizarProducto(ProductoOtaku producto) {
+        return ejecutor.ejecutar(() -> controlador.actualizarProducto(producto));
+    }
+
+    /**
+     * @param id ID del producto a eliminar
+     * @return futuro con true si se realizó la eliminación
+     */
+    public CompletableFuture<Boolean> eliminarProducto(int id) {
+        return ejecutor.ejecutar(() -> controlador.eliminarProducto(id));
+    }
+
+    // -------------------- MÉTODOS PARA CLIENTES --------------------
+
+    /**
+     * @return futuro con la lista de todos los clientes
+     */
+    public CompletableFuture<List<ClienteOtaku>> obtenerTodosClientes() {
+        return ejecutor.ejecutar(controlador::obtenerTodosClientes);
+    }
+
+    /**
+     * @return futuro con los IDs de todos los clientes en orden ascendente
+     */
+    public CompletableFuture<int[]> obtenerIdsClientes() {
+        return ejecutor.ejecutar(controlador::obtenerIdsClientes);
+    }
+
+    /**
+     * @param despuesDeId ID a partir del cual (sin incluirlo) empieza la página
+     * @param limite      número máximo de clientes
+     * @return futuro con los clientes de la página
+     */
+    public CompletableFuture<List<ClienteOtaku>> obtenerClientesPagina(int despuesDeId, int limite) {
+        return ejecutor.ejecutar(() -> controlador.obtenerClientesPagina(despuesDeId, limite));
+    }
+
+    /**
+     * @param id ID del cliente a buscar
+     * @return futuro con el cliente o null si no existe
+     */
+    public CompletableFuture<ClienteOtaku> obtenerClientePorId(int id) {
+        return ejecutor.ejecutar(() -> controlador.obtenerClientePorId(id));
+    }
+
+    /**
+     * @param email email o parte del email para buscar
+     * @return futuro con los clientes que coinciden con la búsqueda
+     */
+    public CompletableFuture<List<ClienteOtaku>> buscarClientePorEmail(String email) {
+        return ejecutor.ejecutar(() -> controlador.buscarClientePorEmail(email));
+    }
+
+    /**
+     * @param cliente objeto ClienteOtaku con los datos a agregar
+     * @return futuro con el resultado de la inserción
+     */
+    public CompletableFuture<ResultadoEscritura> agregarCliente(ClienteOtaku cliente) {
+        return ejecutor.ejecutar(() -> controlador.agregarCliente(cliente));
+    }
+
+    /**
+     * @param cliente objeto ClienteOtaku con datos actualizados
+     * @return futuro con el resultado de la actualización
+     */
+    public CompletableFuture<ResultadoEscritura> actualizarCliente(ClienteOtaku cliente) {
+        return ejecutor.ejecutar(() -> controlador.actualizarCliente(cliente));
+    }
+
+    /**
+     * @param id ID del cliente a eliminar
+     * @return futuro con true si se realizó la eliminación
+     */
+    public CompletableFuture<Boolean> eliminarCliente(int id) {
+        return ejecutor.ejecutar(() -> controlador.eliminarCliente(id));
+    }
+
+}
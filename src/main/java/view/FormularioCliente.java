@@ -2,8 +2,6 @@ package view;
 
 import javax.swing.*;
 
-import dao.ClienteDAO;
-
 import java.awt.*;
 
 /**
@@ -17,8 +15,6 @@ import java.awt.*;
  */
 public class FormularioCliente extends JDialog {
 
-    private ClienteDAO cliente = new ClienteDAO();
-
     // Campos de texto para ingresar los datos del cliente
     private JTextField txtNombre = new JTextField(15);
     private JTextField txtEmail = new JTextField(15);
@@ -94,7 +90,8 @@ public class FormularioCliente extends JDialog {
     /**
      * Valida los datos ingresados en el formulario.
      * Comprueba que nombre y email no estén vacíos, que el email tenga un formato válido
-     * y no exista ya en la base de datos, y que el teléfono sea un entero positivo.
+     * y que el teléfono sea un entero positivo. Que el email no esté repetido lo
+     * comprueba la base de datos al guardar el cliente.
      * 
      * @return true si todos los campos son válidos, false en caso contrario
      */
@@ -111,10 +108,6 @@ public class FormularioCliente extends JDialog {
         if (!email.matches("^[\\w.-]+@[\\w.-]+\\.\\w+$")) {
             JOptionPane.showMessageDialog(this, "Email no es válido.", "Error", JOptionPane.ERROR_MESSAGE);
             return false;
-        } else if (cliente.verificarEmail(email)) {
-            JOptionPane.showMessageDialog(this, "Email no es válido, el email ya esta existe.", "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return false;
         }
 
         try {
@@ -0,0 +1,251 @@
+package view;
+
+import util.EjecutorAsincrono;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Barra de estado que ejecuta en segundo plano las operaciones lentas de un panel
+ * (consultas a la base de datos y llamadas a la IA) para no bloquear la ventana.
+ * <p>
+ * Mientras hay tareas en curso muestra una barra de progreso con la descripción
+ * de la última y un botón para cancelarlas. Las tareas de un mismo grupo se
+ * reemplazan: al lanzar una nueva búsqueda se cancela la anterior y su
+ * resultado, si llega tarde, se descarta. Las escrituras en la base de datos
+ * no se pueden cancelar: interrumpirlas podría mostrar un error o el valor
+ * anterior aunque el cambio ya se hubiera guardado.
+ * </p>
+ * <p>
+ * Todos los métodos deben llamarse desde el hilo de Swing, y los futuros que
+ * devuelve se completan también en él, así que sus continuaciones pueden tocar
+ * los componentes directamente.
+ * </p>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class GestorTareas extends JPanel {
+
+    private final JProgressBar progreso = new JProgressBar();
+    private final JLabel estado = new JLabel(" ");
+    private final JButton cancelar = new JButton("Cancelar");
+
+    // Tareas en curso con su descripción, en orden de inicio
+    private final Map<CompletableFuture<?>, String> activas = new LinkedHashMap<>();
+
+    // Tareas en curso que no se cancelan con cancelarTodo (escrituras)
+    private final Set<CompletableFuture<?>> noCancelables = new HashSet<>();
+
+    // Última tarea lanzada de cada grupo
+    private final Map<String, CompletableFuture<?>> porGrupo = new HashMap<>();
+
+    // Acciones que se ejecutan al cancelar todo (por ejemplo, vaciar colas de trabajos)
+    private final List<Runnable> alCancelar = new ArrayList<>();
+
+    /**
+     * Crea la barra de estado sin tareas.
+     *
+     * @param fondo Color de fondo de la barra
+     */
+    public GestorTareas(Color fondo) {
+        super(new FlowLayout(FlowLayout.LEFT));
+        setBackground(fondo);
+
+        progreso.setIndeterminate(true);
+        progreso.setPreferredSize(new Dimension(120, 16));
+        estado.setForeground(Color.WHITE);
+        cancelar.setBackground(new Color(30, 60, 120));
+        cancelar.setForeground(Color.WHITE);
+        cancelar.setFocusPainted(false);
+        cancelar.addActionListener(e -> cancelarTodo());
+
+        add(progreso);
+        add(estado);
+        add(cancelar);
+        actualizar();
+    }
+
+    /**
+     * Ejecuta una operación en segundo plano.
+     *
+     * @param <T>         Tipo del resultado
+     * @param grupo       Grupo de la tarea: si ya había una del mismo grupo en curso
+     *                    se cancela. Con null la tarea no reemplaza a ninguna
+     * @param descripcion Texto que se muestra mientras se ejecuta
+     * @param trabajo     Operación a ejecutar fuera del hilo de Swing
+     * @return Futuro que se completa en el hilo de Swing con el resultado. Si la
+     *         tarea se cancela o la reemplaza otra del mismo grupo, el futuro queda
+     *         cancelado y sus continuaciones no se ejecutan
+     */
+    public <T> CompletableFuture<T> ejecutar(String grupo, String descripcion, Supplier<T> trabajo) {
+        return lanzar(grupo, descripcion, trabajo, true, EjecutorAsincrono.getInstancia()::ejecutar);
+    }
+
+    /**
+     * Ejecuta una petición a la IA en segundo plano. Funciona igual que
+     * {@link #ejecutar(String, String, Supplier)}, pero con el límite de
+     * peticiones a la IA del ejecutor compartido, de modo que las respuestas
+     * lentas no retrasan las consultas a la base de datos.
+     *
+     * @param <T>         Tipo del resultado
+     * @param grupo       Grupo de la tarea, o null si no reemplaza a ninguna
+     * @param descripcion Texto que se muestra mientras se ejecuta
+     * @param trabajo     Petición a ejecutar fuera del hilo de Swing
+     * @return Futuro que se completa en el hilo de Swing con el resultado
+     */
+    public <T> CompletableFuture<T> ejecutarIA(String grupo, String descripcion, Supplier<T> trabajo) {
+        return lanzar(grupo, descripcion, trabajo, true, EjecutorAsincrono.getInstancia()::ejecutarIA);
+    }
+
+    /**
+     * Ejecuta en segundo plano una escritura en la base de datos. A diferencia
+     * de {@link #ejecutar(String, String, Supplier)}, no se cancela con
+     * {@link #cancelarTodo()}: su resultado siempre se entrega.
+     *
+     * @param <T>         Tipo del resultado
+     * @param descripcion Texto que se muestra mientras se ejecuta
+     * @param trabajo     Escritura a ejecutar fuera del hilo de Swing
+     * @return Futuro que se completa en el hilo de Swing con el resultado
+     */
+    public <T> CompletableFuture<T> escribir(String descripcion, Supplier<T> trabajo) {
+        return lanzar(null, descripcion, trabajo, false, EjecutorAsincrono.getInstancia()::ejecutar);
+    }
+
+    /**
+     * Cancela la tarea en curso de un grupo, si la hay, y descarta su resultado.
+     *
+     * @param grupo Grupo de la tarea
+     */
+    public void cancelar(String grupo) {
+        CompletableFuture<?> tarea = porGrupo.get(grupo);
+        if (tarea != null) {
+            tarea.cancel(true);
+        }
+    }
+
+    /**
+     * Cancela todas las tareas en curso, salvo las escrituras, y descarta sus
+     * resultados.
+     */
+    public void cancelarTodo() {
+        // Primero se vacían las colas, para que al cancelar una tarea no empiece la siguiente
+        alCancelar.forEach(Runnable::run);
+        // Copia, porque al cancelar cada tarea se elimina de la lista
+        for (CompletableFuture<?> tarea : activas.keySet().toArray(new CompletableFuture<?>[0])) {
+            if (!noCancelables.contains(tarea)) {
+                tarea.cancel(true);
+            }
+        }
+        estado.setText("Cancelado");
+    }
+
+    /**
+     * Añade una acción que se ejecuta al cancelar todas las tareas, antes de
+     * cancelar las que están en curso. Sirve para descartar también los trabajos
+     * que esperan en una cola y todavía no se han lanzado.
+     *
+     * @param accion Acción a ejecutar
+     */
+    public void alCancelarTodo(Runnable accion) {
+        alCancelar.add(accion);
+    }
+
+    /**
+     * Indica si hay alguna tarea en curso.
+     *
+     * @return true si hay tareas sin terminar
+     */
+    public boolean estaOcupado() {
+        return !activas.isEmpty();
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Lanza una tarea en segundo plano y la registra en la barra.
+     *
+     * @param cancelable false si {@link #cancelarTodo()} no debe cancelarla
+     * @param ejecutor   Método del ejecutor compartido que lanza el trabajo
+     */
+    private <T> CompletableFuture<T> lanzar(String grupo, String descripcion, Supplier<T> trabajo, boolean cancelable,
+            Function<Supplier<T>, CompletableFuture<T>> ejecutor) {
+
+        if (grupo != null && porGrupo.containsKey(grupo)) {
+            porGrupo.get(grupo).cancel(true);
+        }
+
+        CompletableFuture<T> enSegundoPlano = ejecutor.apply(trabajo);
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+
+        // El resultado se entrega en el hilo de Swing, salvo que la tarea ya se haya descartado
+        enSegundoPlano.whenComplete((valor, error) -> SwingUtilities.invokeLater(() -> {
+            if (resultado.isDone()) {
+                return;
+            }
+            if (error != null) {
+                resultado.completeExceptionally(error);
+            } else {
+                resultado.complete(valor);
+            }
+        }));
+
+        activas.put(resultado, descripcion);
+        if (!cancelable) {
+            noCancelables.add(resultado);
+        }
+        if (grupo != null) {
+            porGrupo.put(grupo, resultado);
+        }
+
+        resultado.whenComplete((valor, error) -> {
+            activas.remove(resultado);
+            noCancelables.remove(resultado);
+            if (grupo != null) {
+                porGrupo.remove(grupo, resultado);
+            }
+            if (resultado.isCancelled()) {
+                // Deja de esperar a la operación e interrumpe su hilo
+                enSegundoPlano.cancel(true);
+            }
+            actualizar();
+            if (error != null && !(error instanceof CancellationException)) {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                estado.setText("Error: " + causa.getMessage());
+            }
+        });
+
+        actualizar();
+        return resultado;
+    }
+
+    /**
+     * Refleja en la barra las tareas en curso.
+     */
+    private void actualizar() {
+        boolean ocupado = !activas.isEmpty();
+        progreso.setVisible(ocupado);
+        cancelar.setEnabled(activas.size() > noCancelables.size());
+        if (ocupado) {
+            String ultima = activas.values().stream().reduce((a, b) -> b).orElse("");
+            estado.setText(activas.size() > 1 ? ultima + " (" + activas.size() + " tareas)" : ultima);
+        } else {
+            estado.setText(" ");
+        }
+    }
+
+}
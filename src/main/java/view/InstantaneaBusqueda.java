@@ -0,0 +1,221 @@
+package view;
+
+import config.ConfigLoader;
+import dao.IndiceProductos;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Copia en memoria del texto por el que se filtra una tabla (el nombre de los
+ * productos o el email de los clientes), para filtrar mientras se escribe sin
+ * consultar la base de datos en cada pulsación.
+ * <p>
+ * La primera búsqueda carga la copia con una consulta que solo trae el ID y el
+ * texto de cada fila. Después se mantiene al día de dos formas:
+ * </p>
+ * <ul>
+ * <li>Los cambios hechos desde la aplicación se aplican directamente con
+ * {@link #guardar(Object)} y {@link #eliminar(int)}.</li>
+ * <li>Cuando la copia tiene más de {@code filtroCaducidadMs} se actualiza de
+ * forma incremental: se leen solo las filas con ID mayor que el último conocido
+ * y se quitan las que ya no existen. Cada diez caducidades se vuelve a leer
+ * entera para recoger también los cambios de texto hechos desde fuera.</li>
+ * </ul>
+ * <p>
+ * Por eso la actualización incremental solo ve altas y bajas: si desde otra
+ * sesión se cambia el nombre o el email de una fila que ya estaba en la copia,
+ * el filtro sigue usando el texto anterior hasta la siguiente lectura completa,
+ * es decir, durante hasta diez veces {@code filtroCaducidadMs}.
+ * </p>
+ * <p>
+ * Se puede usar desde varios hilos; las consultas a la base de datos se hacen
+ * sin bloquear la copia. Los cambios que llegan por {@link #guardar(Object)} y
+ * {@link #eliminar(int)} mientras se lee la base de datos se anotan y se
+ * vuelven a aplicar al terminar, para que la lectura (que pudo empezar antes
+ * del cambio) no los deshaga.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>filtroCaducidadMs: tiempo tras el que se actualiza la copia (por defecto 30000)</li>
+ * </ul>
+ *
+ * @param <T> Tipo de las entidades de la tabla
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class InstantaneaBusqueda<T> {
+
+    private static final long CADUCIDAD_MS = ConfigLoader.getIntProperty("filtroCaducidadMs", 30_000);
+
+    // Actualizaciones incrementales entre dos lecturas completas
+    private static final long RECARGA_COMPLETA_MS = CADUCIDAD_MS * 10;
+
+    private final ToIntFunction<T> obtenerId;
+    private final Function<T, String> obtenerTexto;
+    private final Supplier<int[]> obtenerIds;
+    private final IntFunction<List<T>> cargarDesde;
+
+    // Evita que dos búsquedas actualicen la copia a la vez
+    private final Object actualizacion = new Object();
+
+    // Texto normalizado de cada fila por ID (solo se accede con el bloqueo del objeto)
+    private Map<Integer, String> textos = new HashMap<>();
+    private int ultimoId;
+    private long actualizadaEn;
+    private long cargadaEn;
+    private boolean cargada;
+
+    // Cambios hechos mientras se lee la base de datos (null si no hay lectura en curso);
+    // un texto null indica que la fila se eliminó
+    private Map<Integer, String> cambiosDurante;
+
+    /**
+     * Crea una copia vacía que se carga con la primera búsqueda.
+     *
+     * @param obtenerId    Función que devuelve el ID de una entidad
+     * @param obtenerTexto Función que devuelve el texto por el que se filtra
+     * @param obtenerIds   Consulta de los IDs de todas las filas, en orden ascendente
+     * @param cargarDesde  Consulta de las entidades (basta con ID y texto) con ID
+     *                     mayor que el dado, en orden ascendente
+     */
+    public InstantaneaBusqueda(ToIntFunction<T> obtenerId, Function<T, String> obtenerTexto,
+                               Supplier<int[]> obtenerIds, IntFunction<List<T>> cargarDesde) {
+        this.obtenerId = obtenerId;
+        this.obtenerTexto = obtenerTexto;
+        this.obtenerIds = obtenerIds;
+        this.cargarDesde = cargarDesde;
+    }
+
+    /**
+     * Busca las filas cuyo texto contiene el dado, sin distinguir mayúsculas ni
+     * tildes. Si la copia no está cargada o ha caducado, antes se actualiza desde
+     * la base de datos, así que no debe llamarse desde el hilo de Swing.
+     *
+     * @param texto Texto a buscar
+     * @return IDs de las filas que coinciden
+     */
+    public Set<Integer> filtrar(String texto) {
+        actualizarSiCaducada();
+        String consulta = IndiceProductos.normalizar(texto);
+        Set<Integer> resultado = new HashSet<>();
+        synchronized (this) {
+            textos.forEach((id, valor) -> {
+                if (valor.contains(consulta)) {
+                    resultado.add(id);
+                }
+            });
+        }
+        return resultado;
+    }
+
+    /**
+     * Añade o actualiza una fila tras insertarla o modificarla desde la aplicación.
+     *
+     * @param entidad Entidad guardada
+     */
+    public synchronized void guardar(T entidad) {
+        int id = obtenerId.applyAsInt(entidad);
+        String texto = IndiceProductos.normalizar(obtenerTexto.apply(entidad));
+        if (cambiosDurante != null) {
+            cambiosDurante.put(id, texto);
+        }
+        if (!cargada) {
+            return;
+        }
+        textos.put(id, texto);
+        ultimoId = Math.max(ultimoId, id);
+    }
+
+    /**
+     * Quita una fila tras eliminarla desde la aplicación.
+     *
+     * @param id ID de la fila eliminada
+     */
+    public synchronized void eliminar(int id) {
+        if (cambiosDurante != null) {
+            cambiosDurante.put(id, null);
+        }
+        textos.remove(id);
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Carga la copia si no lo está y la actualiza si ha caducado.
+     */
+    private void actualizarSiCaducada() {
+        synchronized (actualizacion) {
+            actualizar();
+        }
+    }
+
+    private void actualizar() {
+
+        int desde;
+        boolean completa;
+        synchronized (this) {
+            long ahora = System.currentTimeMillis();
+            if (cargada && ahora - actualizadaEn < CADUCIDAD_MS) {
+                return;
+            }
+            completa = !cargada || ahora - cargadaEn >= RECARGA_COMPLETA_MS;
+            desde = completa ? 0 : ultimoId;
+            cambiosDurante = new HashMap<>();
+        }
+
+        try {
+            // Consultas fuera del bloqueo, para no hacer esperar a guardar() y eliminar()
+            List<T> nuevas = cargarDesde.apply(desde);
+            int[] vigentes = completa ? null : obtenerIds.get();
+
+            synchronized (this) {
+                if (completa) {
+                    // Una lectura completa vacía suele ser un error: se conserva la copia anterior
+                    if (nuevas.isEmpty() && cargada) {
+                        actualizadaEn = System.currentTimeMillis();
+                        return;
+                    }
+                    textos = new HashMap<>();
+                    ultimoId = 0;
+                    cargadaEn = System.currentTimeMillis();
+                } else if (vigentes.length > 0) {
+                    // Sin IDs (error de la consulta) no se quita nada
+                    textos.keySet().removeIf(id -> Arrays.binarySearch(vigentes, id) < 0);
+                }
+                for (T entidad : nuevas) {
+                    int id = obtenerId.applyAsInt(entidad);
+                    textos.put(id, IndiceProductos.normalizar(obtenerTexto.apply(entidad)));
+                    ultimoId = Math.max(ultimoId, id);
+                }
+                // Los cambios hechos durante la lectura son más recientes que lo leído
+                cambiosDurante.forEach((id, texto) -> {
+                    if (texto == null) {
+                        textos.remove(id);
+                    } else {
+                        textos.put(id, texto);
+                        ultimoId = Math.max(ultimoId, id);
+                    }
+                });
+                cargada = true;
+                actualizadaEn = System.currentTimeMillis();
+            }
+        } finally {
+            synchronized (this) {
+                cambiosDurante = null;
+            }
+        }
+    }
+
+}
@@ -1,11 +1,15 @@
 package view;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 import dao.ClienteDAO;
 import dao.ProductoDAO;
 import model.ClienteOtaku;
 import model.ProductoOtaku;
+import service.ClasificadorCategorias;
+import service.GeneradorDescripciones;
 import service.LlmService;
 
 /**
@@ -31,6 +35,7 @@ public class InterfazConsola {
             7. Generar Descripción de Producto con IA
             8. Sugerir Categoría para Producto con IA
             9. Menú de Clientes
+            10. Generar Descripciones con IA de todo el catálogo
             0. Salir
             """;
 
@@ -68,7 +73,9 @@ public class InterfazConsola {
     public void agregarProducto(ProductoDAO dao) {
         System.out.println("\n--- Agregar nuevo producto ---");
         ProductoOtaku nuevo = pedirDatosProducto();
-        dao.agregarProducto(nuevo);
+        System.out.println(
+            dao.agregarProducto(nuevo) ? "Se ha añadido el producto con ID " + nuevo.getId() : "NO se ha realizado"
+        );
     }
 
     /**
@@ -152,7 +159,8 @@ public class InterfazConsola {
     }
 
     /**
-     * Genera una descripción breve de producto usando IA.
+     * Genera una descripción breve de producto usando IA y la guarda en la base
+     * de datos. Si el producto ya tiene una descripción guardada, la muestra.
      * 
      * @param dao Instancia de ProductoDAO para obtener datos del producto
      */
@@ -161,27 +169,59 @@ public class InterfazConsola {
             "\n--- Generar Descripción de Producto con IA ---\nIntroduce el ID del producto: "
         );
         ProductoOtaku producto = dao.obtenerProductoPorId(id);
-        if (producto != null) {
-            String prompt = "En español: Genera una descripción de marketing breve de no más de 15 palabras y atractiva para el producto otaku: "
-                    + producto.getNombre() + " de la categoría " + producto.getCategoria() + ".";
-            ejecutarIA(prompt, "Generando descripción...");
+        if (producto != null && producto.getDescripcion() != null) {
+            System.out.println("Descripción guardada:\n\n" + producto.getDescripcion());
+        } else if (producto != null) {
+            String descripcion = LlmService.contenido(
+                ejecutarIA(GeneradorDescripciones.prompt(producto), "Generando descripción..."));
+            if (descripcion != null) {
+                dao.guardarDescripcion(producto, descripcion);
+            }
         } else {
             System.out.println("No se encontró el producto con ID " + id);
         }
     }
 
     /**
-     * Sugiere una categoría para un producto dado su nombre utilizando IA.
+     * Genera con IA la descripción de los productos del catálogo que no la
+     * tienen y la guarda en la base de datos, mostrando el progreso. Si una
+     * ejecución anterior se interrumpió, continúa con los que faltan.
+     * 
+     * @param dao Instancia de ProductoDAO para recorrer los productos y guardar las descripciones
      */
-    public void categoriaIa() {
+    public void descripcionesIaCatalogo(ProductoDAO dao) {
+        System.out.println("\n--- Generar Descripciones con IA de todo el catálogo ---");
+        GeneradorDescripciones generador = GeneradorDescripciones.conConfiguracion(
+            dao::contarProductosSinDescripcion, dao::obtenerProductosSinDescripcion, dao::guardarDescripcion);
+        try {
+            GeneradorDescripciones.Progreso fin = generador.ejecutar(System.out::println);
+            System.out.println(fin.fallidos() > 0
+                ? "Terminado con fallos: vuelve a ejecutar la opción para reintentar los productos que fallaron."
+                : fin.total() == 0 ? "Todos los productos tienen descripción." : "Descripciones guardadas.");
+        } catch (IOException e) {
+            System.out.println("No se pudo usar el registro de descripciones: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sugiere una categoría para un producto dado su nombre. Primero lo intenta
+     * el clasificador local, entrenado con el catálogo, y solo si no está seguro
+     * se pregunta a la IA.
+     * 
+     * @param dao Instancia de ProductoDAO con la que se entrena el clasificador
+     */
+    public void categoriaIa(ProductoDAO dao) {
         String nombre = Utilidades.pedirString(
             "\n--- Sugerir Categoría para Producto con IA ---\nIntroduce el nombre de un nuevo producto: "
         );
-        String prompt = "En español: Para un producto otaku llamado " + nombre
-                + ", sugiere una categoría adecuada de esta lista: Figura, Manga, Póster, Llavero, Ropa, Videojuego, Otro. "
-                + "Responde en este formato: Categoría: 'Nombre de la categoría'. "
-                + "Comprueba que si el nombre del producto es extraño (ej. djhdftj, etc) la respuesta sea Desconocido.";
-        ejecutarIA(prompt, "Escogiendo categoría...");
+        ClasificadorCategorias clasificador = ClasificadorCategorias.getInstancia();
+        clasificador.asegurarEntrenamiento(dao::recorrerProductos);
+        ClasificadorCategorias.Prediccion local = clasificador.resolverLocal(nombre);
+        if (local != null) {
+            System.out.println(local.texto());
+        } else {
+            ejecutarIA(ClasificadorCategorias.prompt(nombre), "Escogiendo categoría...");
+        }
     }
 
     /**
@@ -192,10 +232,10 @@ public class InterfazConsola {
     public void agregarCliente(ClienteDAO dao) {
         System.out.println("\n--- Agregar nuevo cliente ---");
         ClienteOtaku nuevo = pedirDatosCliente();
-        if (dao.verificarEmail(nuevo.getEmail())) {
-            System.out.println("El email ya está registrado.");
-        } else {
-            dao.agregarCliente(nuevo);
+        switch (dao.registrarCliente(nuevo)) {
+            case OK -> System.out.println("Se ha añadido el cliente con ID " + nuevo.getId());
+            case EMAIL_DUPLICADO -> System.out.println("El email ya está registrado.");
+            default -> System.out.println("NO se ha realizado");
         }
     }
 
@@ -245,23 +285,19 @@ public class InterfazConsola {
             opcion = Utilidades.pedirEntero("Selecciona una opción: ");
             switch (opcion) {
                 case 1 -> cliente.setNombre(Utilidades.pedirString("Nuevo nombre: "));
-                case 2 -> {
-                    String nuevoEmail = Utilidades.pedirEmail("Nuevo email: ");
-                    if (dao.verificarEmail(nuevoEmail) && !nuevoEmail.equalsIgnoreCase(cliente.getEmail())) {
-                        System.out.println("Ese email ya está registrado.");
-                    } else {
-                        cliente.setEmail(nuevoEmail);
-                    }
-                }
+                case 2 -> cliente.setEmail(Utilidades.pedirEmail("Nuevo email: "));
                 case 3 -> cliente.setTelefono(Utilidades.pedirEnteroPositivo("Nuevo telefono: "));
                 case 0 -> System.out.println("Guardando...");
                 default -> System.out.println("Opción inválida");
             }
             System.out.println();
         } while (opcion != 0);
-        System.out.println(
-            dao.actualizarCliente(cliente) ? "Cliente actualizado" : "No se pudo actualizar el cliente"
-        );
+        switch (dao.modificarCliente(cliente)) {
+            case OK -> System.out.println("Cliente actualizado");
+            case EMAIL_DUPLICADO -> System.out.println("Ese email ya está registrado. No se ha actualizado el cliente");
+            case NO_ENCONTRADO -> System.out.println("No existe un cliente con ese ID");
+            default -> System.out.println("No se pudo actualizar el cliente");
+        }
     }
 
     /**
@@ -313,15 +349,37 @@ public class InterfazConsola {
     }
 
     /**
-     * Encapsula la llamada al servicio de IA y muestra la respuesta generada.
+     * Encapsula la llamada al servicio de IA y muestra la respuesta a medida que
+     * se genera, seguida del tiempo que tardó en llegar el primer texto.
      * 
      * @param prompt         Texto de entrada para el modelo de IA
      * @param mensajeInicial Mensaje a mostrar antes de la respuesta
+     * @return Respuesta completa del servicio
      */
-    private void ejecutarIA(String prompt, String mensajeInicial) {
+    private String ejecutarIA(String prompt, String mensajeInicial) {
         System.out.println(mensajeInicial);
-        LlmService ia = new LlmService();
-        System.out.println(ia.oraculoDigital(prompt));
+        long[] primerTokenMs = { -1 };
+        // Servicio compartido: reutiliza la conexión de las consultas anteriores
+        String respuesta = LlmService.getInstancia().oraculoDigitalEnVivo(prompt, new LlmService.Oyente() {
+            @Override
+            public void token(String texto) {
+                System.out.print(texto);
+                System.out.flush();
+            }
+
+            @Override
+            public void primerToken(Duration espera) {
+                primerTokenMs[0] = espera.toMillis();
+                System.out.println("Contenido:\n");
+            }
+        });
+        if (primerTokenMs[0] < 0) {
+            // No llegó texto: se muestra la respuesta tal cual (vacía o con el error)
+            System.out.println(respuesta);
+        } else {
+            System.out.println("\n(primer texto en " + primerTokenMs[0] + " ms)");
+        }
+        return respuesta;
     }
 
     /**
@@ -1,9 +1,18 @@
 package view;
 
+import model.ClienteOtaku;
+import model.ProductoOtaku;
 import service.LlmService;
+import util.MetricasArranque;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Graphics;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import javax.swing.*;
 import javax.swing.plaf.basic.BasicTabbedPaneUI;
 
@@ -12,6 +21,13 @@ import javax.swing.plaf.basic.BasicTabbedPaneUI;
  * Proporciona dos pestañas para gestionar productos y clientes,
  * y utiliza un servicio de IA para funciones avanzadas de descripción
  * y categorización de productos.
+ * <p>
+ * La ventana se muestra en cuanto se crea, con un aviso de carga en cada
+ * pestaña. Mientras tanto se piden en paralelo los datos iniciales de ambas
+ * tablas, y cada panel se construye la primera vez que se selecciona su
+ * pestaña. Los tiempos hasta el primer pintado y hasta las primeras filas se
+ * anotan con {@link MetricasArranque}.
+ * </p>
  * 
  * @author Esteban Martín González
  * @version 1.0
@@ -22,17 +38,36 @@ public class InterfazGrafica extends JFrame {
     // Controlador para manejar la lógica y acceso a datos
     private final ControllerGrafico controlador = new ControllerGrafico();
     // Servicio para generar contenido con IA (modelo de lenguaje)
-    private final LlmService llmService = new LlmService();
+    private final LlmService llmService = LlmService.getInstancia();
+
+    // Panel con las pestañas de productos y clientes
+    private final JTabbedPane tabs = new JTabbedPane();
+
+    // Paneles todavía sin construir, por índice de pestaña
+    private final Map<Integer, Supplier<JPanel>> pendientes = new HashMap<>();
+
+    // Indica si la ventana ya se ha pintado alguna vez
+    private boolean pintada;
 
     /**
      * Construye y configura la ventana principal de la aplicación.
      * <p>
      * Ajusta título, tamaño, comportamiento de cierre, y crea un
      * panel con pestañas para acceder a las secciones de productos
-     * y clientes, aplicando estilos personalizados.
+     * y clientes, aplicando estilos personalizados. Antes de nada lanza
+     * en segundo plano la carga inicial de las dos tablas.
      * </p>
      */
     public InterfazGrafica() {
+        // Pedir ya los IDs y la primera página de cada tabla: las cuatro consultas van en
+        // paralelo mientras se construye y se pinta la ventana
+        ControllerGraficoAsincrono asincrono = new ControllerGraficoAsincrono(controlador);
+        int pagina = ModeloTablaPaginado.getTamanoPagina();
+        CompletableFuture<CargaInicial<ProductoOtaku>> productos = asincrono.obtenerIdsProductos()
+                .thenCombine(asincrono.obtenerProductosPagina(0, pagina), CargaInicial::new);
+        CompletableFuture<CargaInicial<ClienteOtaku>> clientes = asincrono.obtenerIdsClientes()
+                .thenCombine(asincrono.obtenerClientesPagina(0, pagina), CargaInicial::new);
+
         // Configuración básica de la ventana principal
 
         setTitle("Gestor Otaku"); // Título de la ventana
@@ -45,9 +80,6 @@ public class InterfazGrafica extends JFrame {
         requestFocus();        // Solicitar el foco
         setAlwaysOnTop(false); // Restaurar comportamiento normal si ya está al frente
 
-        // Crear un panel con pestañas para organizar la interfaz
-        JTabbedPane tabs = new JTabbedPane();
-
         // Cambiar apariencia del fondo del tabbedpane
         tabs.setBackground(new Color(30, 60, 120));
         tabs.setForeground(Color.WHITE); // color texto pestañas
@@ -75,10 +107,11 @@ public class InterfazGrafica extends JFrame {
             }
         });
 
-        // Agregar pestaña "Productos" con su respectivo panel, pasando el frame, controlador y servicio IA
-        tabs.addTab("Productos", PanelProductos.crear(this, controlador, llmService));
-        // Agregar pestaña "Clientes" con su respectivo panel, pasando frame y controlador
-        tabs.addTab("Clientes", PanelClientes.crear(this, controlador));
+        // Agregar las pestañas con un aviso de carga; cada panel se construye al seleccionarla
+        // por primera vez (el de la pestaña inicial, justo después del primer pintado)
+        agregarPestana("Productos", () -> PanelProductos.crear(this, controlador, llmService, productos));
+        agregarPestana("Clientes", () -> PanelClientes.crear(this, controlador, clientes));
+        tabs.addChangeListener(e -> construirPestana(tabs.getSelectedIndex()));
 
         // Añadir el panel de pestañas a la ventana principal
         add(tabs);
@@ -89,4 +122,48 @@ public class InterfazGrafica extends JFrame {
         // Hacer visible la ventana principal
         setVisible(true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Pinta la ventana y, la primera vez, anota el tiempo de arranque y construye
+     * el panel de la pestaña seleccionada.
+     *
+     * @param g Contexto gráfico
+     */
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!pintada) {
+            pintada = true;
+            MetricasArranque.marcar("primer pintado");
+            SwingUtilities.invokeLater(() -> construirPestana(tabs.getSelectedIndex()));
+        }
+    }
+
+    /**
+     * Añade una pestaña que muestra un aviso de carga hasta que se construye su panel.
+     *
+     * @param titulo Título de la pestaña
+     * @param panel  Construye el panel de la pestaña
+     */
+    private void agregarPestana(String titulo, Supplier<JPanel> panel) {
+        JLabel aviso = new JLabel("Cargando " + titulo.toLowerCase() + "...", SwingConstants.CENTER);
+        aviso.setForeground(Color.WHITE);
+        JPanel marcador = new JPanel(new BorderLayout());
+        marcador.setBackground(new Color(45, 123, 182));
+        marcador.add(aviso, BorderLayout.CENTER);
+        pendientes.put(tabs.getTabCount(), panel);
+        tabs.addTab(titulo, marcador);
+    }
+
+    /**
+     * Construye el panel de una pestaña si todavía muestra el aviso de carga.
+     *
+     * @param indice Índice de la pestaña
+     */
+    private void construirPestana(int indice) {
+        Supplier<JPanel> panel = pendientes.remove(indice);
+        if (panel != null) {
+            tabs.setComponentAt(indice, panel.get());
+        }
+    }
+}
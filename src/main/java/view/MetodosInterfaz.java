@@ -1,12 +1,16 @@
 package view;
 
+import config.ConfigLoader;
+
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Set;
 
 /**
  * Utilidades estáticas para configurar y manipular componentes de la interfaz gráfica.
@@ -18,6 +22,12 @@ import java.util.function.Function;
  */
 public class MetodosInterfaz {
 
+    // Espera tras la última pulsación antes de filtrar (filtroEsperaMs en config.properties)
+    private static final int ESPERA_FILTRO_MS = ConfigLoader.getIntProperty("filtroEsperaMs", 250);
+
+    // Fondo de las celdas editadas que aún no se han guardado
+    private static final Color FONDO_MODIFICADA = new Color(255, 243, 176);
+
     static {
         // Colores azulados personalizados para la interfaz
         UIManager.put("OptionPane.background", new Color(225, 240, 255));
@@ -29,55 +39,160 @@ public class MetodosInterfaz {
     }
 
     /**
-     * Busca un elemento por ID y lo muestra en el modelo de tabla dado.
+     * Selecciona la fila de una entidad y desplaza la tabla hasta ella, por
+     * ejemplo tras insertarla. Si la entidad no se está mostrando no hace nada.
      * 
-     * @param <T>             Tipo del objeto a buscar
-     * @param id              Identificador del objeto a buscar
-     * @param modelo          Modelo de tabla donde mostrar el resultado
-     * @param obtener         Función que recibe un ID y devuelve el objeto
-     * @param mapper          Función que convierte el objeto en fila de tabla
-     * @param msgNoEncontrado Mensaje a mostrar si no se encuentra el objeto
-     * @param frame           Ventana padre para los cuadros de diálogo
+     * @param tabla  Tabla que muestra el modelo
+     * @param modelo Modelo de la tabla
+     * @param id     ID de la entidad a seleccionar
      */
-    public static <T> void buscarPorId(int id, DefaultTableModel modelo, Function<Integer, T> obtener,
-                                       Function<T, Object[]> mapper, String msgNoEncontrado, JFrame frame) {
-        modelo.setRowCount(0);
-        T obj = obtener.apply(id);
-        if (obj != null)
-            modelo.addRow(mapper.apply(obj));
-        else
-            mostrarMensaje(msgNoEncontrado, frame);
+    public static void seleccionarFila(JTable tabla, ModeloTablaPaginado<?> modelo, int id) {
+        int filaModelo = modelo.getFila(id);
+        if (filaModelo < 0)
+            return;
+        int fila = tabla.convertRowIndexToView(filaModelo);
+        if (fila < 0)
+            return;  // oculta por el filtro
+        tabla.setRowSelectionInterval(fila, fila);
+        tabla.scrollRectToVisible(tabla.getCellRect(fila, 0, true));
     }
 
     /**
-     * Actualiza el contenido de la tabla con la lista de objetos proporcionada.
+     * Prepara una tabla editable para guardar los cambios por filas: las celdas
+     * editadas y sin guardar se resaltan, y al seleccionar otra fila se guardan
+     * juntos todos los cambios de la fila que se deja (una sola actualización
+     * aunque se hayan editado varias celdas).
      * 
-     * @param <T>    Tipo de los objetos en la lista
-     * @param modelo Modelo de tabla a actualizar
-     * @param lista  Lista de objetos cuyos datos se mostrarán
-     * @param mapper Función que convierte cada objeto en fila de tabla
+     * @param tabla  Tabla editable
+     * @param modelo Modelo de la tabla
      */
-    public static <T> void actualizarTabla(DefaultTableModel modelo, List<T> lista, Function<T, Object[]> mapper) {
-        modelo.setRowCount(0);
-        lista.forEach(e -> modelo.addRow(mapper.apply(e)));
+    public static void configurarEdicionPorFilas(JTable tabla, ModeloTablaPaginado<?> modelo) {
+
+        tabla.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable t, Object valor, boolean seleccionada,
+                                                           boolean foco, int fila, int columna) {
+                super.getTableCellRendererComponent(t, valor, seleccionada, foco, fila, columna);
+                if (!seleccionada) {
+                    boolean modificada = modelo.estaModificada(t.convertRowIndexToModel(fila),
+                            t.convertColumnIndexToModel(columna));
+                    setBackground(modificada ? FONDO_MODIFICADA : t.getBackground());
+                }
+                return this;
+            }
+        });
+
+        // ID de la fila seleccionada antes del cambio de selección (-1 si ninguna)
+        int[] anterior = { -1 };
+        tabla.getSelectionModel().addListSelectionListener(e -> {
+            if (e.getValueIsAdjusting())
+                return;
+            int fila = tabla.getSelectionModel().getLeadSelectionIndex();
+            int actual = fila >= 0 && fila < tabla.getRowCount()
+                    ? modelo.getId(tabla.convertRowIndexToModel(fila)) : -1;
+            if (anterior[0] != -1 && anterior[0] != actual)
+                modelo.guardarFila(anterior[0]);
+            anterior[0] = actual;
+        });
     }
 
     /**
-     * Crea un modelo de tabla con las columnas especificadas.
-     * Las celdas de la primera columna no serán editables.
+     * Filtra la tabla mientras se escribe en un campo de texto.
+     * <p>
+     * Cada pulsación reinicia una espera corta; cuando el usuario deja de escribir
+     * se buscan en segundo plano, sobre la copia en memoria, los IDs que coinciden
+     * y la tabla muestra solo esas filas mediante un {@link RowFilter}. El filtro
+     * compara IDs, así que no obliga a cargar las páginas que no se ven. Con el
+     * campo vacío se muestran todas las filas.
+     * </p>
+     * <p>
+     * La tabla queda con un {@link TableRowSorter} sin ordenación por columnas
+     * (ordenar una tabla paginada cargaría todas sus filas).
+     * </p>
      * 
-     * @param columnas Nombres de las columnas del modelo
-     * @return Instancia de DefaultTableModel configurada
+     * @param <T>         Tipo de las entidades de la tabla
+     * @param campo       Campo de texto del filtro
+     * @param tabla       Tabla a filtrar
+     * @param modelo      Modelo de la tabla
+     * @param instantanea Copia en memoria del texto de cada fila
+     * @param tareas      Gestor donde se ejecuta la búsqueda
+     * @return Acción que quita el filtro sin tocar el campo (por ejemplo, antes de
+     *         mostrar el resultado de otra búsqueda)
      */
-    public static DefaultTableModel crearModelo(String[] columnas) {
-        return new DefaultTableModel(columnas, 0) {
+    public static <T> Runnable instalarFiltro(JTextField campo, JTable tabla, ModeloTablaPaginado<T> modelo,
+                                              InstantaneaBusqueda<T> instantanea, GestorTareas tareas) {
+
+        TableRowSorter<ModeloTablaPaginado<T>> ordenador = new TableRowSorter<>(modelo);
+        for (int i = 0; i < modelo.getColumnCount(); i++)
+            ordenador.setSortable(i, false);
+        tabla.setRowSorter(ordenador);
+
+        Runnable quitarFiltro = () -> ordenador.setRowFilter(null);
+
+        Timer espera = new Timer(ESPERA_FILTRO_MS, e -> {
+            String texto = campo.getText().trim();
+            if (texto.isEmpty()) {
+                // Si la búsqueda anterior sigue en curso su resultado ya no sirve
+                tareas.cancelar("filtro");
+                quitarFiltro.run();
+                return;
+            }
+            tareas.ejecutar("filtro", "Filtrando...", () -> instantanea.filtrar(texto))
+                    .thenAccept(ids -> ordenador.setRowFilter(filtroPorId(modelo, ids)));
+        });
+        espera.setRepeats(false);
+
+        campo.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public boolean isCellEditable(int row, int col) {
-                return col != 0;
+            public void insertUpdate(DocumentEvent e) {
+                espera.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                espera.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                espera.restart();
+            }
+        });
+
+        return () -> {
+            espera.stop();
+            quitarFiltro.run();
+        };
+    }
+
+    /**
+     * Crea un filtro de filas que deja pasar las entidades con los IDs dados.
+     */
+    private static <T> RowFilter<ModeloTablaPaginado<T>, Integer> filtroPorId(ModeloTablaPaginado<T> modelo,
+                                                                           Set<Integer> ids) {
+        return new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends ModeloTablaPaginado<T>, ? extends Integer> fila) {
+                return ids.contains(modelo.getId(fila.getIdentifier()));
             }
         };
     }
 
+    /**
+     * Muestra en el modelo de tabla dado el resultado de una búsqueda por ID.
+     * 
+     * @param <T>             Tipo del objeto buscado
+     * @param obj             Objeto encontrado, o null si no existe
+     * @param modelo          Modelo de tabla donde mostrar el resultado
+     * @param msgNoEncontrado Mensaje a mostrar si no se encuentra el objeto
+     * @param frame           Ventana padre para los cuadros de diálogo
+     */
+    public static <T> void mostrarPorId(T obj, ModeloTablaPaginado<T> modelo, String msgNoEncontrado, JFrame frame) {
+        modelo.mostrarLista(obj != null ? List.of(obj) : List.of());
+        if (obj == null)
+            mostrarMensaje(msgNoEncontrado, frame);
+    }
+
     /**
      * Solicita al usuario un texto mediante un cuadro de diálogo estilizado.
      * 
@@ -0,0 +1,614 @@
+package view;
+
+import config.ConfigLoader;
+import dao.CambiosFila;
+import util.EjecutorAsincrono;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Modelo de tabla que carga las filas por páginas a medida que se muestran.
+ * <p>
+ * Tiene dos modos de funcionamiento:
+ * </p>
+ * <ul>
+ * <li><b>Lista</b> ({@link #mostrarLista(List)}): muestra una lista ya cargada,
+ * por ejemplo el resultado de una búsqueda.</li>
+ * <li><b>Paginado</b> ({@link #mostrarPaginado(int[], BiFunction)}): solo recibe los
+ * IDs de todas las filas; los datos de cada página se piden en segundo plano la
+ * primera vez que la tabla necesita pintarla. Las filas cargadas se guardan
+ * por ID y en memoria se mantiene un número limitado de páginas (las filas
+ * menos usadas se descartan y se vuelven a pedir si hace falta).</li>
+ * </ul>
+ * <p>
+ * Cada cambio de contenido se notifica con un único evento, en lugar de un
+ * evento por fila. Tras una alta, una modificación o una baja no hace falta
+ * volver a cargar la tabla: {@link #insertar(Object)}, {@link #actualizar(Object)}
+ * y {@link #eliminar(int)} cambian solo la fila afectada. Mientras una página se
+ * está cargando sus celdas aparecen vacías. Todos los métodos deben llamarse
+ * desde el hilo de Swing.
+ * </p>
+ * <p>
+ * Las celdas editadas no se guardan una a una: el modelo apunta qué columnas
+ * han cambiado en cada fila y las guarda juntas con {@link #guardarFila(int)}
+ * (normalmente al salir de la fila) o todas las filas a la vez con
+ * {@link #guardarTodo()}. Hasta entonces la fila muestra los valores editados.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>tablaPagina: filas que se piden en cada página (por defecto 200)</li>
+ * <li>tablaPaginasMemoria: páginas que se mantienen en memoria (por defecto 50)</li>
+ * </ul>
+ *
+ * @param <T> Tipo de las entidades mostradas en cada fila
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class ModeloTablaPaginado<T> extends AbstractTableModel {
+
+    private static final int TAMANO_PAGINA = Math.max(1, ConfigLoader.getIntProperty("tablaPagina", 200));
+    private static final int MAX_PAGINAS = Math.max(2, ConfigLoader.getIntProperty("tablaPaginasMemoria", 50));
+
+    /**
+     * Valida el valor introducido en una celda y lo asigna a la entidad.
+     *
+     * @param <T> Tipo de las entidades de la tabla
+     */
+    @FunctionalInterface
+    public interface Asignacion<T> {
+
+        /**
+         * @param entidad Copia de la entidad de la fila editada
+         * @param columna Columna editada
+         * @param valor   Valor introducido por el usuario
+         * @return true si el valor es válido y se asignó; si es false la celda no cambia
+         */
+        boolean asignar(T entidad, int columna, Object valor);
+    }
+
+    /**
+     * Guarda en la base de datos los cambios pendientes de una o varias filas.
+     *
+     * @param <T> Tipo de las entidades de la tabla
+     */
+    @FunctionalInterface
+    public interface Guardado<T> {
+
+        /**
+         * @param filas Entidad de cada fila con sus valores nuevos y las columnas
+         *              de la base de datos que han cambiado
+         * @return Futuro con true si se guardaron todas; si es false (o falla) las
+         *         filas siguen pendientes
+         */
+        CompletableFuture<Boolean> guardar(List<CambiosFila<T>> filas);
+    }
+
+    private final String[] columnas;
+    private final List<Function<T, Object>> valores;
+    private final ToIntFunction<T> obtenerId;
+    private final UnaryOperator<T> copiar;
+
+    // Columnas editables (índice en la tabla -> columna en la base de datos) y acciones de edición
+    private final Map<Integer, String> editables = new HashMap<>();
+    private Asignacion<T> asignacion;
+    private Guardado<T> guardado;
+
+    // Cambios sin guardar por ID. Se conservan aunque cambie el contenido de la tabla, de
+    // modo que una fila editada se sigue mostrando con sus cambios si vuelve a aparecer.
+    private final Map<Integer, Pendiente<T>> modificadas = new LinkedHashMap<>();
+    private int versionEdicion;
+
+    // Modo lista: filas completas en memoria (null en modo paginado)
+    private List<T> lista = new ArrayList<>();
+
+    // Marca de las filas cuyo ID ya no devolvió la base de datos (borradas por otro usuario)
+    private static final Object AUSENTE = new Object();
+
+    // Modo paginado: IDs de todas las filas (ordenados) y filas cargadas por ID, de la menos
+    // a la más usada. Al guardarlas por ID, insertar o borrar una fila no desplaza las demás.
+    private int[] ids;
+    private BiFunction<Integer, Integer, List<T>> cargarPagina;
+    private final Map<Integer, Object> cargadas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object> mayor) {
+            return size() > MAX_PAGINAS * TAMANO_PAGINA;
+        }
+    };
+    private final Set<Integer> pendientes = new HashSet<>();
+
+    // Filas cambiadas mientras había páginas cargándose: la carga no debe pisarlas
+    private final Set<Integer> cambiadas = new HashSet<>();
+
+    // Se incrementa con cada cambio de contenido para descartar cargas antiguas
+    private int generacion;
+
+    /**
+     * Crea un modelo vacío.
+     *
+     * @param columnas  Nombres de las columnas
+     * @param valores   Función que obtiene el valor de cada columna a partir de la entidad
+     * @param obtenerId Función que devuelve el ID de una entidad
+     * @param copiar    Función que crea una copia de una entidad (para editarla sin
+     *                  modificar la fila hasta que se guarde)
+     */
+    public ModeloTablaPaginado(String[] columnas, List<Function<T, Object>> valores,
+                               ToIntFunction<T> obtenerId, UnaryOperator<T> copiar) {
+        this.columnas = columnas.clone();
+        this.valores = List.copyOf(valores);
+        this.obtenerId = obtenerId;
+        this.copiar = copiar;
+    }
+
+    /**
+     * Número de filas que se piden en cada página (propiedad tablaPagina).
+     *
+     * @return Tamaño de página configurado
+     */
+    public static int getTamanoPagina() {
+        return TAMANO_PAGINA;
+    }
+
+    /**
+     * Indica qué columnas se pueden editar y cómo se validan y guardan los cambios.
+     *
+     * @param asignacion Acción que valida y asigna el valor de cada celda editada
+     * @param guardado   Acción que guarda los cambios pendientes de una o varias filas
+     * @param editables  Columnas editables: índice en la tabla y nombre de la columna
+     *                   en la base de datos
+     */
+    public void setEdicion(Asignacion<T> asignacion, Guardado<T> guardado, Map<Integer, String> editables) {
+        this.asignacion = asignacion;
+        this.guardado = guardado;
+        this.editables.clear();
+        this.editables.putAll(editables);
+    }
+
+    /**
+     * Guarda los cambios pendientes de una fila con una única actualización.
+     *
+     * @param id ID de la entidad de la fila
+     * @return Futuro con true si se guardó (o no había cambios)
+     */
+    public CompletableFuture<Boolean> guardarFila(int id) {
+        return guardar(List.of(id));
+    }
+
+    /**
+     * Guarda a la vez los cambios pendientes de todas las filas.
+     *
+     * @return Futuro con true si se guardaron todos (o no había cambios)
+     */
+    public CompletableFuture<Boolean> guardarTodo() {
+        return guardar(new ArrayList<>(modificadas.keySet()));
+    }
+
+    /**
+     * Número de filas con cambios sin guardar.
+     *
+     * @return Filas modificadas
+     */
+    public int getFilasModificadas() {
+        return modificadas.size();
+    }
+
+    /**
+     * Indica si una celda tiene un cambio sin guardar.
+     *
+     * @param fila    Índice de la fila en el modelo
+     * @param columna Índice de la columna
+     * @return true si la celda se editó y todavía no se ha guardado
+     */
+    public boolean estaModificada(int fila, int columna) {
+        String columnaBD = editables.get(columna);
+        if (modificadas.isEmpty() || columnaBD == null) {
+            return false;
+        }
+        Pendiente<T> pendiente = modificadas.get(getId(fila));
+        return pendiente != null && pendiente.columnas.containsKey(columnaBD);
+    }
+
+    /**
+     * Muestra una lista de entidades ya cargada.
+     *
+     * @param entidades Entidades a mostrar, en orden
+     */
+    public void mostrarLista(List<T> entidades) {
+        generacion++;
+        ids = null;
+        cargarPagina = null;
+        vaciarCargadas();
+        lista = new ArrayList<>(entidades);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Muestra todas las filas de una tabla cargándolas por páginas.
+     * <p>
+     * Solo se reciben los IDs (que se pueden obtener en segundo plano); cada
+     * página se pide después con {@code cargarPagina(despuesDeId, limite)} cuando
+     * hace falta pintarla.
+     * </p>
+     *
+     * @param ids          IDs de todas las filas en orden ascendente
+     * @param cargarPagina Función que devuelve las entidades con ID mayor que el primero
+     *                     de sus argumentos, ordenadas por ID y limitadas por el segundo,
+     *                     o null si no se pudieron leer (la página se vuelve a pedir
+     *                     la próxima vez que haga falta pintarla)
+     */
+    public void mostrarPaginado(int[] ids, BiFunction<Integer, Integer, List<T>> cargarPagina) {
+        mostrarPaginado(ids, cargarPagina, List.of());
+    }
+
+    /**
+     * Muestra todas las filas de una tabla cargándolas por páginas, partiendo de
+     * algunas filas ya leídas (normalmente la primera página), que se pintan sin
+     * volver a consultarlas.
+     *
+     * @param ids          IDs de todas las filas en orden ascendente
+     * @param cargarPagina Función que devuelve las entidades con ID mayor que el primero
+     *                     de sus argumentos, ordenadas por ID y limitadas por el segundo,
+     *                     o null si no se pudieron leer
+     * @param precargadas  Entidades ya leídas de algunas de esas filas, o null si
+     *                     no se pudieron leer
+     */
+    public void mostrarPaginado(int[] ids, BiFunction<Integer, Integer, List<T>> cargarPagina,
+                                List<T> precargadas) {
+        generacion++;
+        lista = null;
+        this.ids = ids;
+        this.cargarPagina = cargarPagina;
+        vaciarCargadas();
+        if (precargadas != null) {
+            for (T entidad : precargadas) {
+                cargadas.put(obtenerId.applyAsInt(entidad), entidad);
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Añade una fila con una entidad recién creada. En modo paginado se coloca en
+     * la posición que le corresponde por su ID; en modo lista, al final. Si ya
+     * había una fila con ese ID se actualiza.
+     *
+     * @param entidad Entidad guardada, con su ID asignado
+     */
+    public void insertar(T entidad) {
+        int id = obtenerId.applyAsInt(entidad);
+        if (getFila(id) >= 0) {
+            actualizar(entidad);
+            return;
+        }
+        int fila;
+        if (lista != null) {
+            fila = lista.size();
+            lista.add(entidad);
+        } else {
+            fila = -Arrays.binarySearch(ids, id) - 1;
+            int[] nuevos = new int[ids.length + 1];
+            System.arraycopy(ids, 0, nuevos, 0, fila);
+            nuevos[fila] = id;
+            System.arraycopy(ids, fila, nuevos, fila + 1, ids.length - fila);
+            ids = nuevos;
+            guardarCargada(id, entidad);
+        }
+        fireTableRowsInserted(fila, fila);
+    }
+
+    /**
+     * Sustituye la fila de una entidad por su versión guardada. Si la entidad no
+     * se está mostrando no hace nada.
+     *
+     * @param entidad Entidad con los datos actualizados
+     */
+    public void actualizar(T entidad) {
+        int id = obtenerId.applyAsInt(entidad);
+        int fila = getFila(id);
+        if (fila < 0) {
+            return;
+        }
+        if (lista != null) {
+            lista.set(fila, entidad);
+        } else {
+            guardarCargada(id, entidad);
+        }
+        fireTableRowsUpdated(fila, fila);
+    }
+
+    /**
+     * Quita la fila de una entidad eliminada. Si no se está mostrando no hace nada.
+     *
+     * @param id ID de la entidad eliminada
+     */
+    public void eliminar(int id) {
+        int fila = getFila(id);
+        if (fila < 0) {
+            return;
+        }
+        if (lista != null) {
+            lista.remove(fila);
+        } else {
+            int[] nuevos = new int[ids.length - 1];
+            System.arraycopy(ids, 0, nuevos, 0, fila);
+            System.arraycopy(ids, fila + 1, nuevos, fila, nuevos.length - fila);
+            ids = nuevos;
+            cargadas.remove(id);
+        }
+        modificadas.remove(id);
+        fireTableRowsDeleted(fila, fila);
+    }
+
+    /**
+     * Busca la fila de una entidad por su ID.
+     *
+     * @param id ID de la entidad
+     * @return Índice de la fila en el modelo, o -1 si no se está mostrando
+     */
+    public int getFila(int id) {
+        if (lista != null) {
+            for (int i = 0; i < lista.size(); i++) {
+                if (obtenerId.applyAsInt(lista.get(i)) == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return Math.max(-1, Arrays.binarySearch(ids, id));
+    }
+
+    /**
+     * Devuelve la entidad de una fila si ya está cargada, con sus cambios sin
+     * guardar. Si no lo está, pide su página en segundo plano y devuelve null.
+     *
+     * @param fila Índice de la fila en el modelo
+     * @return Entidad de la fila o null si todavía no está disponible
+     */
+    public T getEntidad(int fila) {
+        T entidad = leerEntidad(fila);
+        if (entidad == null || modificadas.isEmpty()) {
+            return entidad;
+        }
+        Pendiente<T> pendiente = modificadas.get(obtenerId.applyAsInt(entidad));
+        return pendiente != null ? pendiente.entidad : entidad;
+    }
+
+    /**
+     * Devuelve el ID de la entidad de una fila sin necesidad de que esté cargada.
+     *
+     * @param fila Índice de la fila en el modelo
+     * @return ID de la entidad
+     */
+    public int getId(int fila) {
+        return lista != null ? obtenerId.applyAsInt(lista.get(fila)) : ids[fila];
+    }
+
+    /**
+     * Indica si el modelo muestra una lista completa en memoria (y no páginas).
+     *
+     * @return true en modo lista
+     */
+    public boolean esModoLista() {
+        return lista != null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return lista != null ? lista.size() : ids.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columnas[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        T entidad = getEntidad(fila);
+        return entidad != null ? valores.get(columna).apply(entidad) : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int fila, int columna) {
+        return asignacion != null && editables.containsKey(columna) && getEntidad(fila) != null;
+    }
+
+    @Override
+    public void setValueAt(Object valor, int fila, int columna) {
+        T entidad = getEntidad(fila);
+        String columnaBD = editables.get(columna);
+        if (entidad == null || columnaBD == null || asignacion == null) {
+            return;
+        }
+        // Se edita una copia para no mostrar un valor que no es válido
+        T copia = copiar.apply(entidad);
+        if (!asignacion.asignar(copia, columna, valor)) {
+            return;
+        }
+        Pendiente<T> pendiente = modificadas.computeIfAbsent(obtenerId.applyAsInt(copia), id -> new Pendiente<>());
+        pendiente.entidad = copia;
+        pendiente.columnas.put(columnaBD, ++versionEdicion);
+        fireTableRowsUpdated(fila, fila);
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Entidad de una fila tal como se cargó o se guardó por última vez.
+     */
+    @SuppressWarnings("unchecked")
+    private T leerEntidad(int fila) {
+        if (lista != null) {
+            return lista.get(fila);
+        }
+        int pagina = fila / TAMANO_PAGINA;
+        // Al acercarse al final de la página se adelanta la siguiente para que el scroll no se note
+        int siguiente = (pagina + 1) * TAMANO_PAGINA;
+        if (fila % TAMANO_PAGINA >= TAMANO_PAGINA * 3 / 4 && siguiente < ids.length
+                && !cargadas.containsKey(ids[siguiente])) {
+            solicitarPagina(pagina + 1);
+        }
+        Object entidad = cargadas.get(ids[fila]);
+        if (entidad == null) {
+            solicitarPagina(pagina);
+            return null;
+        }
+        return entidad != AUSENTE ? (T) entidad : null;
+    }
+
+    /**
+     * Descarta las filas cargadas y las cargas en curso.
+     */
+    private void vaciarCargadas() {
+        cargadas.clear();
+        pendientes.clear();
+        cambiadas.clear();
+    }
+
+    /**
+     * Guarda una fila cambiada en la tabla, protegiéndola de las cargas en curso.
+     */
+    private void guardarCargada(int id, T entidad) {
+        cargadas.put(id, entidad);
+        if (!pendientes.isEmpty()) {
+            cambiadas.add(id);
+        }
+    }
+
+    /**
+     * Pide en segundo plano los datos de una página si no están ya pedidos.
+     */
+    private void solicitarPagina(int pagina) {
+        int desde = pagina * TAMANO_PAGINA;
+        if (ids == null || desde >= ids.length || !pendientes.add(pagina)) {
+            return;
+        }
+        int hasta = Math.min(desde + TAMANO_PAGINA, ids.length);
+        int carga = generacion;
+        int[] idsCarga = ids;  // los IDs pueden cambiar mientras se carga
+        BiFunction<Integer, Integer, List<T>> cargar = cargarPagina;
+
+        EjecutorAsincrono.getInstancia()
+            .ejecutar(() -> cargar.apply(idsCarga[desde] - 1, hasta - desde))
+            .whenComplete((entidades, error) -> SwingUtilities.invokeLater(() -> {
+                if (carga != generacion) {
+                    return;
+                }
+                // Si la carga falla solo se quita de pendientes: se vuelve a pedir al pintarla
+                pendientes.remove(pagina);
+                if (error == null && entidades != null) {
+                    // Las filas que faltan en una página bien leída se borraron desde que se cargaron los IDs
+                    for (T entidad : entidades) {
+                        int id = obtenerId.applyAsInt(entidad);
+                        if (!cambiadas.contains(id)) {
+                            cargadas.put(id, entidad);
+                        }
+                    }
+                    for (int i = desde; i < hasta; i++) {
+                        cargadas.putIfAbsent(idsCarga[i], AUSENTE);
+                    }
+                    // Desde que se pidió la página pudieron insertarse o borrarse filas
+                    int primera = posicion(idsCarga[desde]);
+                    int ultima = Math.min(posicion(idsCarga[hasta - 1]), ids.length - 1);
+                    if (primera <= ultima) {
+                        fireTableRowsUpdated(primera, ultima);
+                    }
+                }
+                if (pendientes.isEmpty()) {
+                    cambiadas.clear();
+                }
+            }));
+    }
+
+    /**
+     * Envía a guardar los cambios pendientes de las filas dadas y, si se guardan,
+     * los da por confirmados.
+     */
+    private CompletableFuture<Boolean> guardar(List<Integer> idsFilas) {
+        List<CambiosFila<T>> filas = new ArrayList<>();
+        List<Map<String, Integer>> versiones = new ArrayList<>();
+        for (int id : idsFilas) {
+            Pendiente<T> pendiente = modificadas.get(id);
+            if (pendiente != null) {
+                filas.add(new CambiosFila<>(copiar.apply(pendiente.entidad), pendiente.columnas.keySet()));
+                versiones.add(new HashMap<>(pendiente.columnas));
+            }
+        }
+        if (filas.isEmpty() || guardado == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return guardado.guardar(filas).thenApply(guardadas -> {
+            if (guardadas) {
+                enHiloSwing(() -> {
+                    for (int i = 0; i < filas.size(); i++) {
+                        confirmar(filas.get(i).entidad(), versiones.get(i));
+                    }
+                });
+            }
+            return guardadas;
+        });
+    }
+
+    /**
+     * Da por guardada una fila: pasa a ser su versión cargada y deja de estar
+     * pendiente, salvo las columnas que se volvieron a editar mientras se guardaba.
+     */
+    private void confirmar(T entidad, Map<String, Integer> versiones) {
+        int id = obtenerId.applyAsInt(entidad);
+        Pendiente<T> pendiente = modificadas.get(id);
+        if (pendiente != null) {
+            pendiente.columnas.entrySet().removeIf(c -> c.getValue().equals(versiones.get(c.getKey())));
+            if (pendiente.columnas.isEmpty()) {
+                modificadas.remove(id);
+            }
+        }
+        actualizar(entidad);
+    }
+
+    private static void enHiloSwing(Runnable accion) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            accion.run();
+        } else {
+            SwingUtilities.invokeLater(accion);
+        }
+    }
+
+    /**
+     * Posición de un ID en la tabla, o la que ocuparía si ya no está.
+     */
+    private int posicion(int id) {
+        int posicion = Arrays.binarySearch(ids, id);
+        return posicion >= 0 ? posicion : -posicion - 1;
+    }
+
+    /**
+     * Cambios sin guardar de una fila: entidad con los valores editados y versión
+     * de la última edición de cada columna de la base de datos.
+     */
+    private static final class Pendiente<T> {
+        private T entidad;
+        private final Map<String, Integer> columnas = new HashMap<>();
+    }
+
+}
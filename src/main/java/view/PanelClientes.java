@@ -1,18 +1,23 @@
 package view;
 
+import dao.ResultadoEscritura;
 import model.ClienteOtaku;
+import util.MetricasArranque;
 
 import javax.swing.*;
-import javax.swing.event.TableModelEvent;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Clase que crea y gestiona la interfaz gráfica para la sección de clientes.
  * Proporciona una tabla con CRUD completo, filtros por ID y email, y manejo
  * de visualización y edición directa en la tabla.
+ * Las consultas a la base de datos se ejecutan en segundo plano con un
+ * {@link GestorTareas}, que muestra su progreso y permite cancelarlas.
  * 
  * @author Esteban Martín González
  * @version 1.0
@@ -20,40 +25,72 @@ import java.util.List;
  */
 public class PanelClientes {
 
+    /**
+     * Crea el panel de clientes consultando su carga inicial al crearlo.
+     *
+     * @param frame          ventana principal donde se mostrará el panel
+     * @param controlador    instancia del controlador para acceder a datos
+     * @return JPanel configurado con la interfaz de clientes
+     */
+    public static JPanel crear(JFrame frame, ControllerGrafico controlador) {
+        return crear(frame, controlador, null);
+    }
+
     /**
      * Crea y devuelve un JPanel con la interfaz para gestionar clientes.
      * Incluye tabla con clientes, filtros, botones para CRUD y edición en línea.
      *
      * @param frame          ventana principal donde se mostrará el panel
      * @param controlador    instancia del controlador para acceder a datos
+     * @param inicial       Carga inicial de la tabla ya pedida en segundo plano, o null
+     *                      para consultarla al crear el panel
      * @return JPanel configurado con la interfaz de clientes
      */
-    public static JPanel crear(JFrame frame, ControllerGrafico controlador) {
+    public static JPanel crear(JFrame frame, ControllerGrafico controlador,
+                               CompletableFuture<CargaInicial<ClienteOtaku>> inicial) {
 
         // Definición de columnas para la tabla clientes (agregamos "Fecha")
         String[] columnas = { "ID", "Nombre", "Email", "Teléfono", "Fecha" };
 
-        // Crear modelo de tabla con las columnas definidas (solo algunas columnas son editables)
-        DefaultTableModel modelo = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                // Solo permitir edición en columnas Nombre, Email y Teléfono
-                return column == 1 || column == 2 || column == 3;
-            }
-        };
+        // Formateador de fecha para mostrar LocalDate como string
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        // Valor que se muestra en cada columna a partir del cliente
+        List<Function<ClienteOtaku, Object>> valores = List.of(
+                ClienteOtaku::getId, ClienteOtaku::getNombre, ClienteOtaku::getEmail, ClienteOtaku::getTelefono,
+                c -> c.getFechaRegistro() != null ? c.getFechaRegistro().format(formatter) : ""
+        );
+
+        // Crear modelo de tabla con las columnas definidas (las filas se cargan por páginas)
+        ModeloTablaPaginado<ClienteOtaku> modelo =
+                new ModeloTablaPaginado<>(columnas, valores, ClienteOtaku::getId, ClienteOtaku::new);
 
         // Crear la tabla JTable con el modelo
         JTable tabla = new JTable(modelo);
 
-        // Formateador de fecha para mostrar LocalDate como string
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        // Barra de estado que ejecuta las consultas fuera del hilo de Swing
+        GestorTareas tareas = new GestorTareas(new Color(45, 123, 182));
+
+        // Mostrar todos los clientes: se cargan los IDs y las filas por páginas a medida que se ven.
+        // Las tareas del grupo "tabla" se reemplazan entre sí: solo se muestra la última búsqueda.
+        Runnable mostrarTodo = () ->
+                tareas.ejecutar("tabla", "Cargando clientes...", controlador::obtenerIdsClientes)
+                        .thenAccept(ids -> modelo.mostrarPaginado(ids, controlador::obtenerClientesPagina));
+
+        // Cargar todos los clientes en la tabla al inicio, usando la carga ya pedida por la ventana si la hay
+        if (inicial != null) {
+            tareas.ejecutar("tabla", "Cargando clientes...", inicial::join)
+                    .thenAccept(carga -> {
+                        modelo.mostrarPaginado(carga.ids(), controlador::obtenerClientesPagina, carga.primeraPagina());
+                        MetricasArranque.marcar("primera fila de clientes");
+                    });
+        } else {
+            mostrarTodo.run();
+        }
 
-        // Cargar todos los clientes en la tabla al inicio
-        MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosClientes(),
-                c -> new Object[] {
-                        c.getId(), c.getNombre(), c.getEmail(), c.getTelefono(),
-                        c.getFechaRegistro().format(formatter)
-                });
+        // Copia en memoria de los emails para filtrar mientras se escribe
+        InstantaneaBusqueda<ClienteOtaku> emails = new InstantaneaBusqueda<>(ClienteOtaku::getId,
+                ClienteOtaku::getEmail, controlador::obtenerIdsClientes, controlador::obtenerEmailsClientesDesde);
 
         // Panel principal con layout BorderLayout
         JPanel panel = new JPanel(new BorderLayout());
@@ -90,96 +127,125 @@ public class PanelClientes {
         filtros.add(mostrarTodos); filtros.add(agregar);
         panel.add(filtros, BorderLayout.NORTH);
 
+        // Filtrar por email mientras se escribe, sobre la copia en memoria
+        Runnable quitarFiltro = MetodosInterfaz.instalarFiltro(txtEmail, tabla, modelo, emails, tareas);
+
         // Acción para buscar cliente por ID
         buscarId.addActionListener(e -> {
             try {
                 int id = Integer.parseInt(txtId.getText().trim());
-                MetodosInterfaz.buscarPorId(id, modelo, controlador::obtenerClientePorId,
-                        c -> new Object[] {
-                                c.getId(), c.getNombre(), c.getEmail(), c.getTelefono(),
-                                c.getFechaRegistro().format(formatter)
-                        },
-                        "Cliente no encontrado.", frame);
+                quitarFiltro.run();
+                tareas.ejecutar("tabla", "Buscando cliente...", () -> controlador.obtenerClientePorId(id))
+                        .thenAccept(c -> MetodosInterfaz.mostrarPorId(c, modelo, "Cliente no encontrado.", frame));
             } catch (NumberFormatException ex) {
                 MetodosInterfaz.mostrarMensaje("ID debe ser numérico.", frame);
             }
         });
 
-        // Acción para buscar clientes por Email
+        // Acción para buscar clientes por Email en la base de datos (sin el filtro en vivo)
         buscarEmail.addActionListener(e -> {
-            List<ClienteOtaku> res = controlador.buscarClientePorEmail(txtEmail.getText().trim());
-            MetodosInterfaz.actualizarTabla(modelo, res,
-                    c -> new Object[] {
-                            c.getId(), c.getNombre(), c.getEmail(), c.getTelefono(),
-                            c.getFechaRegistro().format(formatter)
-                    });
+            String email = txtEmail.getText().trim();
+            quitarFiltro.run();
+            tareas.ejecutar("tabla", "Buscando clientes...", () -> controlador.buscarClientePorEmail(email))
+                    .thenAccept(modelo::mostrarLista);
         });
 
         // Acción para mostrar todos los clientes
-        mostrarTodos.addActionListener(e -> MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosClientes(),
-                c -> new Object[] {
-                        c.getId(), c.getNombre(), c.getEmail(), c.getTelefono(),
-                        c.getFechaRegistro().format(formatter)
-                }));
+        mostrarTodos.addActionListener(e -> {
+            txtEmail.setText("");
+            mostrarTodo.run();
+        });
 
         // Acción para agregar un nuevo cliente a través de un formulario
         agregar.addActionListener(e -> {
             FormularioCliente form = new FormularioCliente(frame);
             form.setVisible(true);
             if (form.isConfirmado()) {
-                controlador.agregarCliente(new ClienteOtaku(form.getNombre(), form.getEmail(), form.getTelefono()));
-                // Actualizar tabla tras agregar el nuevo cliente
-                MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosClientes(),
-                        c -> new Object[] {
-                                c.getId(), c.getNombre(), c.getEmail(), c.getTelefono(),
-                                c.getFechaRegistro().format(formatter)
+                ClienteOtaku nuevo = new ClienteOtaku(form.getNombre(), form.getEmail(), form.getTelefono());
+                tareas.escribir("Guardando cliente...", () -> controlador.agregarCliente(nuevo))
+                        .thenAccept(resultado -> {
+                            if (resultado != ResultadoEscritura.OK) {
+                                MetodosInterfaz.mostrarMensaje(resultado == ResultadoEscritura.EMAIL_DUPLICADO
+                                        ? "Email no es válido, el email ya existe."
+                                        : "No se pudo agregar el cliente.", frame);
+                                return;
+                            }
+                            // Añadir solo la fila del nuevo cliente (el DAO ya le asignó el ID)
+                            modelo.insertar(nuevo);
+                            emails.guardar(nuevo);
+                            MetodosInterfaz.seleccionarFila(tabla, modelo, nuevo.getId());
+                            MetodosInterfaz.mostrarMensaje("Cliente agregado correctamente.", frame);
                         });
-                MetodosInterfaz.mostrarMensaje("Cliente agregado correctamente.", frame);
             }
         });
 
-        // Listener para detectar ediciones en la tabla y actualizar el cliente correspondiente
-        modelo.addTableModelListener(e -> {
-            if (e.getType() != TableModelEvent.UPDATE) return;
-
-            int fila = e.getFirstRow(), col = e.getColumn();
-            int id = (int) modelo.getValueAt(fila, 0);
-            ClienteOtaku c = controlador.obtenerClientePorId(id);
-
+        // Guardar las ediciones hechas en la tabla. El modelo pasa una copia del cliente de la
+        // fila, así que no hace falta volver a leerlo, y un valor no válido no cambia la fila.
+        // La validación se hace aquí; los cambios se acumulan por fila y se guardan en segundo
+        // plano al salir de la fila (solo las columnas cambiadas) o todos con "Guardar Todo".
+        ModeloTablaPaginado.Asignacion<ClienteOtaku> asignar = (c, col, valor) -> {
             try {
+                String texto = String.valueOf(valor).trim();
                 switch (col) {
                     case 1 -> {
-                        String nombre = ((String) modelo.getValueAt(fila, col)).trim();
-                        if (nombre.isEmpty())
+                        if (texto.isEmpty())
                             throw new IllegalArgumentException("El nombre no puede estar vacío");
-                        c.setNombre(nombre);
+                        c.setNombre(texto);
                     }
                     case 2 -> {
-                        String email = ((String) modelo.getValueAt(fila, col)).trim();
-                        if (!email.matches("^[\\w.-]+@[\\w.-]+\\.\\w+$"))
+                        if (!texto.matches("^[\\w.-]+@[\\w.-]+\\.\\w+$"))
                             throw new IllegalArgumentException("Email inválido");
-                        c.setEmail(email);
+                        c.setEmail(texto);
                     }
                     case 3 -> {
-                        String telStr = modelo.getValueAt(fila, col).toString().trim();
-                        if (!telStr.matches("\\d+"))
+                        if (!texto.matches("\\d+"))
                             throw new IllegalArgumentException("Teléfono solo debe contener números");
-                        int telefono = Integer.parseInt(telStr);
+                        int telefono = Integer.parseInt(texto);
                         if (telefono <= 0)
                             throw new IllegalArgumentException("Teléfono debe ser positivo");
                         c.setTelefono(telefono);
                     }
                 }
-                // Guardar cambios
-                controlador.actualizarCliente(c);
-            } catch (Exception ex) {
+                return true;
+            } catch (IllegalArgumentException ex) {
                 MetodosInterfaz.mostrarMensaje("Error al actualizar cliente: " + ex.getMessage(), frame);
-                MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosClientes(),
-                        cli -> new Object[] {
-                                cli.getId(), cli.getNombre(), cli.getEmail(), cli.getTelefono(),
-                                cli.getFechaRegistro().format(formatter)
+                return false;
+            }
+        };
+        ModeloTablaPaginado.Guardado<ClienteOtaku> guardar = filas ->
+                tareas.escribir("Guardando cambios...", () -> controlador.actualizarCamposClientes(filas))
+                        .thenApply(resultado -> {
+                            String error = switch (resultado) {
+                                case OK -> null;
+                                case EMAIL_DUPLICADO -> "El email ya está registrado";
+                                case NO_ENCONTRADO -> "El cliente ya no existe";
+                                default -> "No se pudo guardar en la base de datos";
+                            };
+                            if (error != null)
+                                MetodosInterfaz.mostrarMensaje("Error al actualizar cliente: " + error, frame);
+                            else
+                                filas.forEach(f -> emails.guardar(f.entidad()));
+                            return error == null;
                         });
+        modelo.setEdicion(asignar, guardar, Map.of(1, "nombre", 2, "email", 3, "telefono"));
+        MetodosInterfaz.configurarEdicionPorFilas(tabla, modelo);
+
+        // Botón para guardar de una vez (en una transacción) los cambios de todas las filas
+        JButton guardarTodo = new JButton("Guardar Todo");
+        guardarTodo.setBackground(btnColor);
+        guardarTodo.setForeground(btnTexto);
+        guardarTodo.setFocusPainted(false);
+        guardarTodo.addActionListener(e -> {
+            if (tabla.isEditing())
+                tabla.getCellEditor().stopCellEditing();
+            if (modelo.getFilasModificadas() == 0) {
+                MetodosInterfaz.mostrarMensaje("No hay cambios pendientes.", frame);
+                return;
             }
+            modelo.guardarTodo().thenAccept(guardados -> {
+                if (guardados)
+                    MetodosInterfaz.mostrarMensaje("Cambios guardados correctamente.", frame);
+            });
         });
 
         // Botón para eliminar cliente seleccionado
@@ -195,22 +261,29 @@ public class PanelClientes {
             }
             UIManager.put("OptionPane.yesButtonText", "Si");
             UIManager.put("OptionPane.noButtonText", "No");
-            int id = (int) modelo.getValueAt(fila, 0);
+            int id = modelo.getId(tabla.convertRowIndexToModel(fila));
             if (JOptionPane.showConfirmDialog(frame, "¿Eliminar cliente?", "Confirmar", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                controlador.eliminarCliente(id);
-                MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosClientes(),
-                        c -> new Object[] {
-                                c.getId(), c.getNombre(), c.getEmail(), c.getTelefono(),
-                                c.getFechaRegistro().format(formatter)
+                tareas.escribir("Eliminando cliente...", () -> controlador.eliminarCliente(id))
+                        .thenAccept(eliminado -> {
+                            if (eliminado) {
+                                modelo.eliminar(id);
+                                emails.eliminar(id);
+                            } else {
+                                MetodosInterfaz.mostrarMensaje("No se pudo eliminar el cliente.", frame);
+                            }
                         });
             }
         });
 
-        // Panel inferior para colocar el botón eliminar
+        // Panel inferior para colocar los botones guardar y eliminar y la barra de estado de las tareas
         JPanel botones = new JPanel();
         botones.setBackground(new Color(45, 123, 182));
+        botones.add(guardarTodo);
         botones.add(eliminar);
-        panel.add(botones, BorderLayout.SOUTH);
+        JPanel inferior = new JPanel(new BorderLayout());
+        inferior.add(botones, BorderLayout.CENTER);
+        inferior.add(tareas, BorderLayout.SOUTH);
+        panel.add(inferior, BorderLayout.SOUTH);
 
         // Estilo visual de la tabla
         tabla.setBackground(Color.WHITE);
@@ -1,17 +1,24 @@
 package view;
 
 import model.ProductoOtaku;
+import service.ClasificadorCategorias;
+import service.GeneradorDescripciones;
 import service.LlmService;
+import util.MetricasArranque;
 
 import javax.swing.*;
-import javax.swing.event.TableModelEvent;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.ActionEvent;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Clase que crea y devuelve un JPanel con la interfaz para gestionar productos.
  * Incluye tabla con productos, filtros, botones para CRUD y funciones IA.
+ * Las consultas y las llamadas a la IA se ejecutan en segundo plano con un
+ * {@link GestorTareas}, que muestra su progreso y permite cancelarlas.
  * 
  * @author Esteban Martín González
  * @version 1.0
@@ -19,6 +26,18 @@ import java.util.List;
  */
 public class PanelProductos {
 
+    /**
+     * Crea el panel de productos consultando su carga inicial al crearlo.
+     *
+     * @param frame         Ventana principal donde se mostrará el panel
+     * @param controlador   Instancia del controlador para acceder a datos
+     * @param llmService    Servicio para consultas con IA (chatbot, generación de texto)
+     * @return JPanel       Panel completo listo para mostrar en la interfaz
+     */
+    public static JPanel crear(JFrame frame, ControllerGrafico controlador, LlmService llmService) {
+        return crear(frame, controlador, llmService, null);
+    }
+
     /**
      * Crea y configura un JPanel para la sección de productos, con su tabla,
      * controles de búsqueda, botones para agregar, eliminar, actualizar
@@ -27,20 +46,46 @@ public class PanelProductos {
      * @param frame         Ventana principal donde se mostrará el panel
      * @param controlador   Instancia del controlador para acceder a datos
      * @param llmService    Servicio para consultas con IA (chatbot, generación de texto)
+     * @param inicial       Carga inicial de la tabla ya pedida en segundo plano, o null
+     *                      para consultarla al crear el panel
      * @return JPanel       Panel completo listo para mostrar en la interfaz
      */
-    public static JPanel crear(JFrame frame, ControllerGrafico controlador, LlmService llmService) {
+    public static JPanel crear(JFrame frame, ControllerGrafico controlador, LlmService llmService,
+                               CompletableFuture<CargaInicial<ProductoOtaku>> inicial) {
 
-        // Definición de las columnas de la tabla de productos
+        // Definición de las columnas de la tabla de productos y del valor de cada una
         String[] columnas = { "ID", "Nombre", "Categoría", "Precio", "Stock" };
-        DefaultTableModel modelo = MetodosInterfaz.crearModelo(columnas);
+        List<Function<ProductoOtaku, Object>> valores = List.of(
+            ProductoOtaku::getId, ProductoOtaku::getNombre, ProductoOtaku::getCategoria,
+            ProductoOtaku::getPrecio, ProductoOtaku::getStock
+        );
+        ModeloTablaPaginado<ProductoOtaku> modelo =
+            new ModeloTablaPaginado<>(columnas, valores, ProductoOtaku::getId, ProductoOtaku::new);
         JTable tabla = new JTable(modelo);
 
-        // Cargar todos los productos inicialmente
-        MetodosInterfaz.actualizarTabla(modelo,
-            controlador.obtenerTodosProductos(),
-            p -> new Object[]{ p.getId(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock() }
-        );
+        // Barra de estado que ejecuta las operaciones lentas fuera del hilo de Swing
+        GestorTareas tareas = new GestorTareas(new Color(45, 123, 182));
+
+        // Mostrar todos los productos: se cargan los IDs y las filas por páginas a medida que se ven.
+        // Las tareas del grupo "tabla" se reemplazan entre sí: solo se muestra la última búsqueda.
+        Runnable mostrarTodo = () ->
+            tareas.ejecutar("tabla", "Cargando productos...", controlador::obtenerIdsProductos)
+                .thenAccept(ids -> modelo.mostrarPaginado(ids, controlador::obtenerProductosPagina));
+
+        // Cargar todos los productos inicialmente, usando la carga ya pedida por la ventana si la hay
+        if (inicial != null) {
+            tareas.ejecutar("tabla", "Cargando productos...", inicial::join)
+                .thenAccept(carga -> {
+                    modelo.mostrarPaginado(carga.ids(), controlador::obtenerProductosPagina, carga.primeraPagina());
+                    MetricasArranque.marcar("primera fila de productos");
+                });
+        } else {
+            mostrarTodo.run();
+        }
+
+        // Copia en memoria de los nombres para filtrar mientras se escribe
+        InstantaneaBusqueda<ProductoOtaku> nombres = new InstantaneaBusqueda<>(ProductoOtaku::getId,
+            ProductoOtaku::getNombre, controlador::obtenerIdsProductos, controlador::obtenerNombresProductosDesde);
 
         // Panel principal con layout y estilo de fondo
         JPanel panel = new JPanel(new BorderLayout());
@@ -80,112 +125,185 @@ public class PanelProductos {
         filtros.add(catIA);
         panel.add(filtros, BorderLayout.NORTH);
 
+        // Filtrar por nombre mientras se escribe, sobre la copia en memoria
+        Runnable quitarFiltro = MetodosInterfaz.instalarFiltro(txtNombre, tabla, modelo, nombres, tareas);
+
         // Buscar por ID
         buscarId.addActionListener(e -> {
             try {
                 int id = Integer.parseInt(txtId.getText().trim());
-                MetodosInterfaz.buscarPorId(id, modelo, controlador::obtenerProductoPorId,
-                    p -> new Object[]{ p.getId(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock() },
-                    "Producto no encontrado.", frame);
+                quitarFiltro.run();
+                tareas.ejecutar("tabla", "Buscando producto...", () -> controlador.obtenerProductoPorId(id))
+                    .thenAccept(p -> MetodosInterfaz.mostrarPorId(p, modelo, "Producto no encontrado.", frame));
             } catch (NumberFormatException ex) {
                 MetodosInterfaz.mostrarMensaje("ID debe ser numérico.", frame);
             }
         });
 
-        // Buscar por nombre
+        // Buscar por nombre (búsqueda aproximada ordenada por relevancia, sin el filtro en vivo)
         buscarNombre.addActionListener(e -> {
-            List<ProductoOtaku> res = controlador.buscarProductoPorNombre(txtNombre.getText().trim());
-            MetodosInterfaz.actualizarTabla(modelo, res,
-                p -> new Object[]{ p.getId(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock() });
+            String nombre = txtNombre.getText().trim();
+            quitarFiltro.run();
+            tareas.ejecutar("tabla", "Buscando productos...", () -> controlador.buscarProductoPorNombre(nombre))
+                .thenAccept(modelo::mostrarLista);
         });
 
         // Mostrar todos
-        mostrarTodos.addActionListener(e ->
-            MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosProductos(),
-                p -> new Object[]{ p.getId(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock() })
-        );
+        mostrarTodos.addActionListener(e -> {
+            txtNombre.setText("");
+            mostrarTodo.run();
+        });
 
         // Agregar nuevo producto
         agregar.addActionListener(e -> {
             FormularioProducto form = new FormularioProducto(frame);
             form.setVisible(true);
             if (form.isConfirmado()) {
-                controlador.agregarProducto(new ProductoOtaku(
+                ProductoOtaku nuevo = new ProductoOtaku(
                     form.getNombre(), form.getCategoria(), form.getPrecio(), form.getStock()
-                ));
-                MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosProductos(),
-                    p -> new Object[]{ p.getId(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock() });
-                MetodosInterfaz.mostrarMensaje("Producto agregado correctamente.", frame);
+                );
+                tareas.escribir("Guardando producto...", () -> controlador.agregarProducto(nuevo))
+                    .thenAccept(agregado -> {
+                        if (!agregado) {
+                            MetodosInterfaz.mostrarMensaje("No se pudo agregar el producto.", frame);
+                            return;
+                        }
+                        // El DAO ya asignó el ID generado: basta con añadir esa fila
+                        modelo.insertar(nuevo);
+                        nombres.guardar(nuevo);
+                        MetodosInterfaz.seleccionarFila(tabla, modelo, nuevo.getId());
+                        MetodosInterfaz.mostrarMensaje("Producto agregado correctamente.", frame);
+                    });
             }
         });
 
-        // Descripción IA
+        // Panel lateral con los trabajos de la IA: se encolan y sus resultados aparecen según llegan.
+        // Con doble clic en un resultado se selecciona su producto en la tabla.
+        PanelResultadosIA resultadosIA = new PanelResultadosIA(tareas, new Color(45, 123, 182));
+        resultadosIA.alSeleccionar(id -> MetodosInterfaz.seleccionarFila(tabla, modelo, id));
+        panel.add(resultadosIA, BorderLayout.EAST);
+
+        // Descripción IA: un trabajo por cada producto seleccionado. Las descripciones ya generadas
+        // se leen de la base de datos; con Mayús pulsada se generan de nuevo y se guardan.
+        descIA.setToolTipText("Mayús+clic para generar de nuevo sin usar las descripciones guardadas");
         descIA.addActionListener(e -> {
-            int fila = tabla.getSelectedRow();
-            if (fila == -1) {
-                MetodosInterfaz.mostrarMensaje("Selecciona un producto para generar la descripción.", frame);
+            boolean sinCache = (e.getModifiers() & ActionEvent.SHIFT_MASK) != 0;
+            int[] filas = tabla.getSelectedRows();
+            if (filas.length == 0) {
+                MetodosInterfaz.mostrarMensaje("Selecciona uno o varios productos para generar la descripción.", frame);
                 return;
             }
-            int id = (int) modelo.getValueAt(fila, 0);
-            ProductoOtaku p = controlador.obtenerProductoPorId(id);
-            String prompt = "En español: Genera una descripción de marketing breve de no más de 15 palabras y atractiva para el producto otaku: "
-                          + p.getNombre() + " de la categoría " + p.getCategoria() + ".";
-            MetodosInterfaz.mostrarMensaje(llmService.oraculoDigital(prompt), frame);
+            for (int fila : filas) {
+                int filaModelo = tabla.convertRowIndexToModel(fila);
+                ProductoOtaku cargado = modelo.getEntidad(filaModelo);
+                int id = modelo.getId(filaModelo);
+                String titulo = cargado != null ? cargado.getNombre() : "Producto " + id;
+                resultadosIA.encolarEnVivo(id, titulo, "Descripción", alLlegar -> {
+                    // Las filas de la tabla no traen la descripción: se lee el producto completo
+                    ProductoOtaku p = controlador.obtenerProductoPorId(id);
+                    if (p == null) {
+                        throw new IllegalStateException("El producto ya no existe");
+                    }
+                    if (!sinCache && p.getDescripcion() != null) {
+                        return "Descripción guardada:\n\n" + p.getDescripcion();
+                    }
+                    String respuesta = llmService.oraculoDigitalEnVivo(GeneradorDescripciones.prompt(p), sinCache,
+                            alLlegar::accept);
+                    String descripcion = LlmService.contenido(respuesta);
+                    if (descripcion != null) {
+                        controlador.guardarDescripcion(p, descripcion);
+                    }
+                    return respuesta;
+                });
+            }
         });
 
-        // Sugerir categoría IA
+        // Sugerir categoría IA: el clasificador local responde al instante si está
+        // seguro (se entrena en segundo plano con el catálogo); si no, se pregunta a la IA
         catIA.addActionListener(e -> {
             String nombre = MetodosInterfaz.solicitarTexto("Nombre del producto:", frame);
             if (nombre == null) return;
-            String prompt = "En español: Para un producto otaku llamado " + nombre
-                          + ", sugiere una categoría adecuada de esta lista: Figura, Manga, Póster, Llavero, Ropa, Videojuego, Otro. "
-                          + "Responde en este formato: Categoría: 'Nombre de la categoría'. "
-                          + "Comprueba que si el nombre del producto es extraño la respuesta sea Desconocido.";
-            MetodosInterfaz.mostrarMensaje(llmService.oraculoDigital(prompt), frame);
+            ClasificadorCategorias clasificador = ClasificadorCategorias.getInstancia();
+            clasificador.asegurarEntrenamiento(controlador::recorrerProductos);
+            ClasificadorCategorias.Prediccion local = clasificador.resolverLocal(nombre);
+            if (local != null) {
+                resultadosIA.encolar(-1, nombre, "Categoría", local::texto);
+                return;
+            }
+            String prompt = ClasificadorCategorias.prompt(nombre);
+            resultadosIA.encolarEnVivo(-1, nombre, "Categoría",
+                    alLlegar -> llmService.oraculoDigitalEnVivo(prompt, alLlegar::accept));
         });
 
-        // Manejo de ediciones en tabla para actualizar en la BD
-        modelo.addTableModelListener(e -> {
-            if (e.getType() != TableModelEvent.UPDATE) return;
-            int fila = e.getFirstRow(), col = e.getColumn();
-            int id = (int) modelo.getValueAt(fila, 0);
-            ProductoOtaku p = controlador.obtenerProductoPorId(id);
+        // Manejo de ediciones en tabla. El modelo pasa una copia del producto de la fila,
+        // así que no hace falta volver a consultarlo, y un valor no válido no cambia la fila.
+        // Las celdas editadas se acumulan por fila y se guardan juntas en segundo plano:
+        // al salir de la fila, con un UPDATE de solo las columnas cambiadas, o todas las
+        // filas a la vez con "Guardar Todo".
+        ModeloTablaPaginado.Asignacion<ProductoOtaku> asignar = (p, col, valor) -> {
             try {
+                String texto = String.valueOf(valor).trim();
                 switch (col) {
                     case 1 -> {
-                        String nombre = ((String) modelo.getValueAt(fila, col)).trim();
-                        if (nombre.isEmpty()) throw new IllegalArgumentException("El nombre no puede estar vacío");
-                        p.setNombre(nombre);
+                        if (texto.isEmpty()) throw new IllegalArgumentException("El nombre no puede estar vacío");
+                        p.setNombre(texto);
                     }
                     case 2 -> {
-                        String categoria = ((String) modelo.getValueAt(fila, col)).trim();
-                        if (categoria.isEmpty()) throw new IllegalArgumentException("La categoría no puede estar vacía");
-                        p.setCategoria(categoria);
+                        if (texto.isEmpty()) throw new IllegalArgumentException("La categoría no puede estar vacía");
+                        p.setCategoria(texto);
                     }
                     case 3 -> {
-                        double precio = Double.parseDouble(modelo.getValueAt(fila, col).toString());
+                        double precio = Double.parseDouble(texto);
                         if (precio < 0) throw new IllegalArgumentException("El precio no puede ser negativo");
                         p.setPrecio(precio);
                     }
                     case 4 -> {
-                        int stock = Integer.parseInt(modelo.getValueAt(fila, col).toString());
+                        int stock = Integer.parseInt(texto);
                         if (stock < 0) throw new IllegalArgumentException("El stock no puede ser negativo");
                         p.setStock(stock);
                     }
                 }
-                controlador.actualizarProducto(p);
-            } catch (Exception ex) {
+                return true;
+            } catch (IllegalArgumentException ex) {
                 MetodosInterfaz.mostrarMensaje("Error al actualizar producto: " + ex.getMessage(), frame);
-                MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosProductos(),
-                    prod -> new Object[]{ prod.getId(), prod.getNombre(), prod.getCategoria(), prod.getPrecio(), prod.getStock() });
+                return false;
+            }
+        };
+        ModeloTablaPaginado.Guardado<ProductoOtaku> guardar = filas ->
+            tareas.escribir("Guardando cambios...", () -> controlador.actualizarCamposProductos(filas))
+                .thenApply(actualizados -> {
+                    if (!actualizados)
+                        MetodosInterfaz.mostrarMensaje(
+                            "Error al actualizar producto: No se pudo guardar en la base de datos", frame);
+                    else
+                        filas.forEach(f -> nombres.guardar(f.entidad()));
+                    return actualizados;
+                });
+        modelo.setEdicion(asignar, guardar, Map.of(1, "nombre", 2, "categoria", 3, "precio", 4, "stock"));
+        MetodosInterfaz.configurarEdicionPorFilas(tabla, modelo);
+
+        // Botón para guardar de una vez (en una transacción) los cambios de todas las filas
+        JButton guardarTodo = new JButton("Guardar Todo");
+        guardarTodo.addActionListener(e -> {
+            if (tabla.isEditing())
+                tabla.getCellEditor().stopCellEditing();
+            if (modelo.getFilasModificadas() == 0) {
+                MetodosInterfaz.mostrarMensaje("No hay cambios pendientes.", frame);
+                return;
             }
+            modelo.guardarTodo().thenAccept(guardados -> {
+                if (guardados)
+                    MetodosInterfaz.mostrarMensaje("Cambios guardados correctamente.", frame);
+            });
         });
 
         // Botón eliminar producto
         JButton eliminar = new JButton("Eliminar");
-        eliminar.setBackground(btnColor);
-        eliminar.setForeground(btnTexto);
-        eliminar.setFocusPainted(false);
+        for (JButton btn : new JButton[]{guardarTodo, eliminar}) {
+            btn.setBackground(btnColor);
+            btn.setForeground(btnTexto);
+            btn.setFocusPainted(false);
+        }
         eliminar.addActionListener(e -> {
             int fila = tabla.getSelectedRow();
             if (fila == -1) {
@@ -194,20 +312,30 @@ public class PanelProductos {
             }
             UIManager.put("OptionPane.yesButtonText", "Si");
             UIManager.put("OptionPane.noButtonText", "No");
-            int id = (int) modelo.getValueAt(fila, 0);
+            int id = modelo.getId(tabla.convertRowIndexToModel(fila));
             if (JOptionPane.showConfirmDialog(frame, "¿Eliminar producto?", "Confirmar", JOptionPane.YES_NO_OPTION)
                 == JOptionPane.YES_OPTION) {
-                controlador.eliminarProducto(id);
-                MetodosInterfaz.actualizarTabla(modelo, controlador.obtenerTodosProductos(),
-                    p -> new Object[]{ p.getId(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock() });
+                tareas.escribir("Eliminando producto...", () -> controlador.eliminarProducto(id))
+                    .thenAccept(eliminado -> {
+                        if (eliminado) {
+                            modelo.eliminar(id);
+                            nombres.eliminar(id);
+                        } else {
+                            MetodosInterfaz.mostrarMensaje("No se pudo eliminar el producto.", frame);
+                        }
+                    });
             }
         });
 
-        // Panel inferior con botón eliminar
+        // Panel inferior con los botones guardar y eliminar y la barra de estado de las tareas
         JPanel botones = new JPanel();
         botones.setBackground(new Color(45, 123, 182));
+        botones.add(guardarTodo);
         botones.add(eliminar);
-        panel.add(botones, BorderLayout.SOUTH);
+        JPanel inferior = new JPanel(new BorderLayout());
+        inferior.add(botones, BorderLayout.CENTER);
+        inferior.add(tareas, BorderLayout.SOUTH);
+        panel.add(inferior, BorderLayout.SOUTH);
 
         // Estilo visual de la tabla
         tabla.setBackground(Color.WHITE);
@@ -0,0 +1,349 @@
+package view;
+
+import config.ConfigLoader;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Panel lateral con los trabajos enviados a la IA y sus resultados.
+ * <p>
+ * Los trabajos se encolan y se lanzan en orden, como mucho
+ * {@code iaMaxConcurrencia} a la vez, a través de un {@link GestorTareas}: la
+ * barra de estado muestra los que están en curso y su botón Cancelar descarta
+ * también los que esperan en la cola. Cada resultado aparece en la lista en
+ * cuanto llega, sin esperar a los demás ni bloquear la ventana. Los trabajos
+ * encolados con {@link #encolarEnVivo(int, String, String, Function)} muestran
+ * además el texto mientras se genera y el tiempo que tardó en llegar el primero.
+ * </p>
+ * <p>
+ * El panel se oculta mientras no tiene trabajos. Todos los métodos deben
+ * llamarse desde el hilo de Swing.
+ * </p>
+ *
+ * Propiedades opcionales en config.properties:
+ * <ul>
+ * <li>iaMaxConcurrencia: peticiones a la IA en curso a la vez (por defecto 2)</li>
+ * </ul>
+ *
+ * @author Esteban Martín González
+ * @version 1.0
+ * @since 2025
+ */
+public class PanelResultadosIA extends JPanel {
+
+    private static final int MAX_CONCURRENCIA = Math.max(1, ConfigLoader.getIntProperty("iaMaxConcurrencia", 2));
+
+    // Ancho del texto de cada resultado en la lista
+    private static final int ANCHO_TEXTO = 240;
+
+    private final GestorTareas tareas;
+
+    private final DefaultListModel<Trabajo> trabajos = new DefaultListModel<>();
+    private final JList<Trabajo> lista = new JList<>(trabajos);
+    private final JLabel resumen = new JLabel(" ");
+    private final JButton cancelar = new JButton("Cancelar");
+    private final JButton limpiar = new JButton("Limpiar");
+
+    // Trabajos esperando turno y trabajos lanzados con su tarea
+    private final Deque<Trabajo> cola = new ArrayDeque<>();
+    private final Map<Trabajo, CompletableFuture<String>> enCurso = new HashMap<>();
+
+    // Acción al hacer doble clic en un resultado (recibe el ID de su fila)
+    private IntConsumer alSeleccionar = id -> { };
+
+    /**
+     * Crea el panel vacío (y oculto).
+     *
+     * @param tareas Gestor donde se ejecutan los trabajos
+     * @param fondo  Color de fondo del panel
+     */
+    public PanelResultadosIA(GestorTareas tareas, Color fondo) {
+        super(new BorderLayout(0, 4));
+        this.tareas = tareas;
+        setBackground(fondo);
+        setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        setPreferredSize(new Dimension(ANCHO_TEXTO + 60, 0));
+
+        JLabel titulo = new JLabel("Resultados IA");
+        titulo.setForeground(Color.WHITE);
+        titulo.setFont(titulo.getFont().deriveFont(Font.BOLD));
+        resumen.setForeground(Color.WHITE);
+        JPanel cabecera = new JPanel(new GridLayout(2, 1));
+        cabecera.setOpaque(false);
+        cabecera.add(titulo);
+        cabecera.add(resumen);
+
+        lista.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> l, Object valor, int indice,
+                                                          boolean seleccionado, boolean foco) {
+                super.getListCellRendererComponent(l, valor, indice, seleccionado, foco);
+                Trabajo trabajo = (Trabajo) valor;
+                setText("<html><div style='width:" + ANCHO_TEXTO + "px'><b>" + html(trabajo.titulo) + "</b> · "
+                        + html(trabajo.accion) + "<br>" + html(trabajo.texto()) + "</div></html>");
+                setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+                return this;
+            }
+        });
+        lista.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                Trabajo trabajo = lista.getSelectedValue();
+                if (e.getClickCount() == 2 && trabajo != null && trabajo.id > 0) {
+                    alSeleccionar.accept(trabajo.id);
+                }
+            }
+        });
+
+        for (JButton btn : new JButton[]{cancelar, limpiar}) {
+            btn.setBackground(new Color(30, 60, 120));
+            btn.setForeground(Color.WHITE);
+            btn.setFocusPainted(false);
+        }
+        cancelar.addActionListener(e -> cancelarTodo());
+        limpiar.addActionListener(e -> limpiar());
+        JPanel botones = new JPanel();
+        botones.setOpaque(false);
+        botones.add(cancelar);
+        botones.add(limpiar);
+
+        add(cabecera, BorderLayout.NORTH);
+        add(new JScrollPane(lista), BorderLayout.CENTER);
+        add(botones, BorderLayout.SOUTH);
+
+        // Cancelar desde la barra de estado también descarta los trabajos en cola
+        tareas.alCancelarTodo(this::vaciarCola);
+
+        actualizar();
+    }
+
+    /**
+     * Añade un trabajo a la cola y lo lanza en cuanto haya hueco.
+     *
+     * @param id      ID de la fila a la que se refiere el resultado, o -1 si ninguna
+     * @param titulo  Título del trabajo en la lista (por ejemplo, el nombre del producto)
+     * @param accion  Qué se pide a la IA (por ejemplo, "Descripción")
+     * @param trabajo Petición a la IA, que se ejecuta fuera del hilo de Swing
+     */
+    public void encolar(int id, String titulo, String accion, Supplier<String> trabajo) {
+        encolarEnVivo(id, titulo, accion, alLlegar -> trabajo.get());
+    }
+
+    /**
+     * Añade a la cola un trabajo que entrega su texto a medida que se genera.
+     * Mientras está en curso, la lista muestra el texto recibido hasta el momento.
+     *
+     * @param id      ID de la fila a la que se refiere el resultado, o -1 si ninguna
+     * @param titulo  Título del trabajo en la lista (por ejemplo, el nombre del producto)
+     * @param accion  Qué se pide a la IA (por ejemplo, "Descripción")
+     * @param trabajo Petición a la IA, que se ejecuta fuera del hilo de Swing: recibe
+     *                a quién pasar cada trozo de texto y devuelve el resultado completo
+     */
+    public void encolarEnVivo(int id, String titulo, String accion, Function<Consumer<String>, String> trabajo) {
+        Trabajo nuevo = new Trabajo(id, titulo, accion, trabajo);
+        cola.add(nuevo);
+        trabajos.addElement(nuevo);
+        lista.ensureIndexIsVisible(trabajos.size() - 1);
+        lanzarSiguientes();
+    }
+
+    /**
+     * Indica qué hacer al hacer doble clic en un resultado con fila asociada.
+     *
+     * @param accion Acción que recibe el ID de la fila
+     */
+    public void alSeleccionar(IntConsumer accion) {
+        alSeleccionar = accion;
+    }
+
+    /**
+     * Descarta los trabajos en cola y cancela los que están en curso.
+     */
+    public void cancelarTodo() {
+        vaciarCola();
+        // Copia, porque al cancelar cada tarea se elimina de la lista
+        for (CompletableFuture<?> tarea : enCurso.values().toArray(new CompletableFuture<?>[0])) {
+            tarea.cancel(true);
+        }
+    }
+
+    /**
+     * Número de trabajos en cola o en curso.
+     *
+     * @return Trabajos sin terminar
+     */
+    public int getPendientes() {
+        return cola.size() + enCurso.size();
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Lanza trabajos de la cola mientras quede hueco.
+     */
+    private void lanzarSiguientes() {
+        while (enCurso.size() < MAX_CONCURRENCIA && !cola.isEmpty()) {
+            Trabajo trabajo = cola.poll();
+            trabajo.estado = Estado.EN_CURSO;
+            trabajo.lanzado = System.nanoTime();
+            refrescar(trabajo);
+            // Cada trozo de texto se añade desde el hilo de Swing
+            Consumer<String> alLlegar = trozo -> SwingUtilities.invokeLater(() -> recibir(trabajo, trozo));
+            CompletableFuture<String> tarea = tareas.ejecutarIA(null,
+                    trabajo.accion + " IA: " + trabajo.titulo + "...", () -> trabajo.peticion.apply(alLlegar));
+            enCurso.put(trabajo, tarea);
+            // Los futuros del gestor se completan en el hilo de Swing
+            tarea.whenComplete((texto, error) -> {
+                enCurso.remove(trabajo);
+                if (error == null) {
+                    trabajo.estado = Estado.HECHO;
+                    trabajo.resultado = texto;
+                } else if (error instanceof CancellationException) {
+                    trabajo.estado = Estado.CANCELADO;
+                } else {
+                    Throwable causa = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    trabajo.estado = Estado.ERROR;
+                    trabajo.resultado = causa.getMessage();
+                }
+                refrescar(trabajo);
+                lanzarSiguientes();
+            });
+        }
+        actualizar();
+    }
+
+    /**
+     * Añade un trozo de texto a un trabajo en curso.
+     */
+    private void recibir(Trabajo trabajo, String trozo) {
+        if (trabajo.estado != Estado.EN_CURSO) {
+            return;  // Ya terminado o cancelado: el resultado completo manda
+        }
+        if (trabajo.primerTextoMs < 0) {
+            trabajo.primerTextoMs = (System.nanoTime() - trabajo.lanzado) / 1_000_000;
+        }
+        trabajo.parcial.append(trozo);
+        refrescar(trabajo);
+    }
+
+    /**
+     * Marca como cancelados los trabajos que esperan en la cola.
+     */
+    private void vaciarCola() {
+        for (Trabajo trabajo : cola) {
+            trabajo.estado = Estado.CANCELADO;
+            refrescar(trabajo);
+        }
+        cola.clear();
+        actualizar();
+    }
+
+    /**
+     * Quita de la lista los trabajos terminados.
+     */
+    private void limpiar() {
+        for (int i = trabajos.size() - 1; i >= 0; i--) {
+            if (trabajos.get(i).estado.terminado) {
+                trabajos.remove(i);
+            }
+        }
+        actualizar();
+    }
+
+    /**
+     * Vuelve a pintar un trabajo de la lista.
+     */
+    private void refrescar(Trabajo trabajo) {
+        int indice = trabajos.indexOf(trabajo);
+        if (indice >= 0) {
+            trabajos.set(indice, trabajo);
+        }
+    }
+
+    /**
+     * Refleja en la cabecera y los botones el estado de los trabajos.
+     */
+    private void actualizar() {
+        resumen.setText(enCurso.size() + " en curso, " + cola.size() + " en cola");
+        cancelar.setEnabled(getPendientes() > 0);
+        limpiar.setEnabled(trabajos.size() > getPendientes());
+        boolean visible = !trabajos.isEmpty();
+        if (visible != isVisible()) {
+            setVisible(visible);
+            revalidate();
+        }
+    }
+
+    private static String html(String texto) {
+        return texto == null ? "" : texto.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * Estado de un trabajo.
+     */
+    private enum Estado {
+        EN_COLA("En cola", false),
+        EN_CURSO("Generando...", false),
+        HECHO(null, true),
+        ERROR("Error: ", true),
+        CANCELADO("Cancelado", true);
+
+        private final String texto;
+        private final boolean terminado;
+
+        Estado(String texto, boolean terminado) {
+            this.texto = texto;
+            this.terminado = terminado;
+        }
+    }
+
+    /**
+     * Trabajo de la lista con su estado y resultado.
+     */
+    private static final class Trabajo {
+        private final int id;
+        private final String titulo;
+        private final String accion;
+        private final Function<Consumer<String>, String> peticion;
+        private Estado estado = Estado.EN_COLA;
+        private String resultado;
+
+        // Texto recibido mientras se genera y tiempo hasta el primer trozo (-1 si no ha llegado)
+        private final StringBuilder parcial = new StringBuilder();
+        private long lanzado;
+        private long primerTextoMs = -1;
+
+        private Trabajo(int id, String titulo, String accion, Function<Consumer<String>, String> peticion) {
+            this.id = id;
+            this.titulo = titulo;
+            this.accion = accion;
+            this.peticion = peticion;
+        }
+
+        private String texto() {
+            String primerTexto = primerTextoMs >= 0 ? " (primer texto en " + primerTextoMs + " ms)" : "";
+            return switch (estado) {
+                case EN_CURSO -> parcial.isEmpty() ? estado.texto : parcial + "..." + primerTexto;
+                case HECHO -> resultado + primerTexto;
+                case ERROR -> estado.texto + resultado;
+                default -> estado.texto;
+            };
+        }
+    }
+
+}
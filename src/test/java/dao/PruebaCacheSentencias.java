@@ -0,0 +1,202 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Clase de pruebas unitarias para la clase CacheSentencias.
+ * Las pruebas de expulsión y de claves generadas usan una conexión simulada
+ * que solo sabe preparar sentencias; la del pool necesita la base de datos.
+ */
+
+class PruebaCacheSentencias {
+
+    // Sentencias "reales" que ha preparado la conexión simulada, en orden
+
+    List<PreparedStatement> preparadas = new ArrayList<>();
+
+    Connection conexion;
+
+    /**
+     * Se ejecuta antes de cada prueba.
+     * Crea la conexión simulada.
+     */
+
+    @BeforeEach
+    void setUp() {
+
+        conexion = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, metodo, args) -> {
+
+                    if (!metodo.getName().equals("prepareStatement")) {
+
+                        throw new UnsupportedOperationException(metodo.getName());
+
+                    }
+
+                    PreparedStatement sentencia = sentenciaSimulada();
+
+                    preparadas.add(sentencia);
+
+                    return sentencia;
+
+                });
+
+    }
+
+    /**
+     * Verifica que la misma consulta preparada dos veces en una conexión del
+     * pool se reutiliza, y que la variante con claves generadas se cachea aparte.
+     */
+
+    @Test
+    void testAciertoConexionDelPool() throws SQLException {
+
+        // Comentario único para que la consulta no esté ya en la caché de otra prueba
+
+        String sql = "SELECT id FROM productos WHERE id = ? /* prueba " + System.nanoTime() + " */";
+
+        try (Connection pooled = PoolConexiones.getInstancia().obtener()) {
+
+            pooled.prepareStatement(sql).close();
+
+            long aciertos = CacheSentencias.getAciertos();
+
+            long fallos = CacheSentencias.getFallos();
+
+            pooled.prepareStatement(sql).close();
+
+            assertEquals(aciertos + 1, CacheSentencias.getAciertos(), "La segunda preparación debería ser un acierto");
+
+            assertEquals(fallos, CacheSentencias.getFallos(), "La segunda preparación no debería contar como fallo");
+
+            pooled.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+
+            assertEquals(fallos + 1, CacheSentencias.getFallos(), "Con claves generadas debería prepararse aparte");
+
+            pooled.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+
+            assertEquals(aciertos + 2, CacheSentencias.getAciertos(), "La variante con claves generadas también debería reutilizarse");
+
+        }
+
+    }
+
+    /**
+     * Verifica que el mismo SQL con y sin claves generadas son entradas distintas.
+     */
+
+    @Test
+    void testClavesGeneradas() throws SQLException {
+
+        CacheSentencias cache = new CacheSentencias(conexion, 4);
+
+        cache.preparar("INSERT INTO t VALUES (?)", Statement.NO_GENERATED_KEYS).close();
+
+        cache.preparar("INSERT INTO t VALUES (?)", Statement.RETURN_GENERATED_KEYS).close();
+
+        assertEquals(2, preparadas.size(), "Cada modo de claves generadas debería prepararse una vez");
+
+        cache.preparar("INSERT INTO t VALUES (?)", Statement.NO_GENERATED_KEYS).close();
+
+        cache.preparar("INSERT INTO t VALUES (?)", Statement.RETURN_GENERATED_KEYS).close();
+
+        assertEquals(2, preparadas.size(), "Las dos variantes deberían reutilizarse");
+
+    }
+
+    /**
+     * Verifica que al superar el tamaño máximo se cierra la sentencia usada hace
+     * más tiempo y se conservan las recientes.
+     */
+
+    @Test
+    void testExpulsionLru() throws SQLException {
+
+        CacheSentencias cache = new CacheSentencias(conexion, 2);
+
+        long aciertos = CacheSentencias.getAciertos();
+
+        cache.preparar("SELECT 1", Statement.NO_GENERATED_KEYS).close();
+
+        cache.preparar("SELECT 2", Statement.NO_GENERATED_KEYS).close();
+
+        // Usar "SELECT 1" la convierte en la más reciente: la menos usada pasa a ser "SELECT 2"
+
+        cache.preparar("SELECT 1", Statement.NO_GENERATED_KEYS).close();
+
+        cache.preparar("SELECT 3", Statement.NO_GENERATED_KEYS).close();
+
+        assertEquals(aciertos + 1, CacheSentencias.getAciertos(), "Solo la segunda \"SELECT 1\" debería ser un acierto");
+
+        assertTrue(preparadas.get(1).isClosed(), "La sentencia menos usada debería cerrarse");
+
+        assertFalse(preparadas.get(0).isClosed(), "La sentencia usada recientemente debería seguir abierta");
+
+        cache.preparar("SELECT 1", Statement.NO_GENERATED_KEYS).close();
+
+        assertEquals(3, preparadas.size(), "\"SELECT 1\" debería seguir en la caché");
+
+        cache.preparar("SELECT 2", Statement.NO_GENERATED_KEYS).close();
+
+        assertEquals(4, preparadas.size(), "\"SELECT 2\" debería prepararse de nuevo");
+
+        cache.vaciar();
+
+        assertTrue(preparadas.stream().allMatch(this::cerrada), "Al vaciar deberían cerrarse todas");
+
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    /**
+     * Sentencia simulada que solo recuerda si está cerrada.
+     */
+    private static PreparedStatement sentenciaSimulada() {
+
+        boolean[] cerrada = { false };
+
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, metodo, args) -> switch (metodo.getName()) {
+
+                    case "close" -> {
+
+                        cerrada[0] = true;
+
+                        yield null;
+
+                    }
+
+                    case "isClosed" -> cerrada[0];
+
+                    default -> null;
+
+                });
+
+    }
+
+    private boolean cerrada(PreparedStatement sentencia) {
+
+        try {
+
+            return sentencia.isClosed();
+
+        } catch (SQLException e) {
+
+            return false;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.ProductoOtaku;
+
+/**
+ * Clase de pruebas unitarias para la clase IndiceProductos.
+ * Está en el paquete dao para poder crear el índice con su constructor y
+ * cargarlo con una lista de productos en memoria, sin base de datos.
+ */
+
+class PruebaIndiceProductos {
+
+    IndiceProductos indice;
+
+    /**
+     * Se ejecuta antes de cada prueba.
+     * Carga un índice con unos pocos productos y espera a que esté listo.
+     */
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+
+        List<ProductoOtaku> catalogo = List.of(
+                producto(1, "Figura Pokémon Pikachu"),
+                producto(2, "Chainsaw Man Vol. 1"),
+                producto(3, "Póster Chainsew Man"),
+                producto(4, "Remix Yoyo Naruto"),
+                producto(5, "Llavero Totoro"));
+
+        indice = new IndiceProductos(Long.MAX_VALUE);
+
+        indice.asegurarCarga(accion -> {
+
+            catalogo.forEach(accion);
+
+            return catalogo.size();
+
+        });
+
+        for (int i = 0; i < 200 && !indice.estaListo(); i++) {
+
+            Thread.sleep(10);
+
+        }
+
+        assertTrue(indice.estaListo(), "El índice debería cargarse");
+
+    }
+
+    /**
+     * Verifica que las búsquedas no distinguen tildes ni mayúsculas.
+     */
+
+    @Test
+    void testTildes() {
+
+        assertEquals(List.of(1), ids(indice.buscar("pokemon")), "Sin tilde debería encontrar el nombre con tilde");
+
+        assertEquals(List.of(1), ids(indice.buscar("POKÉMON")), "Debería dar igual mayúsculas o tildes");
+
+        assertEquals(List.of(3), ids(indice.buscar("poster")), "Sin tilde debería encontrar \"Póster\"");
+
+    }
+
+    /**
+     * Verifica que una búsqueda con errores de escritura encuentra el producto
+     * y que las coincidencias exactas aparecen antes que las aproximadas.
+     */
+
+    @Test
+    void testAproximada() {
+
+        assertEquals(2, ids(indice.buscar("chainsa man")).get(0), "Debería tolerar una letra de menos");
+
+        assertEquals(List.of(2, 3), ids(indice.buscar("chainsaw man")),
+                "La coincidencia exacta debería ir antes que la aproximada");
+
+        assertEquals(List.of(3, 2), ids(indice.buscar("chainsew man")),
+                "Con la otra grafía el orden debería invertirse");
+
+        assertTrue(indice.buscar("djhdftj").isEmpty(), "Un texto sin parecido no debería encontrar nada");
+
+    }
+
+    /**
+     * Verifica las búsquedas cortas: menos de tres letras y palabras de una o
+     * dos letras, cuyos trigramas no sirven para acotar las subcadenas.
+     */
+
+    @Test
+    void testBusquedasCortas() {
+
+        assertEquals(List.of(2), ids(indice.buscar("vo")), "Dos letras deberían buscarse como subcadena");
+
+        assertEquals(List.of(4), ids(indice.buscar("x y")), "Debería encontrar \"x y\" dentro de \"Remix Yoyo\"");
+
+        assertEquals(List.of(4), ids(indice.buscar("ix yo")), "Debería encontrar \"ix yo\" dentro de \"Remix Yoyo\"");
+
+        assertEquals(5, indice.buscar("").size(), "Una búsqueda vacía debería devolver todos los productos");
+
+    }
+
+    /**
+     * Verifica que las altas, modificaciones y bajas se aplican al índice.
+     */
+
+    @Test
+    void testCambios() {
+
+        indice.guardar(producto(6, "Figura Totoro"));
+
+        assertEquals(List.of(6, 5), ids(indice.buscar("totoro")),
+                "Debería encontrar el producto nuevo (el nombre más corto primero)");
+
+        indice.guardar(producto(5, "Llavero Jiji"));
+
+        assertEquals(List.of(6), ids(indice.buscar("totoro")), "No debería encontrar el nombre anterior");
+
+        indice.eliminar(6);
+
+        assertTrue(indice.buscar("totoro").isEmpty(), "No debería encontrar el producto eliminado");
+
+    }
+
+    // ---------------- MÉTODOS AUXILIARES ----------------
+
+    private static ProductoOtaku producto(int id, String nombre) {
+
+        ProductoOtaku producto = new ProductoOtaku(nombre, "Otro", 10, 1);
+
+        producto.setId(id);
+
+        return producto;
+
+    }
+
+    private static List<Integer> ids(List<ProductoOtaku> productos) {
+
+        return productos.stream().map(ProductoOtaku::getId).toList();
+
+    }
+
+}
@@ -2,13 +2,18 @@ package proyecto_Akihabara_Market;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import dao.CambiosFila;
 import dao.ClienteDAO;
+import dao.ResultadoEscritura;
 import model.ClienteOtaku;
 
 /**
@@ -44,19 +49,9 @@ class PruebaClientesDAO {
         
         clienteTest.setTelefono(123456789);
 
-        // Insertar cliente en la BD
+        // Insertar cliente en la BD (el DAO le asigna el ID generado)
         
         dao.agregarCliente(clienteTest);
-
-        // Buscar el cliente por su email para obtener su ID generado automáticamente
-        
-        List<ClienteOtaku> encontrados = dao.buscarPorEmail(clienteTest.getEmail());
-        
-        if (!encontrados.isEmpty()) {
-        	
-            clienteTest.setId(encontrados.get(0).getId());
-            
-        }
         
     }
 
@@ -87,6 +82,37 @@ class PruebaClientesDAO {
         
     }
 
+    /**
+     * Verifica que la inserción en lote asigna a cada cliente su ID generado.
+     */
+    
+    @Test
+    void testAgregarClientes() {
+    	
+        List<ClienteOtaku> lote = List.of(
+                new ClienteOtaku("Test Lote A", "test.lote.a." + System.currentTimeMillis() + "@mail.com", 111111111),
+                new ClienteOtaku("Test Lote B", "test.lote.b." + System.currentTimeMillis() + "@mail.com", 222222222));
+        
+        try {
+        	
+            assertEquals(2, dao.agregarClientes(lote), "Se deberían haber insertado los dos clientes");
+            
+            for (ClienteOtaku c : lote) {
+            	
+                assertTrue(c.getId() > 0, "Cada cliente debería tener su ID generado");
+                
+                assertEquals(c.getEmail(), dao.obtenerClientePorId(c.getId()).getEmail(), "El ID debería corresponder al cliente");
+                
+            }
+            
+        } finally {
+        	
+            lote.forEach(c -> dao.eliminarCliente(c.getId()));
+            
+        }
+        
+    }
+
     /**
      * Prueba que se puede obtener un cliente por su ID y que los datos coinciden.
      */
@@ -138,6 +164,75 @@ class PruebaClientesDAO {
         
     }
 
+    /**
+     * Prueba que las escrituras con un email ya registrado se rechazan sin
+     * consultas previas y que se distingue un cliente inexistente.
+     */
+    
+    @Test
+    void testEscriturasConEmailDuplicado() {
+    	
+        ClienteOtaku duplicado = new ClienteOtaku("Duplicado", clienteTest.getEmail(), 111111111);
+        
+        assertEquals(ResultadoEscritura.EMAIL_DUPLICADO, dao.registrarCliente(duplicado),
+                "No se debería poder registrar un email existente");
+
+        // Guardar el cliente con su mismo email no es un duplicado
+        
+        assertEquals(ResultadoEscritura.OK, dao.modificarCliente(clienteTest),
+                "Mantener el mismo email debería ser válido");
+
+        ClienteOtaku inexistente = new ClienteOtaku(clienteTest);
+        
+        inexistente.setId(Integer.MAX_VALUE);
+        
+        assertEquals(ResultadoEscritura.NO_ENCONTRADO, dao.modificarCliente(inexistente),
+                "Actualizar un ID inexistente debería indicarlo");
+        
+    }
+
+    /**
+     * Prueba que un lote de actualizaciones parciales en el que un cliente
+     * toma el email de otro se rechaza como email duplicado y no guarda ninguna
+     * de las filas.
+     */
+    
+    @Test
+    void testActualizarCamposEmailDuplicado() {
+    	
+        ClienteOtaku otro = new ClienteOtaku("Otro Cliente", "otro.cliente." + System.currentTimeMillis() + "@mail.com", 222222222);
+        
+        dao.agregarCliente(otro);
+        
+        try {
+        	
+            ClienteOtaku cambioTelefono = new ClienteOtaku(clienteTest);
+            
+            cambioTelefono.setTelefono(987654321);
+            
+            ClienteOtaku cambioEmail = new ClienteOtaku(otro);
+            
+            cambioEmail.setEmail(clienteTest.getEmail());
+            
+            assertEquals(ResultadoEscritura.EMAIL_DUPLICADO, dao.actualizarCampos(List.of(
+                    new CambiosFila<>(cambioTelefono, Set.of("telefono")),
+                    new CambiosFila<>(cambioEmail, Set.of("email")))),
+                    "El lote debería rechazarse por el email duplicado");
+            
+            assertEquals(123456789, dao.obtenerClientePorId(clienteTest.getId()).getTelefono(),
+                    "El teléfono no debería cambiar si el lote se deshace");
+            
+            assertEquals(otro.getEmail(), dao.obtenerClientePorId(otro.getId()).getEmail(),
+                    "El email del otro cliente no debería cambiar");
+            
+        } finally {
+        	
+            dao.eliminarCliente(otro.getId());
+            
+        }
+        
+    }
+
     /**
      * Prueba que un cliente puede ser eliminado correctamente.
      */
@@ -188,5 +283,69 @@ class PruebaClientesDAO {
         assertTrue(existe, "El email debería existir en la base de datos");
         
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Verifica la paginación por clave: ninguna página pasa del límite, cada una
+     * empieza después de {@code despuesDeId} (sin incluirlo) y recorriéndolas
+     * todas se obtienen los mismos IDs que en la tabla, hasta una última página vacía.
+     */
+
+    @Test
+    void testObtenerClientesPagina() {
+
+        List<Integer> recorridos = new ArrayList<>();
+
+        int despues = 0;
+
+        List<ClienteOtaku> pagina;
+
+        while (!(pagina = dao.obtenerClientesPagina(despues, 2)).isEmpty()) {
+
+            assertTrue(pagina.size() <= 2, "Ninguna página debería pasar del límite");
+
+            for (ClienteOtaku cliente : pagina) {
+
+                assertTrue(cliente.getId() > despues, "La página no debería incluir despuesDeId ni IDs anteriores");
+
+                recorridos.add(cliente.getId());
+
+            }
+
+            despues = pagina.get(pagina.size() - 1).getId();
+
+        }
+
+        assertEquals(Arrays.stream(dao.obtenerIdsClientes()).boxed().toList(), recorridos,
+                "Las páginas deberían cubrir la tabla en orden y sin repetir");
+
+        List<ClienteOtaku> primera = dao.obtenerClientesPagina(clienteTest.getId() - 1, 1);
+
+        assertEquals(1, primera.size(), "La página debería respetar el límite");
+
+        assertEquals(clienteTest.getId(), primera.get(0).getId(), "La página debería empezar en el primer ID mayor que despuesDeId");
+
+        assertTrue(dao.obtenerClientesPagina(despues, 2).isEmpty(), "Después del último ID la página debería estar vacía");
+
+    }
+
+    /**
+     * Verifica que el recorrido en streaming pasa por todas las filas de la
+     * tabla y devuelve cuántas recorrió.
+     */
+
+    @Test
+    void testRecorrerClientes() {
+
+        List<Integer> recorridos = new ArrayList<>();
+
+        int total = dao.recorrerClientes(cliente -> recorridos.add(cliente.getId()));
+
+        assertEquals(dao.obtenerIdsClientes().length, total, "Debería recorrer tantas filas como tiene la tabla");
+
+        assertEquals(total, recorridos.size(), "Cada fila debería pasarse una vez a la acción");
+
+        assertTrue(recorridos.contains(clienteTest.getId()), "El recorrido debería incluir la fila de prueba");
+
+    }
+
+}
@@ -0,0 +1,1200 @@
+package proyecto_Akihabara_Market;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import model.ProductoOtaku;
+import service.CacheRespuestas;
+import service.CategorizadorLotes;
+import service.ClasificadorCategorias;
+import service.Disyuntor;
+import service.GeneradorDescripciones;
+import service.LimitadorTasa;
+import service.LlmService;
+import service.PoliticaResiliencia;
+import service.RellenoDescripciones;
+
+/**
+ * Clase de pruebas unitarias para la clase LlmService.
+ * Usa un servidor HTTP local que imita al API de chat completions, así que no
+ * necesita conexión a internet ni clave real.
+ */
+
+class PruebaLlmService {
+
+    // Servidor local que responde a las peticiones del servicio
+
+    HttpServer servidor;
+
+    // Peticiones recibidas por el servidor
+
+    List<HttpExchange> peticiones = new CopyOnWriteArrayList<>();
+
+    List<String> cuerpos = new CopyOnWriteArrayList<>();
+
+    // Respuesta que devuelve el servidor: código, cuerpo y espera antes de responder
+
+    volatile int codigo = 200;
+
+    volatile String respuesta = "{\"choices\":[{\"message\":{\"content\":\"Hola\"}}]}";
+
+    volatile long esperaMs = 0;
+
+    // Si el prompt contiene este texto el servidor responde con un error
+
+    volatile String fallarSi = null;
+
+    // Códigos de error que devuelve el servidor, uno por petición, antes de la respuesta configurada
+
+    Deque<Integer> fallos = new ConcurrentLinkedDeque<>();
+
+    volatile String retryAfter = null;
+
+    // La primera petición que contenga este texto tarda 1,5 s en responder
+
+    volatile String lentaUnaVez = null;
+
+    // Trozos que envía el servidor a las peticiones en modo stream
+
+    volatile List<String> trozos = List.of("Ho", "la ", "\"mundo\"");
+
+    // Pausa del servidor después del primer trozo en modo stream
+
+    volatile long pausaStreamMs = 0;
+
+    // Si se indica, genera el texto de la respuesta a partir del prompt
+
+    volatile Function<String, String> generar = null;
+
+    LlmService servicio;
+
+    ExecutorService hilosServidor;
+
+    /**
+     * Se ejecuta antes de cada prueba.
+     * Arranca el servidor local y crea un servicio que apunta a él.
+     */
+
+    @BeforeEach
+    void setUp() throws IOException {
+
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        servidor.createContext("/v1/chat/completions", this::responder);
+
+        // Varios hilos, para poder atender una petición duplicada mientras otra espera
+
+        hilosServidor = Executors.newCachedThreadPool();
+
+        servidor.setExecutor(hilosServidor);
+
+        servidor.start();
+
+        servicio = new LlmService("http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions",
+                "clave-prueba", "modelo-prueba", Duration.ofSeconds(2), Duration.ofMillis(500));
+
+    }
+
+    /**
+     * Se ejecuta después de cada prueba.
+     * Detiene el servidor local.
+     */
+
+    @AfterEach
+    void tearDown() {
+
+        servidor.stop(0);
+
+        hilosServidor.shutdownNow();
+
+    }
+
+    /**
+     * Verifica que se extrae el contenido generado y que la petición lleva la
+     * clave, el modelo y el prompt como JSON válido aunque tenga comillas y saltos de línea.
+     */
+
+    @Test
+    void testOraculoDigital() {
+
+        String prompt = "Producto \"Figura\" de\nprueba \\ con tildes: á";
+
+        assertEquals("Contenido:\n\nHola", servicio.oraculoDigital(prompt), "Debería devolver el contenido generado");
+
+        assertEquals("Bearer clave-prueba", peticiones.get(0).getRequestHeaders().getFirst("Authorization"),
+                "La petición debería llevar la clave API");
+
+        JsonObject cuerpo = JsonParser.parseString(cuerpos.get(0)).getAsJsonObject();
+
+        assertEquals("modelo-prueba", cuerpo.get("model").getAsString(), "El modelo debería coincidir");
+
+        assertEquals(prompt, cuerpo.getAsJsonArray("messages").get(0).getAsJsonObject().get("content").getAsString(),
+                "El prompt debería llegar sin alterar");
+
+    }
+
+    /**
+     * Verifica que varias consultas reutilizan la misma conexión con el servidor.
+     */
+
+    @Test
+    void testReutilizaConexion() {
+
+        servicio.oraculoDigital("uno");
+
+        servicio.oraculoDigital("dos");
+
+        servicio.oraculoDigital("tres");
+
+        assertEquals(3, peticiones.size(), "El servidor debería haber recibido tres peticiones");
+
+        for (HttpExchange peticion : peticiones) {
+
+            assertEquals(peticiones.get(0).getRemoteAddress(), peticion.getRemoteAddress(),
+                    "Todas las peticiones deberían llegar por la misma conexión");
+
+        }
+
+    }
+
+    /**
+     * Verifica los mensajes de error de la API y de HTTP.
+     */
+
+    @Test
+    void testErrores() {
+
+        codigo = 401;
+
+        respuesta = "{\"error\":{\"message\":\"Clave no válida\"}}";
+
+        assertEquals("Error de la API: Clave no válida", servicio.oraculoDigital("hola"), "Debería devolver el error de la API");
+
+        codigo = 502;
+
+        respuesta = "Bad Gateway";
+
+        assertTrue(servicio.oraculoDigital("hola").startsWith("Error HTTP: código 502"), "Debería devolver el error HTTP");
+
+    }
+
+    /**
+     * Verifica que una respuesta que tarda más que el tiempo de espera no bloquea
+     * al llamador.
+     */
+
+    @Test
+    void testTimeout() {
+
+        esperaMs = 3000;
+
+        long inicio = System.nanoTime();
+
+        assertEquals("ERROR", servicio.oraculoDigital("hola"), "Debería devolver ERROR al agotar la espera");
+
+        assertTrue(System.nanoTime() - inicio < 2_000_000_000L, "Debería abandonar al agotar la espera");
+
+    }
+
+    /**
+     * Verifica que las respuestas se sirven desde la caché (también tras crear un
+     * servicio nuevo, como al reiniciar), que se puede saltar y que los errores no
+     * se guardan.
+     */
+
+    @Test
+    void testCacheRespuestas() throws IOException {
+
+        Path directorio = Files.createTempDirectory("cache_ia");
+
+        try {
+
+            LlmService conCache = servicioConCache(directorio, 60_000);
+
+            assertEquals("Contenido:\n\nHola", conCache.oraculoDigital("Describe  la figura "), "La primera consulta va al servidor");
+
+            respuesta = "{\"choices\":[{\"message\":{\"content\":\"Adiós\"}}]}";
+
+            assertEquals("Contenido:\n\nHola", conCache.oraculoDigital("Describe la figura"), "El prompt normalizado debería salir de la caché");
+
+            assertEquals(1, peticiones.size(), "Solo la primera consulta debería llegar al servidor");
+
+            assertEquals(1, conCache.getCache().getAciertosMemoria(), "La segunda consulta debería ser un acierto en memoria");
+
+            // Un servicio nuevo con la misma carpeta encuentra la respuesta en disco
+
+            LlmService reiniciado = servicioConCache(directorio, 60_000);
+
+            assertEquals("Contenido:\n\nHola", reiniciado.oraculoDigital("Describe la figura"), "La respuesta debería sobrevivir al reinicio");
+
+            assertEquals(1, reiniciado.getCache().getAciertosDisco(), "Debería ser un acierto en disco");
+
+            // Saltar la caché pide una respuesta nueva, que sustituye a la guardada
+
+            assertEquals("Contenido:\n\nAdiós", reiniciado.oraculoDigital("Describe la figura", true), "Debería consultar al servidor");
+
+            assertEquals("Contenido:\n\nAdiós", reiniciado.oraculoDigital("Describe la figura"), "La respuesta nueva debería quedar guardada");
+
+            assertEquals(2, peticiones.size(), "Solo la consulta sin caché debería llegar al servidor");
+
+            // Los errores no se guardan
+
+            codigo = 500;
+
+            conCache.oraculoDigital("Otro producto");
+
+            conCache.oraculoDigital("Otro producto");
+
+            assertEquals(4, peticiones.size(), "Los errores no deberían guardarse");
+
+            // Las respuestas caducadas se vuelven a pedir
+
+            codigo = 200;
+
+            LlmService caducado = servicioConCache(directorio, 0);
+
+            caducado.oraculoDigital("Caduca");
+
+            caducado.oraculoDigital("Caduca");
+
+            assertEquals(6, peticiones.size(), "Las respuestas caducadas no deberían servirse");
+
+        } finally {
+
+            try (var archivos = Files.list(directorio)) {
+
+                for (Path archivo : archivos.toList()) {
+
+                    Files.delete(archivo);
+
+                }
+
+            }
+
+            Files.delete(directorio);
+
+        }
+
+    }
+
+    /**
+     * Verifica que la generación de todo el catálogo solo pide los productos sin
+     * descripción, guarda cada una y recupera del registro las que no se
+     * pudieron guardar en lugar de volver a pedirlas.
+     */
+
+    @Test
+    void testGeneradorDescripciones() throws IOException {
+
+        // Tabla de productos en memoria en lugar de la base de datos
+
+        List<ProductoOtaku> tabla = new ArrayList<>();
+
+        for (int id = 1; id <= 30; id++) {
+
+            ProductoOtaku p = new ProductoOtaku("Figura " + id + ".", "Figura", 10, 1);
+
+            p.setId(id);
+
+            if (id > 25) {
+
+                p.setDescripcion("Descripción anterior");
+
+            }
+
+            tabla.add(p);
+
+        }
+
+        IntSupplier contar = () -> (int) tabla.stream().filter(p -> p.getDescripcion() == null).count();
+
+        BiFunction<Integer, Integer, List<ProductoOtaku>> pendientes = (despues, limite) -> tabla.stream()
+                .filter(p -> p.getDescripcion() == null && p.getId() > despues).limit(limite)
+                .map(ProductoOtaku::new).toList();
+
+        // La base de datos "no responde" al guardar el producto 9 la primera vez
+
+        Set<Integer> caidas = ConcurrentHashMap.newKeySet();
+
+        caidas.add(9);
+
+        BiPredicate<ProductoOtaku, String> guardar = (producto, descripcion) -> {
+
+            if (caidas.remove(producto.getId())) {
+
+                return false;
+
+            }
+
+            tabla.get(producto.getId() - 1).setDescripcion(descripcion);
+
+            return true;
+
+        };
+
+        Path salida = Files.createTempFile("descripciones", ".jsonl");
+
+        Files.delete(salida);
+
+        GeneradorDescripciones generador = new GeneradorDescripciones(servicio, contar, pendientes, guardar, salida, 4, 0);
+
+        try {
+
+            fallarSi = "Figura 7.";
+
+            GeneradorDescripciones.Progreso primera = generador.ejecutar(p -> { });
+
+            assertEquals(25, primera.total(), "Solo deberían pedirse los productos sin descripción");
+
+            assertEquals(23, primera.completados(), "Deberían guardarse todas menos la que falla y la que no se guarda");
+
+            assertEquals(2, primera.fallidos(), "Deberían fallar dos productos");
+
+            assertEquals(25, peticiones.size(), "No deberían pedirse los productos que ya tenían descripción");
+
+            assertEquals("Descripción anterior", tabla.get(29).getDescripcion(), "No debería tocarse una descripción guardada");
+
+            assertEquals("Hola", tabla.get(0).getDescripcion(), "Debería guardarse el texto generado");
+
+            // Al volver a ejecutar solo se pide el que falló; el que no se guardó sale del registro
+
+            fallarSi = null;
+
+            int antes = peticiones.size();
+
+            GeneradorDescripciones.Progreso segunda = generador.ejecutar(p -> { });
+
+            assertEquals(2, segunda.total(), "Solo deberían quedar los dos productos que fallaron");
+
+            assertEquals(1, segunda.completados(), "El producto que falló debería describirse");
+
+            assertEquals(1, segunda.yaHechos(), "La descripción no guardada debería recuperarse del registro");
+
+            assertEquals(antes + 1, peticiones.size(), "Solo debería pedirse el producto que falló");
+
+            assertEquals(0, generador.ejecutar(p -> { }).total(), "No debería quedar nada pendiente");
+
+            assertEquals(25, generador.getGuardadas(), "Deberían registrarse todas las descripciones generadas");
+
+        } finally {
+
+            generador.reiniciar();
+
+        }
+
+    }
+
+    /**
+     * Verifica que el limitador espacia las peticiones según la tasa indicada.
+     */
+
+    @Test
+    void testLimitadorTasa() throws InterruptedException {
+
+        LimitadorTasa limitador = new LimitadorTasa(50);
+
+        long inicio = System.nanoTime();
+
+        for (int i = 0; i < 11; i++) {
+
+            limitador.esperarTurno();
+
+        }
+
+        assertTrue(System.nanoTime() - inicio >= 190_000_000L, "Once turnos a 50 por segundo deberían tardar al menos 200 ms");
+
+    }
+
+    /**
+     * Verifica que en modo stream el texto se entrega por trozos y en orden, que
+     * se informa del tiempo hasta el primero y que la respuesta completa queda en
+     * la caché.
+     */
+
+    @Test
+    void testStreaming() throws IOException {
+
+        Path directorio = Files.createTempDirectory("cache_ia");
+
+        try {
+
+            LlmService conCache = servicioConCache(directorio, 60_000);
+
+            List<String> recibidos = new ArrayList<>();
+
+            List<Duration> esperas = new ArrayList<>();
+
+            LlmService.Oyente oyente = new LlmService.Oyente() {
+
+                @Override
+                public void token(String texto) {
+
+                    recibidos.add(texto);
+
+                }
+
+                @Override
+                public void primerToken(Duration espera) {
+
+                    esperas.add(espera);
+
+                }
+
+            };
+
+            assertEquals("Contenido:\n\nHola \"mundo\"", conCache.oraculoDigitalEnVivo("Describe la figura", oyente),
+                    "Debería devolver el texto completo");
+
+            assertEquals(List.of("Ho", "la ", "\"mundo\""), recibidos, "Los trozos deberían llegar en orden");
+
+            assertEquals(1, esperas.size(), "Debería informarse una vez del primer trozo");
+
+            assertTrue(JsonParser.parseString(cuerpos.get(0)).getAsJsonObject().get("stream").getAsBoolean(),
+                    "La petición debería pedir el modo stream");
+
+            // La respuesta completa sale de la caché, también sin modo stream
+
+            recibidos.clear();
+
+            assertEquals("Contenido:\n\nHola \"mundo\"", conCache.oraculoDigitalEnVivo("Describe la figura", oyente),
+                    "Debería salir de la caché");
+
+            assertEquals(List.of("Hola \"mundo\""), recibidos, "La respuesta guardada debería entregarse de una vez");
+
+            assertEquals("Contenido:\n\nHola \"mundo\"", conCache.oraculoDigital("Describe la figura"),
+                    "La respuesta debería servir también sin modo stream");
+
+            assertEquals(1, peticiones.size(), "Solo la primera consulta debería llegar al servidor");
+
+            // Los errores llegan igual que sin modo stream
+
+            codigo = 401;
+
+            respuesta = "{\"error\":{\"message\":\"Clave no válida\"}}";
+
+            assertEquals("Error de la API: Clave no válida", conCache.oraculoDigitalEnVivo("Otra", oyente),
+                    "Debería devolver el error de la API");
+
+            // Un stream que deja de enviar datos se corta al pasar la espera de respuesta
+
+            codigo = 200;
+
+            pausaStreamMs = 5000;
+
+            List<String> antesDeParar = new CopyOnWriteArrayList<>();
+
+            long inicio = System.nanoTime();
+
+            assertEquals("ERROR", servicio.oraculoDigitalEnVivo("Se queda colgada", antesDeParar::add),
+                    "Un stream parado debería terminar con error");
+
+            assertTrue(System.nanoTime() - inicio < 2_000_000_000L, "No debería esperar a que el servidor siga");
+
+            assertEquals(List.of("Ho"), antesDeParar, "Debería haberse entregado el texto recibido antes de pararse");
+
+        } finally {
+
+            try (var archivos = Files.list(directorio)) {
+
+                for (Path archivo : archivos.toList()) {
+
+                    Files.delete(archivo);
+
+                }
+
+            }
+
+            Files.delete(directorio);
+
+        }
+
+    }
+
+    /**
+     * Verifica que el clasificador local acierta la categoría de nombres parecidos
+     * a los del catálogo, que no se fía de nombres extraños ni de un modelo con
+     * pocos ejemplos y que se vuelve a entrenar con los productos nuevos.
+     */
+
+    @Test
+    void testClasificadorCategorias() {
+
+        List<ProductoOtaku> catalogo = new ArrayList<>();
+
+        String[][] ejemplos = {
+                { "Manga", "Manga One Piece Vol.", "Manga Naruto tomo", "Manga Berserk edición", "Manga Chainsaw Man Vol." },
+                { "Figura", "Figura de Goku", "Figura Nendoroid Miku", "Figura de Luffy Gear 5", "Figura Figma Link" },
+                { "Ropa", "Camiseta de Naruto", "Sudadera de Pokémon", "Camiseta The Witcher", "Sudadera Evangelion" },
+                { "Póster", "Póster de Akira", "Poster Ghibli Totoro", "Póster Attack on Titan", "Poster de Evangelion" } };
+
+        for (String[] categoria : ejemplos) {
+
+            for (int i = 1; i < categoria.length; i++) {
+
+                for (int n = 1; n <= 5; n++) {
+
+                    catalogo.add(new ProductoOtaku(categoria[i] + " " + n, categoria[0], 10, 1));
+
+                }
+
+            }
+
+        }
+
+        // Los productos de categorías que no están en la lista se ignoran
+
+        catalogo.add(new ProductoOtaku("Cosa rara", "Varios", 10, 1));
+
+        ClasificadorCategorias clasificador = new ClasificadorCategorias(0.8, 50, 60_000);
+
+        assertNull(clasificador.resolverLocal("Manga Naruto"), "Sin entrenar no debería responder");
+
+        assertTrue(clasificador.entrenar(accion -> { catalogo.forEach(accion); return catalogo.size(); }),
+                "Debería entrenarse");
+
+        assertEquals(80, clasificador.getEjemplos(), "Deberían usarse solo los productos con categoría conocida");
+
+        assertEquals("Manga", clasificador.resolverLocal("Manga Berserk Vol. 12").categoria(), "Debería reconocer un manga");
+
+        assertEquals("Ropa", clasificador.resolverLocal("Sudadera de One Piece").categoria(), "Debería reconocer una prenda");
+
+        assertEquals("Póster", clasificador.resolverLocal("poster de naruto").categoria(), "Debería tolerar tildes y mayúsculas");
+
+        assertNull(clasificador.resolverLocal("djhdftj qwzx"), "Un nombre extraño debería pasar a la IA");
+
+        assertTrue(clasificador.clasificar("djhdftj qwzx").confianza() < 0.5, "Un nombre extraño debería tener poca confianza");
+
+        assertEquals(3, clasificador.getResueltasLocal(), "Tres consultas deberían resolverse en local");
+
+        assertEquals(2, clasificador.getDerivadasIa(), "Dos consultas deberían pasar a la IA");
+
+        // Con pocos ejemplos no se fía del modelo aunque esté seguro
+
+        ClasificadorCategorias pocos = new ClasificadorCategorias(0.8, 50, 60_000);
+
+        pocos.entrenar(accion -> { catalogo.subList(0, 20).forEach(accion); return 20; });
+
+        assertNull(pocos.resolverLocal("Manga Naruto tomo 1"), "Con pocos ejemplos debería pasar a la IA");
+
+        // Al volver a entrenar aprende las categorías nuevas
+
+        for (int n = 1; n <= 10; n++) {
+
+            catalogo.add(new ProductoOtaku("Llavero de Pikachu " + n, "Llavero", 5, 1));
+
+        }
+
+        clasificador.entrenar(accion -> { catalogo.forEach(accion); return catalogo.size(); });
+
+        assertEquals("Llavero", clasificador.resolverLocal("Llavero Pikachu grande").categoria(),
+                "Debería aprender los productos nuevos");
+
+    }
+
+    /**
+     * Verifica que los errores pasajeros se reintentan respetando Retry-After,
+     * que el disyuntor rechaza las peticiones mientras el servidor falla y que
+     * una respuesta lenta se cubre con una petición duplicada.
+     */
+
+    @Test
+    void testResiliencia() throws InterruptedException {
+
+        LlmService resiliente = servicioResiliente(3, 0, false);
+
+        fallos.add(503);
+
+        fallos.add(429);
+
+        retryAfter = "0";
+
+        assertEquals("Contenido:\n\nHola", resiliente.oraculoDigital("hola"), "Debería reintentar hasta obtener respuesta");
+
+        assertEquals(3, peticiones.size(), "Deberían enviarse la petición y dos reintentos");
+
+        assertEquals(2, resiliente.getReintentos(), "Deberían contarse dos reintentos");
+
+        // Si el servidor pide esperar más de lo permitido no se reintenta
+
+        fallos.add(429);
+
+        retryAfter = "3600";
+
+        assertTrue(resiliente.oraculoDigital("hola").startsWith("Error HTTP: código 429"), "Debería devolver el error");
+
+        assertEquals(4, peticiones.size(), "No debería reintentarse");
+
+        // Dos fallos seguidos abren el disyuntor
+
+        LlmService conDisyuntor = servicioResiliente(0, 2, false);
+
+        fallos.add(500);
+
+        fallos.add(500);
+
+        conDisyuntor.oraculoDigital("uno");
+
+        conDisyuntor.oraculoDigital("dos");
+
+        assertTrue(conDisyuntor.oraculoDigital("tres").contains("no está disponible"), "Debería fallar al instante");
+
+        assertEquals(6, peticiones.size(), "Con el disyuntor abierto no deberían enviarse peticiones");
+
+        assertEquals(1, conDisyuntor.getDisyuntor().getAperturas(), "El disyuntor debería haberse abierto una vez");
+
+        assertEquals(1, conDisyuntor.getDisyuntor().getRechazos(), "Debería contarse la petición rechazada");
+
+        // Pasado el tiempo de apertura una petición de prueba correcta lo cierra
+
+        Thread.sleep(250);
+
+        assertEquals("Contenido:\n\nHola", conDisyuntor.oraculoDigital("cuatro"), "La prueba debería llegar al servidor");
+
+        assertEquals(Disyuntor.Estado.CERRADO, conDisyuntor.getDisyuntor().getEstado(), "El disyuntor debería cerrarse");
+
+        // Una respuesta mucho más lenta que las anteriores se cubre con otra petición
+
+        LlmService conCobertura = servicioResiliente(0, 0, true);
+
+        for (int i = 0; i < 20; i++) {
+
+            conCobertura.oraculoDigital("rápida " + i);
+
+        }
+
+        lentaUnaVez = "lenta";
+
+        long inicio = System.nanoTime();
+
+        assertEquals("Contenido:\n\nHola", conCobertura.oraculoDigital("lenta"), "Debería responder la petición duplicada");
+
+        assertTrue(System.nanoTime() - inicio < 1_000_000_000L, "No debería esperar a la petición lenta");
+
+        assertEquals(1, conCobertura.getCoberturas(), "Debería lanzarse una petición duplicada");
+
+        assertEquals(1, conCobertura.getCoberturasGanadas(), "La petición duplicada debería ganar");
+
+    }
+
+    /**
+     * Verifica que las consultas iguales hechas a la vez comparten una sola
+     * petición, también en modo stream, y que al terminar se vuelve a consultar.
+     */
+
+    @Test
+    void testConsultasIguales() throws Exception {
+
+        esperaMs = 300;
+
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+
+        try {
+
+            List<Future<String>> respuestas = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+
+                respuestas.add(hilos.submit(() -> servicio.oraculoDigital("Describe  la figura")));
+
+            }
+
+            for (Future<String> respuesta : respuestas) {
+
+                assertEquals("Contenido:\n\nHola", respuesta.get(), "Todas deberían recibir la respuesta");
+
+            }
+
+            assertEquals(1, peticiones.size(), "Las consultas iguales deberían compartir una petición");
+
+            assertEquals(3, servicio.getCompartidas(), "Tres consultas deberían esperar a la primera");
+
+            // En modo stream la segunda consulta recibe los mismos trozos
+
+            List<String> primera = new CopyOnWriteArrayList<>();
+
+            List<String> segunda = new CopyOnWriteArrayList<>();
+
+            Future<String> enVivo = hilos.submit(() -> servicio.oraculoDigitalEnVivo("Describe la figura", primera::add));
+
+            Thread.sleep(100);
+
+            assertEquals("Contenido:\n\nHola \"mundo\"", servicio.oraculoDigitalEnVivo("Describe la figura", segunda::add),
+                    "La segunda consulta debería recibir la respuesta completa");
+
+            assertEquals("Contenido:\n\nHola \"mundo\"", enVivo.get(), "La primera consulta debería terminar igual");
+
+            assertEquals(List.of("Ho", "la ", "\"mundo\""), segunda, "Ambas deberían recibir los trozos");
+
+            assertEquals(primera, segunda, "Ambas deberían recibir los mismos trozos");
+
+            assertEquals(2, peticiones.size(), "Solo la primera consulta en modo stream debería llegar al servidor");
+
+            // Sin caché, una consulta posterior vuelve a hacer la petición
+
+            servicio.oraculoDigital("Describe la figura");
+
+            assertEquals(3, peticiones.size(), "Una consulta posterior debería hacer su propia petición");
+
+        } finally {
+
+            hilos.shutdownNow();
+
+        }
+
+    }
+
+    /**
+     * Verifica que el relleno en segundo plano describe solo los productos sin
+     * descripción, reintenta en la siguiente vuelta los que fallaron y vuelve a
+     * describir un producto cuando se le borra la descripción. Como usa el
+     * generador del catálogo, anota también cada descripción en el registro.
+     */
+
+    @Test
+    void testRellenoDescripciones() throws IOException {
+
+        // Tabla de productos en memoria en lugar de la base de datos
+
+        List<ProductoOtaku> tabla = new ArrayList<>();
+
+        for (int id = 1; id <= 5; id++) {
+
+            ProductoOtaku p = new ProductoOtaku("Figura " + id + ".", "Figura", 10, 1);
+
+            p.setId(id);
+
+            tabla.add(p);
+
+        }
+
+        BiFunction<Integer, Integer, List<ProductoOtaku>> pendientes = (despues, limite) -> tabla.stream()
+                .filter(p -> p.getDescripcion() == null && p.getId() > despues).limit(limite)
+                .map(ProductoOtaku::new).toList();
+
+        IntSupplier contar = () -> (int) tabla.stream().filter(p -> p.getDescripcion() == null).count();
+
+        BiPredicate<ProductoOtaku, String> guardar = (producto, descripcion) -> {
+
+            ProductoOtaku fila = tabla.get(producto.getId() - 1);
+
+            if (!fila.getNombre().equals(producto.getNombre())) {
+
+                return false;
+
+            }
+
+            fila.setDescripcion(descripcion);
+
+            return true;
+
+        };
+
+        Path salida = Files.createTempFile("descripciones", ".jsonl");
+
+        Files.delete(salida);
+
+        RellenoDescripciones relleno = new RellenoDescripciones(servicio, contar, pendientes, guardar, salida, 0, 0);
+
+        try {
+
+            fallarSi = "Figura 3.";
+
+            assertEquals(4, relleno.rellenar(), "Deberían guardarse todas menos la que falla");
+
+            assertEquals(1, relleno.getFallidas(), "Debería fallar un producto");
+
+            assertEquals("Hola", tabla.get(0).getDescripcion(), "Debería guardarse el texto generado");
+
+            assertEquals(4, Files.readAllLines(salida).size(), "Cada descripción generada debería anotarse en el registro");
+
+            // En la siguiente vuelta solo se pide el producto que falló
+
+            fallarSi = null;
+
+            int antes = peticiones.size();
+
+            assertEquals(1, relleno.rellenar(), "Debería guardarse la descripción que faltaba");
+
+            assertEquals(antes + 1, peticiones.size(), "No deberían repetirse los productos ya descritos");
+
+            // Al cambiar el nombre se borra la descripción y se vuelve a generar
+
+            tabla.get(1).setNombre("Figura 2 edición limitada.");
+
+            tabla.get(1).setDescripcion(null);
+
+            assertEquals(1, relleno.rellenar(), "Debería describirse de nuevo el producto cambiado");
+
+            assertTrue(cuerpos.get(cuerpos.size() - 1).contains("edición limitada"), "El prompt debería usar el nombre nuevo");
+
+            assertEquals(0, relleno.rellenar(), "No debería quedar nada pendiente");
+
+            assertEquals(6, relleno.getRellenadas(), "Deberían contarse todas las descripciones guardadas");
+
+        } finally {
+
+            Files.deleteIfExists(salida);
+
+        }
+
+    }
+
+    /**
+     * Verifica que la categorización por lotes empaqueta varios nombres en cada
+     * petición, valida cada categoría y solo vuelve a pedir los nombres que
+     * fallaron, partiendo el lote si la respuesta entera no sirve.
+     */
+
+    @Test
+    void testCategorizadorLotes() {
+
+        Set<String> vistos = ConcurrentHashMap.newKeySet();
+
+        // El modelo responde con la primera palabra del nombre; "raro" falta la primera vez
+        // y "imposible" siempre recibe una categoría que no está en la lista
+
+        generar = prompt -> {
+
+            JsonObject json = new JsonObject();
+
+            Matcher linea = Pattern.compile("(?m)^(\\d+)\\. (.+)$").matcher(prompt);
+
+            while (linea.find()) {
+
+                String nombre = linea.group(2);
+
+                if (nombre.contains("raro") && vistos.add(nombre)) {
+
+                    continue;
+
+                }
+
+                json.addProperty(linea.group(1), nombre.contains("imposible") ? "Juguete" : nombre.split(" ")[0]);
+
+            }
+
+            return "```json\n" + json + "\n```";
+
+        };
+
+        CategorizadorLotes categorizador = new CategorizadorLotes(servicio, null, 3, 2);
+
+        List<String> categorias = categorizador.categorizar(List.of("Figura Goku", "manga One Piece", "Poster Naruto",
+                "Figura raro", "Llavero Totoro", "Chapa imposible"));
+
+        assertEquals(Arrays.asList("Figura", "Manga", "Póster", "Figura", "Llavero", null), categorias,
+                "Cada nombre debería recibir su categoría de la lista, o null si no es válida");
+
+        assertEquals(4, peticiones.size(), "Dos lotes y dos reintentos de los nombres que fallaron");
+
+        assertTrue(cuerpos.get(2).contains("Figura raro") && cuerpos.get(2).contains("Chapa imposible")
+                && !cuerpos.get(2).contains("Totoro"), "El reintento solo debería pedir los nombres que fallaron");
+
+        assertEquals(1, categorizador.getFallidas(), "Un nombre debería quedarse sin categoría");
+
+        // Si la respuesta entera no sirve, el lote se parte en dos
+
+        generar = prompt -> prompt.contains("3. ") ? "No sé" : "{\"1\": \"Ropa\", \"2\": \"Videojuego\"}";
+
+        categorizador = new CategorizadorLotes(servicio, null, 4, 2);
+
+        assertEquals(List.of("Ropa", "Videojuego", "Ropa", "Videojuego"),
+                categorizador.categorizar(List.of("Camiseta", "Zelda", "Sudadera", "Mario")),
+                "Las dos mitades deberían resolverse por separado");
+
+        assertEquals(3, categorizador.getPeticiones(), "Un lote fallido y sus dos mitades");
+
+    }
+
+    /**
+     * Verifica que con un servicio con caché las respuestas incompletas del
+     * categorizador no se guardan, y las completas se reutilizan.
+     */
+
+    @Test
+    void testCategorizadorLotesCache() throws IOException {
+
+        Path directorio = Files.createTempDirectory("cache_ia");
+
+        try {
+
+            Set<String> vistos = ConcurrentHashMap.newKeySet();
+
+            // La primera vez que llega el lote completo, al modelo se le olvida el segundo nombre
+
+            generar = prompt -> {
+
+                if (!prompt.contains("2. ")) {
+
+                    return "{\"1\": \"Manga\"}";
+
+                }
+
+                return vistos.add(prompt) ? "{\"1\": \"Figura\"}" : "{\"1\": \"Figura\", \"2\": \"Manga\"}";
+
+            };
+
+            LlmService conCache = servicioConCache(directorio, 60_000);
+
+            List<String> nombres = List.of("Figura Goku", "Manga Naruto");
+
+            assertEquals(List.of("Figura", "Manga"), new CategorizadorLotes(conCache, null, 2, 1).categorizar(nombres),
+                    "El reintento debería completar el lote");
+
+            assertEquals(2, peticiones.size(), "El lote y el reintento del nombre que faltó");
+
+            assertEquals(List.of("Figura", "Manga"), new CategorizadorLotes(conCache, null, 2, 1).categorizar(nombres),
+                    "El lote debería resolverse entero");
+
+            assertEquals(3, peticiones.size(), "La respuesta incompleta no debería haberse guardado en la caché");
+
+            assertEquals(List.of("Figura", "Manga"), new CategorizadorLotes(conCache, null, 2, 1).categorizar(nombres),
+                    "El lote debería salir de la caché");
+
+            assertEquals(3, peticiones.size(), "La respuesta completa debería haberse guardado en la caché");
+
+        } finally {
+
+            try (var archivos = Files.list(directorio)) {
+
+                for (Path archivo : archivos.toList()) {
+
+                    Files.delete(archivo);
+
+                }
+
+            }
+
+            Files.delete(directorio);
+
+        }
+
+    }
+
+    /**
+     * Verifica que sin clave API no se envía la petición.
+     */
+
+    @Test
+    void testSinClave() {
+
+        LlmService sinClave = new LlmService("http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions",
+                null, "modelo-prueba", Duration.ofSeconds(2), Duration.ofMillis(500));
+
+        assertThrows(RuntimeException.class, () -> sinClave.oraculoDigital("hola"), "Debería fallar sin clave API");
+
+        assertTrue(peticiones.isEmpty(), "No debería haberse enviado ninguna petición");
+
+    }
+
+    /**
+     * Crea un servicio que apunta al servidor local con caché en la carpeta dada.
+     */
+
+    private LlmService servicioConCache(Path directorio, long ttlMs) {
+
+        return new LlmService("http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions",
+                "clave-prueba", "modelo-prueba", Duration.ofSeconds(2), Duration.ofMillis(500),
+                new CacheRespuestas(directorio, 10, 10, ttlMs));
+
+    }
+
+    /**
+     * Crea un servicio que apunta al servidor local con reintentos, disyuntor y
+     * peticiones duplicadas.
+     */
+
+    private LlmService servicioResiliente(int reintentos, int fallosCircuito, boolean cobertura) {
+
+        return new LlmService("http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions",
+                "clave-prueba", "modelo-prueba", Duration.ofSeconds(2), Duration.ofSeconds(2), null,
+                new PoliticaResiliencia(reintentos, Duration.ofMillis(10), Duration.ofMillis(100),
+                        fallosCircuito, Duration.ofMillis(200), cobertura));
+
+    }
+
+    /**
+     * Responde a una petición con la respuesta configurada.
+     */
+
+    private void responder(HttpExchange intercambio) throws IOException {
+
+        String cuerpo = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        cuerpos.add(cuerpo);
+
+        peticiones.add(intercambio);
+
+        try {
+
+            Thread.sleep(esperaMs);
+
+            String lenta = lentaUnaVez;
+
+            if (lenta != null && cuerpo.contains(lenta)) {
+
+                lentaUnaVez = null;
+
+                Thread.sleep(1500);
+
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        }
+
+        Integer fallo = fallos.poll();
+
+        if (fallo != null) {
+
+            if (retryAfter != null) {
+
+                intercambio.getResponseHeaders().set("Retry-After", retryAfter);
+
+            }
+
+            byte[] error = "{}".getBytes(StandardCharsets.UTF_8);
+
+            intercambio.sendResponseHeaders(fallo, error.length);
+
+            try (OutputStream salida = intercambio.getResponseBody()) {
+
+                salida.write(error);
+
+            }
+
+            return;
+
+        }
+
+        boolean fallar = fallarSi != null && cuerpo.contains(fallarSi);
+
+        if (!fallar && codigo == 200 && cuerpo.contains("\"stream\":true")) {
+
+            enviarEventos(intercambio);
+
+            return;
+
+        }
+
+        String texto = respuesta;
+
+        Function<String, String> generador = generar;
+
+        if (generador != null) {
+
+            String prompt = JsonParser.parseString(cuerpo).getAsJsonObject().getAsJsonArray("messages")
+                    .get(0).getAsJsonObject().get("content").getAsString();
+
+            JsonObject mensaje = new JsonObject();
+
+            mensaje.addProperty("content", generador.apply(prompt));
+
+            JsonObject json = JsonParser.parseString("{\"choices\":[{}]}").getAsJsonObject();
+
+            json.getAsJsonArray("choices").get(0).getAsJsonObject().add("message", mensaje);
+
+            texto = json.toString();
+
+        }
+
+        byte[] datos = (fallar ? "{}" : texto).getBytes(StandardCharsets.UTF_8);
+
+        intercambio.sendResponseHeaders(fallar ? 500 : codigo, datos.length);
+
+        try (OutputStream salida = intercambio.getResponseBody()) {
+
+            salida.write(datos);
+
+        }
+
+    }
+
+    /**
+     * Responde en modo stream: un evento por trozo, en el formato de chat
+     * completions, y un evento final [DONE].
+     */
+
+    private void enviarEventos(HttpExchange intercambio) throws IOException {
+
+        intercambio.getResponseHeaders().set("Content-Type", "text/event-stream");
+
+        intercambio.sendResponseHeaders(200, 0);
+
+        try (OutputStream salida = intercambio.getResponseBody()) {
+
+            salida.write(": comentario que se ignora\n\n".getBytes(StandardCharsets.UTF_8));
+
+            for (String trozo : trozos) {
+
+                JsonObject delta = new JsonObject();
+
+                delta.addProperty("content", trozo);
+
+                JsonObject evento = JsonParser.parseString("{\"id\":\"x\",\"choices\":[{\"index\":0,\"finish_reason\":null}]}")
+                        .getAsJsonObject();
+
+                evento.getAsJsonArray("choices").get(0).getAsJsonObject().add("delta", delta);
+
+                salida.write(("data: " + evento + "\n\n").getBytes(StandardCharsets.UTF_8));
+
+                salida.flush();
+
+                if (pausaStreamMs > 0) {
+
+                    try {
+
+                        Thread.sleep(pausaStreamMs);
+
+                    } catch (InterruptedException e) {
+
+                        return;
+
+                    }
+
+                }
+
+            }
+
+            salida.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+
+        }
+
+    }
+
+}
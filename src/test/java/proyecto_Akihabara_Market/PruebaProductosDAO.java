@@ -2,12 +2,16 @@ package proyecto_Akihabara_Market;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import dao.CambiosFila;
 import dao.ProductoDAO;
 import model.ProductoOtaku;
 
@@ -47,19 +51,9 @@ class PruebaProductosDAO {
         
         productoTest.setStock(10);
 
-        // Agrega el producto a la BD
+        // Agrega el producto a la BD (el DAO le asigna el ID generado)
         
         dao.agregarProducto(productoTest);
-
-        // Recupera el producto insertado para obtener su ID
-        
-        List<ProductoOtaku> encontrados = dao.buscarProductosPorNombre(productoTest.getNombre());
-        
-        if (!encontrados.isEmpty()) {
-        	
-            productoTest.setId(encontrados.get(0).getId());
-            
-        }
         
     }
 
@@ -90,6 +84,37 @@ class PruebaProductosDAO {
         
     }
 
+    /**
+     * Verifica que la inserción en lote asigna a cada producto su ID generado.
+     */
+    
+    @Test
+    void testAgregarProductos() {
+    	
+        List<ProductoOtaku> lote = List.of(
+                new ProductoOtaku("Test Lote A " + System.currentTimeMillis(), "Test", 1.5, 1),
+                new ProductoOtaku("Test Lote B " + System.currentTimeMillis(), "Test", 2.5, 2));
+        
+        try {
+        	
+            assertEquals(2, dao.agregarProductos(lote), "Se deberían haber insertado los dos productos");
+            
+            for (ProductoOtaku p : lote) {
+            	
+                assertTrue(p.getId() > 0, "Cada producto debería tener su ID generado");
+                
+                assertEquals(p.getNombre(), dao.obtenerProductoPorId(p.getId()).getNombre(), "El ID debería corresponder al producto");
+                
+            }
+            
+        } finally {
+        	
+            lote.forEach(p -> dao.eliminarProducto(p.getId()));
+            
+        }
+        
+    }
+
     /**
      * Verifica que se puede obtener un producto por su ID y que los datos coinciden.
      */
@@ -105,6 +130,36 @@ class PruebaProductosDAO {
         
     }
 
+    /**
+     * Verifica que la segunda consulta por ID se sirve desde la caché y que una
+     * actualización invalida la copia cacheada.
+     */
+    
+    @Test
+    void testCacheProductoPorId() {
+    	
+        dao.obtenerProductoPorId(productoTest.getId());
+        
+        long aciertos = ProductoDAO.getCache().getAciertos();
+        
+        ProductoOtaku cacheado = dao.obtenerProductoPorId(productoTest.getId());
+        
+        assertEquals(aciertos + 1, ProductoDAO.getCache().getAciertos(), "La segunda consulta debería ser un acierto de caché");
+
+        // Modificar la copia devuelta no debe alterar la versión cacheada
+        
+        cacheado.setStock(-5);
+        
+        assertEquals(10, dao.obtenerProductoPorId(productoTest.getId()).getStock(), "La caché debería devolver copias");
+
+        productoTest.setStock(42);
+        
+        dao.actualizarProducto(productoTest);
+        
+        assertEquals(42, dao.obtenerProductoPorId(productoTest.getId()).getStock(), "La actualización debería invalidar la caché");
+        
+    }
+
     /**
      * Verifica que se puede obtener la lista de todos los productos.
      */
@@ -120,6 +175,28 @@ class PruebaProductosDAO {
         
     }
 
+    /**
+     * Verifica que la consulta de nombres solo trae el ID y el nombre de cada producto.
+     */
+    
+    @Test
+    void testObtenerNombresProductos() {
+    	
+        ProductoOtaku resumen = dao.obtenerNombresProductos().stream()
+                .filter(p -> p.getId() == productoTest.getId())
+                .findFirst()
+                .orElse(null);
+        
+        assertNotNull(resumen, "El producto de prueba debería aparecer en la lista de nombres");
+        
+        assertEquals(productoTest.getNombre(), resumen.getNombre(), "El nombre debería coincidir");
+        
+        assertNull(resumen.getCategoria(), "La categoría no debería cargarse en la proyección");
+        
+        assertEquals(0, resumen.getStock(), "El stock no debería cargarse en la proyección");
+        
+    }
+
     /**
      * Prueba que se puede actualizar un campo del producto correctamente (stock en este caso).
      */
@@ -139,6 +216,47 @@ class PruebaProductosDAO {
         
     }
 
+    /**
+     * Prueba que la actualización parcial solo modifica las columnas indicadas y
+     * que un lote con un producto inexistente no guarda ningún cambio.
+     */
+
+    @Test
+    void testActualizarCampos() {
+
+        ProductoOtaku cambios = new ProductoOtaku(productoTest);
+
+        cambios.setStock(42);
+
+        cambios.setPrecio(1.0);  // No se indica como cambiada: no debe guardarse
+
+        assertTrue(dao.actualizarCampos(List.of(new CambiosFila<>(cambios, Set.of("stock")))),
+                "La actualización parcial debería guardarse");
+
+        ProductoOtaku guardado = dao.obtenerProductoPorId(productoTest.getId());
+
+        assertEquals(42, guardado.getStock(), "El stock debería haberse actualizado");
+
+        assertEquals(99.99, guardado.getPrecio(), 0.001, "El precio no debería haber cambiado");
+
+        // Lote con un producto que no existe: se deshace la transacción completa
+
+        ProductoOtaku inexistente = new ProductoOtaku(cambios);
+
+        inexistente.setId(Integer.MAX_VALUE);
+
+        cambios.setStock(7);
+
+        assertFalse(dao.actualizarCampos(List.of(
+                new CambiosFila<>(cambios, Set.of("stock")),
+                new CambiosFila<>(inexistente, Set.of("nombre", "stock")))),
+                "El lote no debería guardarse si falta un producto");
+
+        assertEquals(42, dao.obtenerProductoPorId(productoTest.getId()).getStock(),
+                "El stock no debería cambiar si el lote se deshace");
+
+    }
+
     /**
      * Verifica que se puede eliminar un producto y que ya no esté disponible en la base de datos.
      */
@@ -174,5 +292,69 @@ class PruebaProductosDAO {
         assertEquals(productoTest.getNombre(), encontrados.get(0).getNombre(), "El nombre debería coincidir");
         
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Verifica la paginación por clave: ninguna página pasa del límite, cada una
+     * empieza después de {@code despuesDeId} (sin incluirlo) y recorriéndolas
+     * todas se obtienen los mismos IDs que en la tabla, hasta una última página vacía.
+     */
+
+    @Test
+    void testObtenerProductosPagina() {
+
+        List<Integer> recorridos = new ArrayList<>();
+
+        int despues = 0;
+
+        List<ProductoOtaku> pagina;
+
+        while (!(pagina = dao.obtenerProductosPagina(despues, 2)).isEmpty()) {
+
+            assertTrue(pagina.size() <= 2, "Ninguna página debería pasar del límite");
+
+            for (ProductoOtaku producto : pagina) {
+
+                assertTrue(producto.getId() > despues, "La página no debería incluir despuesDeId ni IDs anteriores");
+
+                recorridos.add(producto.getId());
+
+            }
+
+            despues = pagina.get(pagina.size() - 1).getId();
+
+        }
+
+        assertEquals(Arrays.stream(dao.obtenerIdsProductos()).boxed().toList(), recorridos,
+                "Las páginas deberían cubrir la tabla en orden y sin repetir");
+
+        List<ProductoOtaku> primera = dao.obtenerProductosPagina(productoTest.getId() - 1, 1);
+
+        assertEquals(1, primera.size(), "La página debería respetar el límite");
+
+        assertEquals(productoTest.getId(), primera.get(0).getId(), "La página debería empezar en el primer ID mayor que despuesDeId");
+
+        assertTrue(dao.obtenerProductosPagina(despues, 2).isEmpty(), "Después del último ID la página debería estar vacía");
+
+    }
+
+    /**
+     * Verifica que el recorrido en streaming pasa por todas las filas de la
+     * tabla y devuelve cuántas recorrió.
+     */
+
+    @Test
+    void testRecorrerProductos() {
+
+        List<Integer> recorridos = new ArrayList<>();
+
+        int total = dao.recorrerProductos(producto -> recorridos.add(producto.getId()));
+
+        assertEquals(dao.obtenerIdsProductos().length, total, "Debería recorrer tantas filas como tiene la tabla");
+
+        assertEquals(total, recorridos.size(), "Cada fila debería pasarse una vez a la acción");
+
+        assertTrue(recorridos.contains(productoTest.getId()), "El recorrido debería incluir la fila de prueba");
+
+    }
+
+}